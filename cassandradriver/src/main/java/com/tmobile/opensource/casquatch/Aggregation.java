@@ -0,0 +1,67 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * A server side CQL aggregate function applied to a column. Create with the factories in Aggregations
+ *
+ * @version 1.3
+ */
+public class Aggregation<R> {
+
+    private final String function;
+    private final String column;
+    private final Class<R> resultType;
+
+    /**
+     * Initializes the Aggregation
+     * @param function CQL aggregate function name
+     * @param column field or column name, null for all rows
+     * @param resultType type of the aggregate result
+     */
+    protected Aggregation(String function, String column, Class<R> resultType) {
+        this.function = function;
+        this.column = column;
+        this.resultType = resultType;
+    }
+
+    /**
+     * Get the CQL aggregate function name
+     * @return function name
+     */
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * Get the aggregated column
+     * @return field or column name, null for all rows
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Get the type of the aggregate result
+     * @return result class
+     */
+    public Class<R> getResultType() {
+        return resultType;
+    }
+
+    public String toString() {
+        return function+"("+(column == null ? "*" : column)+")";
+    }
+}
@@ -0,0 +1,100 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * Factories for the CQL aggregate functions supported by CassandraDriver.aggregate
+ *
+ * @version 1.3
+ */
+public final class Aggregations {
+
+    private Aggregations() {}
+
+    /**
+     * Count all rows
+     * @return Aggregation returning a Long
+     */
+    public static Aggregation<Long> count() {
+        return new Aggregation<Long>("count", null, Long.class);
+    }
+
+    /**
+     * Count rows with a non null value in the column
+     * @param column field or column name
+     * @return Aggregation returning a Long
+     */
+    public static Aggregation<Long> count(String column) {
+        return new Aggregation<Long>("count", column, Long.class);
+    }
+
+    /**
+     * Sum a numeric column. The result has the CQL type of the column
+     * @param column field or column name
+     * @return Aggregation returning a Number
+     */
+    public static Aggregation<Number> sum(String column) {
+        return new Aggregation<Number>("sum", column, Number.class);
+    }
+
+    /**
+     * Average a numeric column. The result has the CQL type of the column so integer columns return a truncated average
+     * @param column field or column name
+     * @return Aggregation returning a Number
+     */
+    public static Aggregation<Number> avg(String column) {
+        return new Aggregation<Number>("avg", column, Number.class);
+    }
+
+    /**
+     * Minimum value of a column
+     * @param column field or column name
+     * @return Aggregation returning an Object of the column type
+     */
+    public static Aggregation<Object> min(String column) {
+        return min(column, Object.class);
+    }
+
+    /**
+     * Minimum value of a column
+     * @param <R> Java type of the column
+     * @param column field or column name
+     * @param type Java class of the column
+     * @return Aggregation returning the column type
+     */
+    public static <R> Aggregation<R> min(String column, Class<R> type) {
+        return new Aggregation<R>("min", column, type);
+    }
+
+    /**
+     * Maximum value of a column
+     * @param column field or column name
+     * @return Aggregation returning an Object of the column type
+     */
+    public static Aggregation<Object> max(String column) {
+        return max(column, Object.class);
+    }
+
+    /**
+     * Maximum value of a column
+     * @param <R> Java type of the column
+     * @param column field or column name
+     * @param type Java class of the column
+     * @return Aggregation returning the column type
+     */
+    public static <R> Aggregation<R> max(String column, Class<R> type) {
+        return new Aggregation<R>("max", column, type);
+    }
+}
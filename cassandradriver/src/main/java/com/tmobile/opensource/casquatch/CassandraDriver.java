@@ -15,9 +15,35 @@
 package com.tmobile.opensource.casquatch;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.PreDestroy;
 
@@ -25,14 +51,28 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.ColumnMetadata;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.Host;
 import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PagingState;
 import com.datastax.driver.core.PoolingOptions;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.SocketOptions;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TokenRange;
 import com.datastax.driver.core.policies.ConstantSpeculativeExecutionPolicy;
 import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
 import com.datastax.driver.core.policies.ExponentialReconnectionPolicy;
@@ -45,15 +85,36 @@ import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.querybuilder.Select;
 import com.datastax.driver.mapping.Mapper;
 import com.datastax.driver.mapping.MappingManager;
+import com.datastax.driver.mapping.annotations.ClusteringColumn;
+import com.datastax.driver.mapping.annotations.Column;
+import com.datastax.driver.mapping.annotations.PartitionKey;
 import com.datastax.driver.mapping.annotations.Table;
+import com.datastax.driver.mapping.annotations.Transient;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.tmobile.opensource.casquatch.annotations.CoalesceReads;
+import com.tmobile.opensource.casquatch.annotations.HedgedReads;
+import com.tmobile.opensource.casquatch.annotations.KeyFilter;
+import com.tmobile.opensource.casquatch.annotations.NearCache;
+import com.tmobile.opensource.casquatch.cache.CacheEntry;
+import com.tmobile.opensource.casquatch.events.ChangeEvent;
+import com.tmobile.opensource.casquatch.events.ChangeEventBus;
 import com.tmobile.opensource.casquatch.exceptions.DriverException;
 import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
 import com.tmobile.opensource.casquatch.models.shared.DriverConfig;
+import com.tmobile.opensource.casquatch.util.BloomFilter;
+import com.tmobile.opensource.casquatch.util.HyperLogLog;
 
 /**
  * This object provides a standard interface for connecting to Cassandra clusters within SDE.
@@ -95,12 +156,34 @@ public class CassandraDriver {
 				int delay;
 				int maxDelay;			
 			}	
+			class Bulk {
+				int parallelism;
+				int groupSize;
+			}
+			class Scan {
+				int parallelism;
+				int splitsPerRange;
+				int maxRequestsPerSecond;
+				int readTimeout;
+				int fetchSize;
+				double sampleRatio;
+			}
+			class Events {
+				int bufferSize;
+			}
+			class Hedge {
+				String dataCenters;
+			}
 			Connections connections = new Connections();
 			Timeout timeout = new Timeout();
 			Reconnection reconnection = new Reconnection();
 			SpeculativeExecution speculativeExecution = new SpeculativeExecution();
 			Defaults defaults = new Defaults();
 			Features features = new Features();
+			Bulk bulk = new Bulk();
+			Scan scan = new Scan();
+			Events events = new Events();
+			Hedge hedge = new Hedge();
 			
 			String username;
 			String password;						
@@ -132,6 +215,16 @@ public class CassandraDriver {
 				this.features.solr=true;
 				this.defaults.solrDC="search";
 				this.defaults.saveNulls=false;
+				this.bulk.parallelism=16;
+				this.bulk.groupSize=100;
+				this.scan.parallelism=4;
+				this.scan.splitsPerRange=1;
+				this.scan.maxRequestsPerSecond=0;
+				this.scan.readTimeout=10000;
+				this.scan.fetchSize=5000;
+				this.scan.sampleRatio=0.05;
+				this.events.bufferSize=8192;
+				this.hedge.dataCenters=null;
 			}
 			
 			public String toString() {
@@ -157,6 +250,18 @@ public class CassandraDriver {
 		    	if(this.localDC == null || this.localDC.isEmpty())
 		    		throw new DriverException(401,"Local DC is required");
 		    	
+		    	if(this.bulk.parallelism < 1 || this.bulk.groupSize < 1)
+		    		throw new DriverException(401,"Bulk parallelism and group size must be positive");
+		    	
+		    	if(this.scan.parallelism < 1 || this.scan.splitsPerRange < 1 || this.scan.fetchSize < 1)
+		    		throw new DriverException(401,"Scan parallelism, splits per range and fetch size must be positive");
+		    	
+		    	if(this.scan.sampleRatio <= 0 || this.scan.sampleRatio > 1)
+		    		throw new DriverException(401,"Scan sample ratio must be greater than 0 and at most 1");
+		    	
+		    	if(this.events.bufferSize < 1)
+		    		throw new DriverException(401,"Change event buffer size must be positive");
+		    	
 		    	
 		    	return true;
 				
@@ -401,6 +506,106 @@ public class CassandraDriver {
 			config.defaults.saveNulls=false;
 			return this;
 		}
+		
+	    /**
+	     * Build with bulk query parallelism
+	     * @param parallelism max number of queries in flight for a single bulk call
+	     * @return Reference to Builder object
+	     */
+		public Builder withBulkParallelism(int parallelism) {
+			config.bulk.parallelism=parallelism;
+			return this;
+		}
+		
+	    /**
+	     * Build with bulk query group size
+	     * @param groupSize max number of keys combined into a single IN query
+	     * @return Reference to Builder object
+	     */
+		public Builder withBulkGroupSize(int groupSize) {
+			config.bulk.groupSize=groupSize;
+			return this;
+		}
+		
+	    /**
+	     * Build with table scan parallelism used by countAll and estimateCount
+	     * @param parallelism max number of token range queries in flight
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanParallelism(int parallelism) {
+			config.scan.parallelism=parallelism;
+			return this;
+		}
+		
+	    /**
+	     * Build with the number of pieces each token range is split into for table scans
+	     * @param splitsPerRange number of splits per token range
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanSplitsPerRange(int splitsPerRange) {
+			config.scan.splitsPerRange=splitsPerRange;
+			return this;
+		}
+		
+	    /**
+	     * Build with a throttle on table scan requests. Each token range query and each further page fetched counts as a request
+	     * @param maxRequestsPerSecond max requests per second, 0 for unlimited
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanThrottle(int maxRequestsPerSecond) {
+			config.scan.maxRequestsPerSecond=maxRequestsPerSecond;
+			return this;
+		}
+		
+	    /**
+	     * Build with the read timeout of table scan queries
+	     * @param readTimeout timeout in ms
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanReadTimeout(int readTimeout) {
+			config.scan.readTimeout=readTimeout;
+			return this;
+		}
+		
+	    /**
+	     * Build with the number of rows fetched per page by table scans
+	     * @param fetchSize rows per page
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanFetchSize(int fetchSize) {
+			config.scan.fetchSize=fetchSize;
+			return this;
+		}
+		
+	    /**
+	     * Build with the default fraction of token ranges sampled by estimateCount
+	     * @param sampleRatio fraction greater than 0 and at most 1
+	     * @return Reference to Builder object
+	     */
+		public Builder withScanSampleRatio(double sampleRatio) {
+			config.scan.sampleRatio=sampleRatio;
+			return this;
+		}
+		
+	    /**
+	     * Build with the number of change events buffered for subscribers before new events are dropped
+	     * @param bufferSize number of events, rounded up to a power of two
+	     * @return Reference to Builder object
+	     */
+		public Builder withChangeEventBufferSize(int bufferSize) {
+			config.events.bufferSize=bufferSize;
+			return this;
+		}
+		
+	    /**
+	     * Build with the remote data centers reads of models annotated with HedgedReads may be sent to. Defaults to every data center of the cluster other than the local one
+	     * @param dataCenters Comma separated list of data centers
+	     * @return Reference to Builder object
+	     */
+		public Builder withHedgeDataCenters(String dataCenters) {
+			config.hedge.dataCenters=dataCenters;
+			return this;
+		}
 
 		
 	    /**
@@ -420,10 +625,93 @@ public class CassandraDriver {
 		}
 	}
 
+    /**
+     * Result set of a single row already read from another result set, so rows read directly can still be mapped
+     */
+    private static class RowResultSet implements ResultSet {
+        private final ResultSet source;
+        private Row row;
+
+        RowResultSet(ResultSet source, Row row) {
+            this.source = source;
+            this.row = row;
+        }
+
+        @Override
+        public Row one() {
+            Row one = row;
+            row = null;
+            return one;
+        }
+
+        @Override
+        public List<Row> all() {
+            Row one = one();
+            return one != null ? Collections.singletonList(one) : Collections.<Row>emptyList();
+        }
+
+        @Override
+        public Iterator<Row> iterator() {
+            return all().iterator();
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return row == null;
+        }
+
+        @Override
+        public boolean isFullyFetched() {
+            return true;
+        }
+
+        @Override
+        public int getAvailableWithoutFetching() {
+            return row != null ? 1 : 0;
+        }
+
+        @Override
+        public ListenableFuture<ResultSet> fetchMoreResults() {
+            return Futures.<ResultSet>immediateFuture(this);
+        }
+
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            return source.getColumnDefinitions();
+        }
+
+        @Override
+        public boolean wasApplied() {
+            return source.wasApplied();
+        }
+
+        @Override
+        public ExecutionInfo getExecutionInfo() {
+            return source.getExecutionInfo();
+        }
+
+        @Override
+        public List<ExecutionInfo> getAllExecutionInfo() {
+            return source.getAllExecutionInfo();
+        }
+    }
+
     private Map<String,Cluster> clusterMap;
     private Map<String,Session> sessionMap;
     private Map<String,MappingManager> mappingManagerMap;
+    private Map<String,PreparedStatement> preparedStatementMap;
+    private Map<Class<?>,List<Field>> keyFieldMap;
+    private Map<Class<?>,DriverNearCache<?>> nearCacheMap;
+    private Map<Class<?>,DriverKeyFilter<?>> keyFilterMap;
+    private Map<Class<?>,ReadCoalescer> coalescerMap;
+    private Map<Class<?>,ModelCopier<?>> copierMap;
+    private Map<Class<?>,ReadHedger> hedgerMap;
+    private Map<String,Long> hedgeLatencyMap;
+    private ScheduledExecutorService keyFilterExecutor;
+    private ExecutorService hedgeExecutor;
+    private ChangeEventBus changeEventBus;
     private DatabaseCache<DriverConfig> driverConfig;
+    private static final DriverConfig.Key DEFAULT_DRIVER_CONFIG_KEY = new DriverConfig.Key("default");
 
     protected Builder.Configuration config;
 
@@ -457,9 +745,18 @@ public class CassandraDriver {
     protected CassandraDriver(Builder.Configuration config) {
     	config.validate();
     	this.config = config;
-        this.clusterMap = new HashMap<String, Cluster>();
-        this.sessionMap = new HashMap<String, Session>();
-        this.mappingManagerMap = new HashMap<String, MappingManager>();
+        this.clusterMap = new ConcurrentHashMap<String, Cluster>();
+        this.sessionMap = new ConcurrentHashMap<String, Session>();
+        this.mappingManagerMap = new ConcurrentHashMap<String, MappingManager>();
+        this.preparedStatementMap = new ConcurrentHashMap<String, PreparedStatement>();
+        this.keyFieldMap = new ConcurrentHashMap<Class<?>, List<Field>>();
+        this.nearCacheMap = new ConcurrentHashMap<Class<?>, DriverNearCache<?>>();
+        this.keyFilterMap = new ConcurrentHashMap<Class<?>, DriverKeyFilter<?>>();
+        this.coalescerMap = new ConcurrentHashMap<Class<?>, ReadCoalescer>();
+        this.copierMap = new ConcurrentHashMap<Class<?>, ModelCopier<?>>();
+        this.hedgerMap = new ConcurrentHashMap<Class<?>, ReadHedger>();
+        this.hedgeLatencyMap = new ConcurrentHashMap<String, Long>();
+        this.changeEventBus = new ChangeEventBus(config.events.bufferSize);
         this.driverConfig = new DatabaseCache<DriverConfig>(DriverConfig.class, this);    	
     }
     
@@ -491,8 +788,8 @@ public class CassandraDriver {
      * @return Cluster object for key
      */
     private Cluster getCluster(String key) {
-        Cluster cluster;
-        if(! clusterMap.containsKey(key)) {
+        return clusterMap.computeIfAbsent(key, k -> {
+            Cluster cluster;
             switch(key) {
                 case "default":
                 	switch(this.config.defaults.clusterType) {
@@ -509,9 +806,8 @@ public class CassandraDriver {
                     cluster = createSingleDCCluster(key);
             }
             logger.info("Created new cluster connection for key "+key);
-            clusterMap.put(key,cluster);
-        }
-        return clusterMap.get(key);
+            return cluster;
+        });
     }
 
     /**
@@ -521,17 +817,17 @@ public class CassandraDriver {
      * @throws DriverException - Driver exception mapped to error code
      */
     protected Session getSession(String key) throws DriverException {
-        if (!sessionMap.containsKey(key)) {
+        return sessionMap.computeIfAbsent(key, k -> {
             try {
-                sessionMap.put(key, getCluster(key).connect(config.keyspace));
+                Session session = getCluster(key).connect(config.keyspace);
                 logger.info("Opened new session in "+key+" to "+config.keyspace);
+                return session;
             }
             catch (Exception e) {
                 DriverException driverException = new DriverException(e);
                 throw driverException;
             }
-        }
-        return sessionMap.get(key);
+        });
     }
 
     /**
@@ -540,10 +836,7 @@ public class CassandraDriver {
      * @return Mapping Manager object for key
      */
     private MappingManager getMappingManager(String key) {
-        if(!mappingManagerMap.containsKey(key)) {
-            mappingManagerMap.put(key, new MappingManager(getSession(key)));
-        }
-        return mappingManagerMap.get(key);
+        return mappingManagerMap.computeIfAbsent(key, k -> new MappingManager(getSession(key)));
     }
 
     /**
@@ -682,6 +975,64 @@ public class CassandraDriver {
 	    }
     }
 
+    /**
+     * Procedure prepares a query once, binds the given values and returns all rows. Reads use the read consistency of the class.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param cql cql query with ? bind markers
+     * @param values values to bind in marker order
+     * @return List of objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<T> executeAll(Class<T> c, String cql, Object... values) throws DriverException {
+        logger.debug("Executing "+cql+" with "+values.length+" values on "+getConnectionKey(c));
+        try {
+            List<Object> parts = new ArrayList<Object>(Arrays.asList(values));
+            parts.add(0, cql);
+            return new ArrayList<T>(coalesce(c, "executeAll", parts, () -> this.getMapper(c).map(this.getSession(getConnectionKey(c)).execute(bindQuery(c, cql, values))).all(), rows -> getCopier(c).copyAll(rows)));
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Prepare a query once per connection and bind values to it with the read consistency of the class
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param cql cql query with ? bind markers
+     * @param values values to bind in marker order
+     * @return Bound statement
+     */
+    protected <T extends AbstractCassandraTable> BoundStatement bindQuery(Class<T> c, String cql, Object... values) {
+        String connectionKey = getConnectionKey(c);
+        PreparedStatement preparedStatement = preparedStatementMap.computeIfAbsent(connectionKey+":cql:"+cql, k -> {
+            logger.debug("Preparing "+cql+" on "+connectionKey);
+            return this.getSession(connectionKey).prepare(cql);
+        });
+        BoundStatement boundStatement = preparedStatement.bind(values);
+        boundStatement.setConsistencyLevel(getConsistencyLevelValue(c,"read"));
+        return boundStatement;
+    }
+
+    /**
+     * Map rows already read from a result set to objects
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param result result set the rows were read from
+     * @param rows rows to map
+     * @return List of objects in row order
+     */
+    <T extends AbstractCassandraTable> List<T> mapRows(Class<T> c, ResultSet result, List<Row> rows) {
+        Mapper<T> mapper = this.getMapper(c);
+        List<T> objects = new ArrayList<T>(rows.size());
+        for(Row row : rows) {
+            objects.add(mapper.map(new RowResultSet(result, row)).one());
+        }
+        return objects;
+    }
+
     /**
      * Get an object by passing an instance of the given object with the key populated. All other fields are ignored
      * @param <T> Domain Object for results
@@ -693,7 +1044,19 @@ public class CassandraDriver {
     public <T extends AbstractCassandraTable> T getById(Class<T> c, T o) throws DriverException {
         logger.debug("Getting "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-            return this.getMapper(c).get(buildID(c,o,"read"));
+            DriverNearCache<T> nearCache = getNearCache(c);
+            if(nearCache == null) {
+                return isKeyAbsent(c, o) ? null : coalesce(c, "getById", getFieldValues(o, getKeyFields(c)), () -> hedge(c, dataCenter -> this.getMappingManager(dataCenter).mapper(c).getAsync(buildID(c,o,"read"))), row -> getCopier(c).copy(row));
+            }
+            CacheKey key = getNearCacheKey(c, o);
+            CacheEntry<CacheKey,T> entry = nearCache.getEntry(key);
+            if(entry != null) {
+                return nearCache.copy(entry.getValue());
+            }
+            long generation = nearCache.generation();
+            T found = isKeyAbsent(c, o) ? null : coalesce(c, "getById", getFieldValues(o, getKeyFields(c)), () -> hedge(c, dataCenter -> this.getMappingManager(dataCenter).mapper(c).getAsync(buildID(c,o,"read"))), row -> getCopier(c).copy(row));
+            nearCache.put(key, found, generation);
+            return found;
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -736,7 +1099,7 @@ public class CassandraDriver {
         try {
         	Select select = this.generateSelectQuery(c, o);
 	       	logger.debug("Running Query: "+select.getQueryString());       	
-        	return this.getMapper(c).map(this.getSession(getConnectionKey(c)).execute(select)).all();
+        	return new ArrayList<T>(coalesce(c, "getAllById", getFieldValues(o, getKeyFields(c)), () -> this.getMapper(c).map(hedge(c, dataCenter -> this.getSession(dataCenter).executeAsync(select))).all(), rows -> getCopier(c).copyAll(rows)));
         	
         }
 	    catch (Exception e) {
@@ -746,29 +1109,20 @@ public class CassandraDriver {
     }
 
     /**
-     * Generate a select query using annotations and reflection
+     * Get an object with only the given columns populated by passing an instance of the given object with the key populated. Key columns are always included
      * @param <T> Domain Object for results
      * @param c Class of object
      * @param o Object containing keys populated
-     * @return Select object
+     * @param columns field or column names to read
+     * @return Partially populated object
      * @throws DriverException - Driver exception mapped to error code
-     */    
-    protected <T extends AbstractCassandraTable> Select generateSelectQuery(Class<T> c, T o) throws DriverException {
+     */
+    public <T extends AbstractCassandraTable> T getById(Class<T> c, T o, Set<String> columns) throws DriverException {
+        logger.debug("Getting "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" columns "+columns+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-        	Select select = QueryBuilder.select().from(c.getAnnotation(Table.class).name());        
-	       	for(Field val : c.getDeclaredFields()) {
-	       		 if(val.getAnnotationsByType(com.datastax.driver.mapping.annotations.PartitionKey.class).length > 0) {	       			
-	       			if(o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o) != null) {
-	       				select.where().and(QueryBuilder.eq(val.getAnnotation(com.datastax.driver.mapping.annotations.Column.class).name(), o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o)));
-	       			}
-	       		 }
-	       		 if(val.getAnnotationsByType(com.datastax.driver.mapping.annotations.ClusteringColumn.class).length > 0) {	       			
-	       			if(o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o) != null) {
-	       				select.where().and(QueryBuilder.eq(val.getAnnotation(com.datastax.driver.mapping.annotations.Column.class).name(), o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o)));
-	       			}
-	       		 }
-	         }
-        	return select;
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildProjectionStatement(c, o, columns, connectionKey, true, 1);
+            return this.getMapper(c).map(this.getSession(connectionKey).execute(boundStatement)).one();
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -777,24 +1131,20 @@ public class CassandraDriver {
     }
 
     /**
-     * Get an object by supplying a solr query
+     * Get one object from a partition with only the given columns populated by passing an instance of the given object with the partition key and optionally clustering keys populated. Key columns are always included
      * @param <T> Domain Object for results
      * @param c Class of object
-     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
-     * @param limit limit the number of results
-     * @return List of Objects
+     * @param o Object containing keys populated
+     * @param columns field or column names to read
+     * @return Partially populated object
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> List<T> getAllBySolr(Class<T> c, String solrQueryString, int limit) throws DriverException {
-        if(!config.features.solr) {
-        	throw new DriverException(401,"Solr is disabled");
-        }    	
-    	logger.debug("Getting All from "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with solar_query "+solrQueryString+" from "+getConnectionKey("solar"));
+    public <T extends AbstractCassandraTable> T getOneById(Class<T> c, T o, Set<String> columns) throws DriverException {
+        logger.debug("Getting One "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" columns "+columns+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-        	Select select = QueryBuilder.select().from(c.getAnnotation(Table.class).name()); 
-        	select.where().and(QueryBuilder.eq("solr_query", solrQueryString)).limit(limit);
-	       	logger.debug("Running Query: "+select.getQueryString());
-        	return this.getMapper(c).map(this.getSession(config.defaults.solrDC).execute(select)).all();
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildProjectionStatement(c, o, columns, connectionKey, false, 1);
+            return this.getMapper(c).map(this.getSession(connectionKey).execute(boundStatement)).one();
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -802,89 +1152,88 @@ public class CassandraDriver {
 	    }
     }
 
-
     /**
-     * Get an object by supplying a solr query. Defaults to limit of 10
+     * Get all objects from a partition with only the given columns populated by passing an instance of the given object with the partition key and optionally clustering keys populated. Key columns are always included
      * @param <T> Domain Object for results
      * @param c Class of object
-     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
-     * @return List of Objects
+     * @param o Object containing keys populated
+     * @param columns field or column names to read
+     * @return List of partially populated objects
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> List<T> getAllBySolr(Class<T> c, String solrQueryString) throws DriverException {
-    	return getAllBySolr(c,solrQueryString,10);
-    }
-
-    /**
-     * Get count for solr query
-     * @param <T> Domain Object for results
-     * @param c Class of object
-     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
-     * @return count of results
-     * @throws DriverException - Driver exception mapped to error code
-     */    
-    public <T extends AbstractCassandraTable> Long getCountBySolr(Class<T> c, String solrQueryString) throws DriverException {
-    	if(!config.features.solr) {
-        	throw new DriverException(401,"Solr is disabled");
-        }         
-        logger.debug("Getting All from "+c.getAnnotation(Table.class).keyspace()+".”+c.getAnnotation(Table.class).name()+” with solar_query "+solrQueryString+" from "+getConnectionKey("solar"));
+    public <T extends AbstractCassandraTable> List<T> getAllById(Class<T> c, T o, Set<String> columns) throws DriverException {
+        logger.debug("Getting All "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" columns "+columns+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-            Select select = QueryBuilder.select().countAll().from(c.getAnnotation(Table.class).name());
-            select.where().and(QueryBuilder.eq("solr_query", solrQueryString));
-                logger.debug("Running Query: "+select.getQueryString());
-                ResultSet result = this.getSession(config.defaults.solrDC).execute(select);
-                if(result != null) {
-                    List<Row> rowList = result.all();
-                    if(rowList != null && rowList.size()>0) {
-                        return new Long(rowList.get(0).getLong(0));
-                    }
-                    else {
-                        return new Long(0);
-                    }
-                }
-                else {
-                    return new Long(0);
-                }
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildProjectionStatement(c, o, columns, connectionKey, false, null);
+            return this.getMapper(c).map(this.getSession(connectionKey).execute(boundStatement)).all();
         }
-         catch (Exception e) {
-             DriverException driverException = new DriverException(e);
-             throw driverException;
-         }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
     }
-    
+
     /**
-     * Build the ID string to pass to mapper function including any options
+     * Build a bound select of the key columns plus the given columns. Statements are prepared once per class, projection, bound keys, and limit
      * @param <T> Domain Object for results
      * @param c Class of object
-     * @param o Populated object
-     * @param type read/write
-     * @return Object array to pass to mapper function
+     * @param o Object containing keys populated
+     * @param columns field or column names to read
+     * @param connectionKey connection key to prepare against
+     * @param allKeys bind every key column if true, otherwise only the populated ones
+     * @param limit row limit or null for none
+     * @return Bound statement
+     * @throws DriverException - Driver exception mapped to error code
      */
-    private <T extends AbstractCassandraTable> Object[] buildID(Class<T> c, T o,String type)  {
-        Object[] id = new Object[o.getID().length+1];
-        System.arraycopy(o.getID(),0,id,0,o.getID().length);
-        id[o.getID().length] = getConsistencyLevel(c,type);
-        return id;
+    private <T extends AbstractCassandraTable> BoundStatement buildProjectionStatement(Class<T> c, T o, Set<String> columns, String connectionKey, boolean allKeys, Integer limit) throws DriverException {
+        List<Field> keyFields = getKeyFields(c);
+        Set<String> selectColumns = new TreeSet<String>();
+        Collections.addAll(selectColumns, getColumnNames(keyFields));
+        for(String column : columns) {
+            selectColumns.add(resolveColumnName(c, column));
+        }
+
+        List<Field> boundFields = new ArrayList<Field>();
+        List<Object> boundValues = new ArrayList<Object>();
+        for(Field field : keyFields) {
+            Object value = getFieldValue(o, field);
+            if(allKeys || value != null) {
+                boundFields.add(field);
+                boundValues.add(value);
+            }
+        }
+
+        PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "select:"+c.getName()+":"+selectColumns+":"+Arrays.toString(getColumnNames(boundFields))+":"+limit, () -> {
+            Select select = QueryBuilder.select(selectColumns.toArray(new String[selectColumns.size()])).from(c.getAnnotation(Table.class).name());
+            for(Field field : boundFields) {
+                select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+            }
+            if(limit != null) {
+                select.limit(limit);
+            }
+            return select;
+        });
+        BoundStatement boundStatement = preparedStatement.bind(boundValues.toArray());
+        boundStatement.setConsistencyLevel(getConsistencyLevelValue(c,"read"));
+        return boundStatement;
     }
 
     /**
-     * Check if an  object exists by passing an instance of the given object with the key populated. All other fields are ignored
+     * Get all objects within a clustering slice of a partition by passing an instance of the given object with the partition key and optionally leading clustering keys populated
      * @param <T> Domain Object for results
      * @param c Class of object
      * @param o Object containing keys populated
-     * @return True if exists, false if not
+     * @param slice clustering range, order, and limits
+     * @return List of Objects
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> boolean existsById(Class<T> c, T o) throws DriverException {
-        logger.debug("Checking for existing "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" in "+getConnectionKey(c));        
+    public <T extends AbstractCassandraTable> List<T> getSliceById(Class<T> c, T o, Slice slice) throws DriverException {
+        logger.debug("Getting Slice "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-        	T obj = this.getMapper(c).get(buildID(c,o,"read"));
-            if (obj != null){
-                return true;
-            }
-            else {
-                return false;
-            }
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildSliceStatement(c, o, slice, connectionKey, "*", () -> QueryBuilder.select().all().from(c.getAnnotation(Table.class).name()), true);
+            return this.getMapper(c).map(this.getSession(connectionKey).execute(boundStatement)).all();
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -893,16 +1242,20 @@ public class CassandraDriver {
     }
 
     /**
-     * Delete an object by passing an instance of the given object with the key populated. All other fields are ignored
+     * Stream all objects within a clustering slice of a partition. Pages of the slice fetch size are requested as the stream is consumed
      * @param <T> Domain Object for results
      * @param c Class of object
      * @param o Object containing keys populated
+     * @param slice clustering range, order, and limits
+     * @return Stream of Objects
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> void delete(Class<T> c, T o) throws DriverException {
-        logger.debug("Deleting "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with values "+o.toString()+" from "+getConnectionKey(c));
+    public <T extends AbstractCassandraTable> Stream<T> streamSliceById(Class<T> c, T o, Slice slice) throws DriverException {
+        logger.debug("Streaming Slice "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-        	this.getMapper(c).delete(o,getConsistencyLevel(c,"write"));
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildSliceStatement(c, o, slice, connectionKey, "*", () -> QueryBuilder.select().all().from(c.getAnnotation(Table.class).name()), true);
+            return StreamSupport.stream(this.getMapper(c).map(this.getSession(connectionKey).execute(boundStatement)).spliterator(), false);
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -911,17 +1264,32 @@ public class CassandraDriver {
     }
 
     /**
-     * Delete an object asynchronously by passing an instance of the given object with the key populated. All other fields are ignored
+     * Get one page of objects within a clustering slice of a partition
      * @param <T> Domain Object for results
      * @param c Class of object
      * @param o Object containing keys populated
-     * @return ListenableFuture for query
+     * @param slice clustering range, order, and limits. The fetch size sets the page size
+     * @param pagingState paging state from the previous page or null for the first page
+     * @return Page of Objects
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> ListenableFuture<Void> deleteAsync(Class<T> c, T o) throws DriverException {
-        logger.debug("Deleting asynchronously "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with values "+o.toString()+" from "+getConnectionKey(c));
+    public <T extends AbstractCassandraTable> SlicePage<T> getSlicePageById(Class<T> c, T o, Slice slice, String pagingState) throws DriverException {
+        logger.debug("Getting Slice Page "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" from "+getConnectionKey(c));
         try {
-        	return this.getMapper(c).deleteAsync(o,getConsistencyLevel(c,"write"));
+            String connectionKey = getConnectionKey(c);
+            BoundStatement boundStatement = buildSliceStatement(c, o, slice, connectionKey, "*", () -> QueryBuilder.select().all().from(c.getAnnotation(Table.class).name()), true);
+            if(pagingState != null) {
+                boundStatement.setPagingState(PagingState.fromString(pagingState));
+            }
+            ResultSet resultSet = this.getSession(connectionKey).execute(boundStatement);
+            int available = resultSet.getAvailableWithoutFetching();
+            PagingState nextPagingState = resultSet.getExecutionInfo().getPagingState();
+            List<T> rows = new ArrayList<T>(available);
+            Iterator<T> iterator = this.getMapper(c).map(resultSet).iterator();
+            for(int i=0;i<available;i++) {
+                rows.add(iterator.next());
+            }
+            return new SlicePage<T>(rows, nextPagingState == null ? null : nextPagingState.toString());
         }
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -930,21 +1298,1336 @@ public class CassandraDriver {
     }
 
     /**
-     * Save an object by passing an instance of the given object. Inserts or updates as necessary. NOTE: Nulls are not persisted to the database.
+     * Run a server side aggregate over a partition by passing an instance of the given object with the partition key and optionally leading clustering keys populated
      * @param <T> Domain Object for results
+     * @param <R> Result type of the aggregate
      * @param c Class of object
-     * @param o Populated object
+     * @param o Object containing keys populated
+     * @param aggregation aggregate to run, see Aggregations
+     * @return Aggregate value
      * @throws DriverException - Driver exception mapped to error code
      */
-    public <T extends AbstractCassandraTable> void save(Class<T> c, T o) throws DriverException{
-        logger.debug("Saving to  "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" to "+getConnectionKey(c));
-    	try {
-    		this.getMapper(c).save(o,getConsistencyLevel(c,"write"));
-    	}
-	    catch (Exception e) {
-	        DriverException driverException = new DriverException(e);
-	        throw driverException;
+    public <T extends AbstractCassandraTable, R> R aggregate(Class<T> c, T o, Aggregation<R> aggregation) throws DriverException {
+        return aggregate(c, o, aggregation, Slice.builder().build());
+    }
+
+    /**
+     * Run a server side aggregate over a clustering slice of a partition. Order and limits of the slice are ignored
+     * @param <T> Domain Object for results
+     * @param <R> Result type of the aggregate
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @param aggregation aggregate to run, see Aggregations
+     * @param slice clustering range
+     * @return Aggregate value
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable, R> R aggregate(Class<T> c, T o, Aggregation<R> aggregation, Slice slice) throws DriverException {
+        logger.debug("Aggregating "+aggregation+" on "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" from "+getConnectionKey(c));
+        for(Field field : getPartitionKeyFields(c)) {
+            if(getFieldValue(o, field) == null) {
+                throw new DriverException(303,"Aggregations require the partition key of "+c.getAnnotation(Table.class).name());
+            }
+        }
+        try {
+            String connectionKey = getConnectionKey(c);
+            String column = aggregation.getColumn() == null ? null : resolveColumnName(c, aggregation.getColumn());
+            String table = c.getAnnotation(Table.class).name();
+            BoundStatement boundStatement = buildSliceStatement(c, o, slice, connectionKey, aggregation.getFunction()+"("+column+")", () -> {
+                if(column == null) {
+                    return QueryBuilder.select().countAll().from(table);
+                }
+                return QueryBuilder.select().fcall(aggregation.getFunction(), QueryBuilder.column(column)).from(table);
+            }, false);
+            Row row = this.getSession(connectionKey).execute(boundStatement).one();
+            return row == null ? null : aggregation.getResultType().cast(row.getObject(0));
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Build a bound statement restricting a partition to a clustering slice. Statements are prepared once per shape with bounds and limits as bind markers
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @param slice clustering range, order, and limits
+     * @param connectionKey connection key to prepare against
+     * @param selectionName unique name of the selection for the prepared statement cache
+     * @param selection supplier of the select statement without a where clause
+     * @param ordered apply order and limits if true. Aggregates ignore them
+     * @return Bound statement
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private <T extends AbstractCassandraTable> BoundStatement buildSliceStatement(Class<T> c, T o, Slice slice, String connectionKey, String selectionName, Supplier<Select> selection, boolean ordered) throws DriverException {
+        List<Field> clusteringFields = getClusteringKeyFields(c);
+        List<Field> equalFields = new ArrayList<Field>();
+        List<Object> values = new ArrayList<Object>();
+        for(Field field : getKeyFields(c)) {
+            Object value = getFieldValue(o, field);
+            if(value != null) {
+                equalFields.add(field);
+                values.add(value);
+            }
+        }
+
+        String rangeColumn = null;
+        if(slice.getFrom() != null || slice.getTo() != null) {
+            if(slice.getColumn() != null) {
+                rangeColumn = resolveColumnName(c, slice.getColumn());
+            }
+            else {
+                for(Field field : clusteringFields) {
+                    if(!equalFields.contains(field)) {
+                        rangeColumn = getColumnName(field);
+                        break;
+                    }
+                }
+            }
+            boolean clustering = false;
+            for(Field field : clusteringFields) {
+                clustering = clustering || getColumnName(field).equals(rangeColumn);
+            }
+            if(!clustering) {
+                throw new DriverException(303,"Slice column "+(rangeColumn == null ? slice.getColumn() : rangeColumn)+" is not a clustering column of "+c.getAnnotation(Table.class).name());
+            }
+        }
+        if(slice.getFrom() != null) {
+            values.add(slice.getFrom());
+        }
+        if(slice.getTo() != null) {
+            values.add(slice.getTo());
+        }
+        Slice.Order order = ordered ? slice.getOrder() : null;
+        boolean limit = ordered && slice.getLimit() != null;
+        boolean perPartitionLimit = ordered && slice.getPerPartitionLimit() != null;
+        if(perPartitionLimit) {
+            values.add(slice.getPerPartitionLimit());
+        }
+        if(limit) {
+            values.add(slice.getLimit());
+        }
+        if(order != null && clusteringFields.isEmpty()) {
+            throw new DriverException(303,"Slice order requires a clustering column on "+c.getAnnotation(Table.class).name());
+        }
+
+        String from = slice.getFrom() == null ? "" : (slice.isFromInclusive() ? ">=" : ">");
+        String to = slice.getTo() == null ? "" : (slice.isToInclusive() ? "<=" : "<");
+        String range = rangeColumn;
+        String name = "slice:"+c.getName()+":"+selectionName+":"+Arrays.toString(getColumnNames(equalFields))+":"+range+from+to+":"+order+":"+limit+":"+perPartitionLimit;
+        PreparedStatement preparedStatement = getPreparedStatement(connectionKey, name, () -> {
+            Select select = selection.get();
+            for(Field field : equalFields) {
+                select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+            }
+            if(slice.getFrom() != null) {
+                select.where().and(slice.isFromInclusive() ? QueryBuilder.gte(range, QueryBuilder.bindMarker()) : QueryBuilder.gt(range, QueryBuilder.bindMarker()));
+            }
+            if(slice.getTo() != null) {
+                select.where().and(slice.isToInclusive() ? QueryBuilder.lte(range, QueryBuilder.bindMarker()) : QueryBuilder.lt(range, QueryBuilder.bindMarker()));
+            }
+            if(order != null) {
+                String firstClustering = getColumnName(clusteringFields.get(0));
+                select.orderBy(order == Slice.Order.DESC ? QueryBuilder.desc(firstClustering) : QueryBuilder.asc(firstClustering));
+            }
+            if(perPartitionLimit) {
+                select.perPartitionLimit(QueryBuilder.bindMarker());
+            }
+            if(limit) {
+                select.limit(QueryBuilder.bindMarker());
+            }
+            return select;
+        });
+        BoundStatement boundStatement = preparedStatement.bind(values.toArray());
+        boundStatement.setConsistencyLevel(getConsistencyLevelValue(c,"read"));
+        if(slice.getFetchSize() != null) {
+            boundStatement.setFetchSize(slice.getFetchSize());
+        }
+        return boundStatement;
+    }
+
+    /**
+     * Generate a select query using annotations and reflection
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return Select object
+     * @throws DriverException - Driver exception mapped to error code
+     */    
+    protected <T extends AbstractCassandraTable> Select generateSelectQuery(Class<T> c, T o) throws DriverException {
+        try {
+        	Select select = QueryBuilder.select().from(c.getAnnotation(Table.class).name());        
+	       	for(Field val : getMappedFields(c)) {
+	       		 if(val.getAnnotationsByType(com.datastax.driver.mapping.annotations.PartitionKey.class).length > 0) {	       			
+	       			if(o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o) != null) {
+	       				select.where().and(QueryBuilder.eq(val.getAnnotation(com.datastax.driver.mapping.annotations.Column.class).name(), o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o)));
+	       			}
+	       		 }
+	       		 if(val.getAnnotationsByType(com.datastax.driver.mapping.annotations.ClusteringColumn.class).length > 0) {	       			
+	       			if(o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o) != null) {
+	       				select.where().and(QueryBuilder.eq(val.getAnnotation(com.datastax.driver.mapping.annotations.Column.class).name(), o.getClass().getMethod("get"+StringUtils.capitalize(val.getName())).invoke(o)));
+	       			}
+	       		 }
+	         }
+        	return select;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get the fields declared by a class and its superclasses so models can inherit mapped columns from an abstract base
+     * @param c Class of object
+     * @return List of fields, those of the class first
+     */
+    static List<Field> getMappedFields(Class<?> c) {
+        List<Field> fields = new ArrayList<Field>();
+        for(Class<?> type = c; type != null && type != Object.class; type = type.getSuperclass()) {
+            fields.addAll(Arrays.asList(type.getDeclaredFields()));
+        }
+        return fields;
+    }
+
+    /**
+     * Get the primary key fields of a class ordered by partition key position then clustering column position
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return List of key fields
+     */
+    protected <T extends AbstractCassandraTable> List<Field> getKeyFields(Class<T> c) {
+        return keyFieldMap.computeIfAbsent(c, k -> {
+            List<Field> partitionKeys = new ArrayList<Field>();
+            List<Field> clusteringKeys = new ArrayList<Field>();
+            for(Field field : getMappedFields(k)) {
+                if(field.isAnnotationPresent(PartitionKey.class)) {
+                    partitionKeys.add(field);
+                }
+                if(field.isAnnotationPresent(ClusteringColumn.class)) {
+                    clusteringKeys.add(field);
+                }
+            }
+            partitionKeys.sort(Comparator.comparingInt(field -> field.getAnnotation(PartitionKey.class).value()));
+            clusteringKeys.sort(Comparator.comparingInt(field -> field.getAnnotation(ClusteringColumn.class).value()));
+            List<Field> keyFields = new ArrayList<Field>(partitionKeys);
+            keyFields.addAll(clusteringKeys);
+            return Collections.unmodifiableList(keyFields);
+        });
+    }
+
+    /**
+     * Get the partition key fields of a class ordered by position
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return List of partition key fields
+     */
+    protected <T extends AbstractCassandraTable> List<Field> getPartitionKeyFields(Class<T> c) {
+        List<Field> partitionKeys = new ArrayList<Field>();
+        for(Field field : getKeyFields(c)) {
+            if(field.isAnnotationPresent(PartitionKey.class)) {
+                partitionKeys.add(field);
+            }
+        }
+        return partitionKeys;
+    }
+
+    /**
+     * Get the clustering column fields of a class ordered by position
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return List of clustering column fields
+     */
+    protected <T extends AbstractCassandraTable> List<Field> getClusteringKeyFields(Class<T> c) {
+        List<Field> clusteringKeys = new ArrayList<Field>();
+        for(Field field : getKeyFields(c)) {
+            if(field.isAnnotationPresent(ClusteringColumn.class)) {
+                clusteringKeys.add(field);
+            }
+        }
+        return clusteringKeys;
+    }
+
+    /**
+     * Get the column name of a mapped field
+     * @param field mapped field
+     * @return Column name
+     */
+    private String getColumnName(Field field) {
+        if(field.isAnnotationPresent(Column.class)) {
+            return field.getAnnotation(Column.class).name();
+        }
+        return field.getName();
+    }
+
+    /**
+     * Get the column names of a list of mapped fields
+     * @param fields mapped fields
+     * @return Array of column names
+     */
+    private String[] getColumnNames(List<Field> fields) {
+        String[] columnNames = new String[fields.size()];
+        for(int i=0;i<fields.size();i++) {
+            columnNames[i] = getColumnName(fields.get(i));
+        }
+        return columnNames;
+    }
+
+    /**
+     * Resolve a field name or column name to the column name of a mapped field
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param name field name or column name
+     * @return Column name
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    protected <T extends AbstractCassandraTable> String resolveColumnName(Class<T> c, String name) throws DriverException {
+        for(Field field : getMappedFields(c)) {
+            if(field.getName().equals(name) || (field.isAnnotationPresent(Column.class) && getColumnName(field).equals(name))) {
+                return getColumnName(field);
+            }
+        }
+        throw new DriverException(303,"Unknown column "+name+" for "+c.getAnnotation(Table.class).name());
+    }
+
+    /**
+     * Get the value of a field through its get procedure
+     * @param <T> Domain Object for results
+     * @param o Populated object
+     * @param field field to read
+     * @return Value of field
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private <T extends AbstractCassandraTable> Object getFieldValue(T o, Field field) throws DriverException {
+        try {
+            return o.getClass().getMethod("get"+StringUtils.capitalize(field.getName())).invoke(o);
+        }
+        catch (Exception e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+    }
+
+    /**
+     * Get the values of a list of fields through their get procedures
+     * @param <T> Domain Object for results
+     * @param o Populated object
+     * @param fields fields to read
+     * @return List of values in the same order as fields
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    protected <T extends AbstractCassandraTable> List<Object> getFieldValues(T o, List<Field> fields) throws DriverException {
+        List<Object> values = new ArrayList<Object>(fields.size());
+        for(Field field : fields) {
+            values.add(getFieldValue(o, field));
+        }
+        return values;
+    }
+
+    /**
+     * Get a prepared statement for the connection key or prepare it if missing
+     * @param connectionKey connection key to prepare against
+     * @param name unique name of the statement shape
+     * @param statement supplier of the statement to prepare, only called when missing
+     * @return Prepared statement
+     */
+    private PreparedStatement getPreparedStatement(String connectionKey, String name, Supplier<RegularStatement> statement) {
+        return preparedStatementMap.computeIfAbsent(connectionKey+":"+name, k -> {
+            RegularStatement regularStatement = statement.get();
+            logger.debug("Preparing "+regularStatement.getQueryString()+" on "+connectionKey);
+            return this.getSession(connectionKey).prepare(regularStatement);
+        });
+    }
+
+    /**
+     * Execute statements asynchronously with at most the configured bulk parallelism in flight
+     * @param connectionKey connection key to execute against
+     * @param statements statements to execute
+     * @return List of results in the same order as statements
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private List<ResultSet> executeParallel(String connectionKey, List<? extends Statement> statements) throws DriverException {
+        return executeParallel(connectionKey, statements, config.bulk.parallelism, null);
+    }
+
+    /**
+     * Execute statements asynchronously with at most the given number in flight
+     * @param connectionKey connection key to execute against
+     * @param statements statements to execute
+     * @param parallelism max number of statements in flight
+     * @param rateLimiter optional rate limiter acquired before each statement
+     * @return List of results in the same order as statements
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private List<ResultSet> executeParallel(String connectionKey, List<? extends Statement> statements, int parallelism, RateLimiter rateLimiter) throws DriverException {
+        Session session = this.getSession(connectionKey);
+        Semaphore permits = new Semaphore(parallelism);
+        List<ResultSetFuture> futures = new ArrayList<ResultSetFuture>(statements.size());
+        for(Statement statement : statements) {
+            permits.acquireUninterruptibly();
+            if(rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            ResultSetFuture future = session.executeAsync(statement);
+            future.addListener(permits::release, MoreExecutors.directExecutor());
+            futures.add(future);
+        }
+        List<ResultSet> results = new ArrayList<ResultSet>(futures.size());
+        for(ResultSetFuture future : futures) {
+            results.add(future.getUninterruptibly());
+        }
+        return results;
+    }
+
+    /**
+     * Get an object by supplying a solr query
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
+     * @param limit limit the number of results
+     * @return List of Objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<T> getAllBySolr(Class<T> c, String solrQueryString, int limit) throws DriverException {
+        if(!config.features.solr) {
+        	throw new DriverException(401,"Solr is disabled");
+        }    	
+    	logger.debug("Getting All from "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with solar_query "+solrQueryString+" from "+getConnectionKey("solar"));
+        try {
+        	Select select = QueryBuilder.select().from(c.getAnnotation(Table.class).name()); 
+        	select.where().and(QueryBuilder.eq("solr_query", solrQueryString)).limit(limit);
+	       	logger.debug("Running Query: "+select.getQueryString());
+        	return this.getMapper(c).map(this.getSession(config.defaults.solrDC).execute(select)).all();
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+
+    /**
+     * Get an object by supplying a solr query. Defaults to limit of 10
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
+     * @return List of Objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<T> getAllBySolr(Class<T> c, String solrQueryString) throws DriverException {
+    	return getAllBySolr(c,solrQueryString,10);
+    }
+
+    /**
+     * Get count for solr query
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param solrQueryString string representing the solr query (See https://docs.datastax.com/en/dse/5.1/dse-dev/datastax_enterprise/search/siQuerySyntax.html#siQuerySyntax)
+     * @return count of results
+     * @throws DriverException - Driver exception mapped to error code
+     */    
+    public <T extends AbstractCassandraTable> Long getCountBySolr(Class<T> c, String solrQueryString) throws DriverException {
+    	if(!config.features.solr) {
+        	throw new DriverException(401,"Solr is disabled");
+        }         
+        logger.debug("Getting All from "+c.getAnnotation(Table.class).keyspace()+".”+c.getAnnotation(Table.class).name()+” with solar_query "+solrQueryString+" from "+getConnectionKey("solar"));
+        try {
+            Select select = QueryBuilder.select().countAll().from(c.getAnnotation(Table.class).name());
+            select.where().and(QueryBuilder.eq("solr_query", solrQueryString));
+                logger.debug("Running Query: "+select.getQueryString());
+                ResultSet result = this.getSession(config.defaults.solrDC).execute(select);
+                if(result != null) {
+                    List<Row> rowList = result.all();
+                    if(rowList != null && rowList.size()>0) {
+                        return new Long(rowList.get(0).getLong(0));
+                    }
+                    else {
+                        return new Long(0);
+                    }
+                }
+                else {
+                    return new Long(0);
+                }
+        }
+         catch (Exception e) {
+             DriverException driverException = new DriverException(e);
+             throw driverException;
+         }
+    }
+    
+    /**
+     * Count all rows of a table exactly by counting each token range in parallel and summing the results. Parallelism, splits, and throttling are set by the scan configuration
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return count of rows
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> long countAll(Class<T> c) throws DriverException {
+        logger.debug("Counting all of "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" from "+getConnectionKey(c));
+        try {
+            String connectionKey = getConnectionKey(c);
+            String table = c.getAnnotation(Table.class).name();
+            List<TokenRange> ranges = getScanRanges(connectionKey);
+            List<Statement> statements = new ArrayList<Statement>(ranges.size());
+            for(TokenRange range : ranges) {
+                statements.add(buildTokenRangeStatement(c, connectionKey, "countRange", () -> QueryBuilder.select().countAll().from(table), range));
+            }
+            long count = 0;
+            for(ResultSet result : executeParallel(connectionKey, statements, config.scan.parallelism, getScanRateLimiter())) {
+                count += result.one().getLong(0);
+            }
+            logger.debug("Counted "+count+" rows in "+ranges.size()+" token ranges of "+table);
+            return count;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get all rows of a table by reading each token range in parallel. Parallelism, splits, and throttling are set by the scan configuration
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return List of objects in token order
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<T> getAll(Class<T> c) throws DriverException {
+        logger.debug("Getting all of "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" from "+getConnectionKey(c));
+        try {
+            Mapper<T> mapper = this.getMapper(c);
+            List<T> objects = new ArrayList<T>();
+            for(ResultSet result : scanTokenRanges(c, getScanRanges(c))) {
+                objects.addAll(mapper.map(result).all());
+            }
+            return objects;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get the token ranges used to scan a table
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return List of non wrapping token ranges covering the ring
+     */
+    <T extends AbstractCassandraTable> List<TokenRange> getScanRanges(Class<T> c) {
+        return getScanRanges(getConnectionKey(c));
+    }
+
+    /**
+     * Read every row of the given token ranges in parallel. Result sets fetch further pages as they are iterated, unless the scan
+     * is throttled in which case every page is fetched before returning so each fetch goes through the rate limiter
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param ranges non wrapping token ranges
+     * @return List of result sets in the same order as ranges
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    <T extends AbstractCassandraTable> List<ResultSet> scanTokenRanges(Class<T> c, List<TokenRange> ranges) throws DriverException {
+        String connectionKey = getConnectionKey(c);
+        String table = c.getAnnotation(Table.class).name();
+        List<Statement> statements = new ArrayList<Statement>(ranges.size());
+        for(TokenRange range : ranges) {
+            Statement statement = buildTokenRangeStatement(c, connectionKey, "allRange", () -> QueryBuilder.select().all().from(table), range);
+            statement.setFetchSize(config.scan.fetchSize);
+            statements.add(statement);
+        }
+        RateLimiter rateLimiter = getScanRateLimiter();
+        List<ResultSet> results = executeParallel(connectionKey, statements, config.scan.parallelism, rateLimiter);
+        if(rateLimiter != null) {
+            for(ResultSet result : results) {
+                while(!result.isFullyFetched()) {
+                    rateLimiter.acquire();
+                    Futures.getUnchecked(result.fetchMoreResults());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Estimate the number of partitions of a table using the configured sample ratio
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return Estimate with error bound
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> CountEstimate estimateCount(Class<T> c) throws DriverException {
+        return estimateCount(c, config.scan.sampleRatio);
+    }
+
+    /**
+     * Estimate the number of partitions of a table. A random sample of token ranges is scanned for distinct partition keys which are counted with a HyperLogLog and scaled by the sampled fraction of the ring.
+     * The error combines the HyperLogLog error with the sampling error across ranges. The system.size_estimates figure of the coordinator is reported alongside and used when sampling is not possible.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param sampleRatio fraction of token ranges to scan greater than 0 and at most 1
+     * @return Estimate with error bound
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> CountEstimate estimateCount(Class<T> c, double sampleRatio) throws DriverException {
+        logger.debug("Estimating count of "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with sample ratio "+sampleRatio+" from "+getConnectionKey(c));
+        if(sampleRatio <= 0 || sampleRatio > 1) {
+            throw new DriverException(401,"Sample ratio must be greater than 0 and at most 1");
+        }
+        try {
+            String connectionKey = getConnectionKey(c);
+            String table = c.getAnnotation(Table.class).name();
+            long sizeEstimate = getSizeEstimate(c, connectionKey);
+
+            List<TokenRange> ranges = getScanRanges(connectionKey);
+            if(ranges.isEmpty()) {
+                return new CountEstimate(sizeEstimate, Double.NaN, -1, sizeEstimate, 0);
+            }
+            List<TokenRange> sample = new ArrayList<TokenRange>(ranges);
+            Collections.shuffle(sample);
+            sample = sample.subList(0, Math.max(1, (int) Math.ceil(ranges.size() * sampleRatio)));
+
+            String[] partitionKeys = getColumnNames(getPartitionKeyFields(c));
+            List<Statement> statements = new ArrayList<Statement>(sample.size());
+            for(TokenRange range : sample) {
+                Statement statement = buildTokenRangeStatement(c, connectionKey, "distinctRange", () -> QueryBuilder.select(partitionKeys).distinct().from(table), range);
+                statement.setFetchSize(config.scan.fetchSize);
+                statements.add(statement);
+            }
+
+            HyperLogLog hyperLogLog = new HyperLogLog(14);
+            double[] counts = new double[sample.size()];
+            double[] widths = new double[sample.size()];
+            RateLimiter rateLimiter = getScanRateLimiter();
+            List<ResultSet> results = executeParallel(connectionKey, statements, config.scan.parallelism, rateLimiter);
+            for(int i=0;i<results.size();i++) {
+                for(Row row : scanRows(results.get(i), rateLimiter)) {
+                    hyperLogLog.offer(getPartitionKeyBytes(row, partitionKeys.length));
+                    counts[i]++;
+                }
+                widths[i] = getRingFraction(sample.get(i));
+                if(Double.isNaN(widths[i])) {
+                    widths[i] = 1.0 / ranges.size();
+                }
+            }
+
+            double sampledFraction = 0;
+            double sampledCount = 0;
+            for(int i=0;i<sample.size();i++) {
+                sampledFraction += widths[i];
+                sampledCount += counts[i];
+            }
+            long sampledEstimate = Math.round(hyperLogLog.cardinality() / sampledFraction);
+
+            //Ratio estimator error of partitions per unit of ring across the sampled ranges
+            double samplingError = 0;
+            int n = sample.size();
+            if(n > 1 && n < ranges.size() && sampledCount > 0) {
+                double ratio = sampledCount / sampledFraction;
+                double residuals = 0;
+                for(int i=0;i<n;i++) {
+                    residuals += Math.pow(counts[i] - ratio * widths[i], 2);
+                }
+                double meanWidth = sampledFraction / n;
+                double variance = (1 - (double) n / ranges.size()) * (residuals / (n - 1)) / (n * meanWidth * meanWidth);
+                samplingError = Math.sqrt(variance) / ratio;
+            }
+            else if(n < ranges.size()) {
+                samplingError = Double.NaN;
+            }
+            double relativeError = Math.sqrt(Math.pow(hyperLogLog.relativeError(), 2) + Math.pow(samplingError, 2));
+
+            CountEstimate estimate = new CountEstimate(sampledEstimate, relativeError, sampledEstimate, sizeEstimate, Math.min(1, sampledFraction));
+            logger.debug("Estimated "+table+" partitions as "+estimate);
+            return estimate;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get the token ranges of the cluster unwrapped and split according to the scan configuration
+     * @param connectionKey connection key of the cluster
+     * @return List of non wrapping token ranges covering the ring
+     */
+    private List<TokenRange> getScanRanges(String connectionKey) {
+        this.getSession(connectionKey);
+        List<TokenRange> ranges = new ArrayList<TokenRange>();
+        for(TokenRange range : getCluster(connectionKey).getMetadata().getTokenRanges()) {
+            for(TokenRange split : (config.scan.splitsPerRange > 1 ? range.splitEvenly(config.scan.splitsPerRange) : Collections.singletonList(range))) {
+                ranges.addAll(split.unwrap());
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Build a bound statement restricted to a token range of the partition key. Ranges ending at the minimum token are treated as open ended
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param connectionKey connection key to prepare against
+     * @param name unique name of the selection for the prepared statement cache
+     * @param selection supplier of the select statement without a where clause
+     * @param range non wrapping token range
+     * @return Bound statement
+     */
+    private <T extends AbstractCassandraTable> BoundStatement buildTokenRangeStatement(Class<T> c, String connectionKey, String name, Supplier<Select> selection, TokenRange range) {
+        String[] partitionKeys = getColumnNames(getPartitionKeyFields(c));
+        boolean open = range.getEnd().compareTo(range.getStart()) <= 0;
+        PreparedStatement preparedStatement = getPreparedStatement(connectionKey, name+":"+c.getName()+":"+open, () -> {
+            Select select = selection.get();
+            select.where().and(QueryBuilder.gt(QueryBuilder.token(partitionKeys), QueryBuilder.bindMarker()));
+            if(!open) {
+                select.where().and(QueryBuilder.lte(QueryBuilder.token(partitionKeys), QueryBuilder.bindMarker()));
+            }
+            return select;
+        });
+        BoundStatement boundStatement = preparedStatement.bind().setToken(0, range.getStart());
+        if(!open) {
+            boundStatement.setToken(1, range.getEnd());
+        }
+        boundStatement.setConsistencyLevel(getConsistencyLevelValue(c,"read"));
+        boundStatement.setReadTimeoutMillis(config.scan.readTimeout);
+        return boundStatement;
+    }
+
+    /**
+     * Get the rate limiter for table scans
+     * @return Rate limiter or null if unthrottled
+     */
+    private RateLimiter getScanRateLimiter() {
+        return config.scan.maxRequestsPerSecond > 0 ? RateLimiter.create(config.scan.maxRequestsPerSecond) : null;
+    }
+
+    /**
+     * Iterate the rows of a scan result, acquiring the rate limiter before each further page is fetched
+     * @param result first page of a scan query
+     * @param rateLimiter rate limiter of the scan or null if unthrottled
+     * @return rows of every page
+     */
+    private Iterable<Row> scanRows(ResultSet result, RateLimiter rateLimiter) {
+        if(rateLimiter == null) {
+            return result;
+        }
+        return () -> new Iterator<Row>() {
+            @Override
+            public boolean hasNext() {
+                if(result.getAvailableWithoutFetching() == 0 && !result.isFullyFetched()) {
+                    rateLimiter.acquire();
+                }
+                return !result.isExhausted();
+            }
+
+            @Override
+            public Row next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return result.one();
+            }
+        };
+    }
+
+    /**
+     * Get the fraction of the ring covered by a non wrapping range of 64 bit tokens
+     * @param range token range
+     * @return fraction of the ring or NaN if the partitioner does not use 64 bit tokens
+     */
+    private double getRingFraction(TokenRange range) {
+        if(!(range.getStart().getValue() instanceof Long)) {
+            return Double.NaN;
+        }
+        return getRingFraction((Long) range.getStart().getValue(), (Long) range.getEnd().getValue());
+    }
+
+    /**
+     * Get the fraction of the ring covered by a range of 64 bit tokens
+     * @param start exclusive start token
+     * @param end inclusive end token
+     * @return fraction of the ring
+     */
+    private double getRingFraction(long start, long end) {
+        BigInteger ring = BigInteger.ONE.shiftLeft(64);
+        BigInteger width = BigInteger.valueOf(end).subtract(BigInteger.valueOf(start)).mod(ring);
+        if(width.signum() == 0) {
+            return 1;
+        }
+        return width.doubleValue() / ring.doubleValue();
+    }
+
+    /**
+     * Serialize the partition key columns of a row for hashing. Composite keys are length prefixed
+     * @param row row containing the partition key columns first
+     * @param columns number of partition key columns
+     * @return serialized partition key
+     */
+    private ByteBuffer getPartitionKeyBytes(Row row, int columns) {
+        ByteBuffer[] parts = new ByteBuffer[columns];
+        for(int i=0;i<columns;i++) {
+            parts[i] = row.getBytesUnsafe(i);
+        }
+        return composePartitionKey(parts);
+    }
+
+    /**
+     * Serialize the partition key of an object the same way as a row read from the table
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return serialized partition key or null if any partition key is not populated
+     */
+    private <T extends AbstractCassandraTable> ByteBuffer getPartitionKeyBytes(Class<T> c, T o) {
+        String connectionKey = getConnectionKey(c);
+        Session session = this.getSession(connectionKey);
+        Cluster cluster = getCluster(connectionKey);
+        String keyspace = c.getAnnotation(Table.class).keyspace().isEmpty() ? session.getLoggedKeyspace() : c.getAnnotation(Table.class).keyspace();
+        List<ColumnMetadata> columns = cluster.getMetadata().getKeyspace(keyspace).getTable(c.getAnnotation(Table.class).name()).getPartitionKey();
+        List<Object> values = getFieldValues(o, getPartitionKeyFields(c));
+        ProtocolVersion protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+        CodecRegistry codecRegistry = cluster.getConfiguration().getCodecRegistry();
+        ByteBuffer[] parts = new ByteBuffer[values.size()];
+        for(int i=0;i<parts.length;i++) {
+            Object value = values.get(i);
+            if(value == null) {
+                return null;
+            }
+            parts[i] = codecRegistry.codecFor(columns.get(i).getType(), value).serialize(value, protocolVersion);
+        }
+        return composePartitionKey(parts);
+    }
+
+    /**
+     * Combine serialized partition key columns. Composite keys are length prefixed
+     * @param parts serialized columns in partition key order
+     * @return serialized partition key
+     */
+    private static ByteBuffer composePartitionKey(ByteBuffer[] parts) {
+        if(parts.length == 1) {
+            return parts[0];
+        }
+        int size = 0;
+        for(ByteBuffer bytes : parts) {
+            size += 4 + (bytes == null ? 0 : bytes.remaining());
+        }
+        ByteBuffer key = ByteBuffer.allocate(size);
+        for(ByteBuffer bytes : parts) {
+            key.putInt(bytes == null ? -1 : bytes.remaining());
+            if(bytes != null) {
+                key.put(bytes.duplicate());
+            }
+        }
+        key.flip();
+        return key;
+    }
+
+    /**
+     * Estimate the partition count of a table from system.size_estimates of the coordinator scaled by the fraction of the ring it covers
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param connectionKey connection key to query
+     * @return partition count estimate or -1 if unavailable
+     */
+    private <T extends AbstractCassandraTable> long getSizeEstimate(Class<T> c, String connectionKey) {
+        String keyspace = c.getAnnotation(Table.class).keyspace().isEmpty() ? config.keyspace : c.getAnnotation(Table.class).keyspace();
+        try {
+            PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "sizeEstimates", () ->
+                QueryBuilder.select("range_start","range_end","partitions_count").from("system","size_estimates")
+                    .where(QueryBuilder.eq("keyspace_name", QueryBuilder.bindMarker()))
+                    .and(QueryBuilder.eq("table_name", QueryBuilder.bindMarker()))
+            );
+            double fraction = 0;
+            long partitions = 0;
+            for(Row row : this.getSession(connectionKey).execute(preparedStatement.bind(keyspace.toLowerCase(), c.getAnnotation(Table.class).name()))) {
+                fraction += getRingFraction(Long.parseLong(row.getString("range_start")), Long.parseLong(row.getString("range_end")));
+                partitions += row.getLong("partitions_count");
+            }
+            return fraction > 0 ? Math.round(partitions / fraction) : -1;
+        }
+        catch (Exception e) {
+            logger.debug("Size estimates unavailable for "+keyspace+"."+c.getAnnotation(Table.class).name(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Build the ID string to pass to mapper function including any options
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Populated object
+     * @param type read/write
+     * @return Object array to pass to mapper function
+     */
+    private <T extends AbstractCassandraTable> Object[] buildID(Class<T> c, T o,String type)  {
+        Object[] id = new Object[o.getID().length+1];
+        System.arraycopy(o.getID(),0,id,0,o.getID().length);
+        id[o.getID().length] = getConsistencyLevel(c,type);
+        return id;
+    }
+
+    /**
+     * Check if an  object exists by passing an instance of the given object with the key populated. All other fields are ignored
+     * Only the partition key is selected so regular, blob, and collection columns are never read.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return True if exists, false if not
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> boolean existsById(Class<T> c, T o) throws DriverException {
+        logger.debug("Checking for existing "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" in "+getConnectionKey(c));        
+        try {
+            String connectionKey = getConnectionKey(c);
+            DriverNearCache<T> nearCache = getNearCache(c);
+            if(nearCache == null) {
+                return !isKeyAbsent(c, o) && coalesce(c, "existsById", getFieldValues(o, getKeyFields(c)), () -> hedge(c, dataCenter -> this.getSession(dataCenter).executeAsync(buildExistsStatement(c, o, dataCenter, getConsistencyLevelValue(c,"read")))).one() != null, UnaryOperator.identity());
+            }
+            CacheKey key = getNearCacheKey(c, o);
+            CacheEntry<CacheKey,T> entry = nearCache.getEntry(key);
+            if(entry != null) {
+                return entry.getValue() != null;
+            }
+            long generation = nearCache.generation();
+            boolean exists = !isKeyAbsent(c, o) && coalesce(c, "existsById", getFieldValues(o, getKeyFields(c)), () -> hedge(c, dataCenter -> this.getSession(dataCenter).executeAsync(buildExistsStatement(c, o, dataCenter, getConsistencyLevelValue(c,"read")))).one() != null, UnaryOperator.identity());
+            if(!exists) {
+                //Only absence is known without reading the row
+                nearCache.put(key, null, generation);
+            }
+            return exists;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Check if a list of objects exist by passing instances of the given object with the keys populated. All other fields are ignored
+     * Keys are grouped by all but the last primary key column and each group is checked with a single IN query. Groups are queried in parallel up to the configured bulk parallelism.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of objects containing keys populated
+     * @return BitSet where bit i is set if the object at index i exists
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> BitSet existsByIds(Class<T> c, List<T> os) throws DriverException {
+        logger.debug("Checking for "+os.size()+" existing "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" in "+getConnectionKey(c));
+        BitSet exists = new BitSet(os.size());
+        if(os.isEmpty()) {
+            return exists;
+        }
+        try {
+            String connectionKey = getConnectionKey(c);
+            ConsistencyLevel consistencyLevel = getConsistencyLevelValue(c,"read");
+            List<Field> keyFields = getKeyFields(c);
+
+            if(getClusteringKeyFields(c).isEmpty()) {
+                //No clustering columns so each partition is checked on its own token-aware statement
+                List<Statement> statements = new ArrayList<Statement>();
+                for(T o : os) {
+                    statements.add(buildExistsStatement(c, o, connectionKey, consistencyLevel));
+                }
+                List<ResultSet> results = executeParallel(connectionKey, statements);
+                for(int i=0;i<results.size();i++) {
+                    if(results.get(i).one() != null) {
+                        exists.set(i);
+                    }
+                }
+                return exists;
+            }
+
+            //Group by all key values except the last clustering column which is passed as an IN list
+            Field lastField = keyFields.get(keyFields.size()-1);
+            List<Field> prefixFields = keyFields.subList(0, keyFields.size()-1);
+            Map<List<Object>,Map<Object,List<Integer>>> groups = new LinkedHashMap<List<Object>,Map<Object,List<Integer>>>();
+            for(int i=0;i<os.size();i++) {
+                List<Object> prefix = getFieldValues(os.get(i), prefixFields);
+                Object last = getFieldValue(os.get(i), lastField);
+                groups.computeIfAbsent(prefix, k -> new LinkedHashMap<Object,List<Integer>>()).computeIfAbsent(last, k -> new ArrayList<Integer>()).add(i);
+            }
+
+            PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "existsIn:"+c.getName(), () -> {
+                Select select = QueryBuilder.select(getColumnName(lastField)).from(c.getAnnotation(Table.class).name());
+                for(Field field : prefixFields) {
+                    select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+                }
+                select.where().and(QueryBuilder.in(getColumnName(lastField), QueryBuilder.bindMarker()));
+                return select;
+            });
+
+            List<Statement> statements = new ArrayList<Statement>();
+            List<Map<Object,List<Integer>>> statementGroups = new ArrayList<Map<Object,List<Integer>>>();
+            for(Map.Entry<List<Object>,Map<Object,List<Integer>>> group : groups.entrySet()) {
+                List<Object> lastValues = new ArrayList<Object>(group.getValue().keySet());
+                for(int start=0;start<lastValues.size();start+=config.bulk.groupSize) {
+                    List<Object> chunk = lastValues.subList(start, Math.min(start+config.bulk.groupSize, lastValues.size()));
+                    Object[] values = new Object[prefixFields.size()+1];
+                    group.getKey().toArray(values);
+                    values[prefixFields.size()] = new ArrayList<Object>(chunk);
+                    BoundStatement boundStatement = preparedStatement.bind(values);
+                    boundStatement.setConsistencyLevel(consistencyLevel);
+                    statements.add(boundStatement);
+                    statementGroups.add(group.getValue());
+                }
+            }
+
+            List<ResultSet> results = executeParallel(connectionKey, statements);
+            for(int i=0;i<results.size();i++) {
+                for(Row row : results.get(i)) {
+                    List<Integer> indexes = statementGroups.get(i).get(row.getObject(0));
+                    if(indexes != null) {
+                        for(Integer index : indexes) {
+                            exists.set(index);
+                        }
+                    }
+                }
+            }
+            return exists;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get a list of objects by passing instances of the given object with the keys populated. All other fields are ignored
+     * Tables without clustering columns are read with one token aware statement per key. Otherwise keys are grouped by all but the last primary key column and each group is read with a single IN query. Statements run in parallel up to the configured bulk parallelism.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of objects containing keys populated
+     * @return List where element i is the object for the key at index i or null if it does not exist
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<T> getByIds(Class<T> c, List<T> os) throws DriverException {
+        logger.debug("Getting "+os.size()+" "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" by ids from "+getConnectionKey(c));
+        DriverNearCache<T> nearCache = getNearCache(c);
+        if(nearCache == null) {
+            return readByIds(c, os);
+        }
+        List<T> found = new ArrayList<T>(Collections.<T>nCopies(os.size(), null));
+        List<Integer> missing = new ArrayList<Integer>();
+        List<CacheKey> missingKeys = new ArrayList<CacheKey>();
+        List<T> missingObjects = new ArrayList<T>();
+        long generation = nearCache.generation();
+        for(int i=0;i<os.size();i++) {
+            CacheKey key = getNearCacheKey(c, os.get(i));
+            CacheEntry<CacheKey,T> entry = nearCache.getEntry(key);
+            if(entry != null) {
+                found.set(i, nearCache.copy(entry.getValue()));
+            }
+            else {
+                missing.add(i);
+                missingKeys.add(key);
+                missingObjects.add(os.get(i));
+            }
+        }
+        if(!missing.isEmpty()) {
+            List<T> loaded = readByIds(c, missingObjects);
+            for(int i=0;i<missing.size();i++) {
+                found.set(missing.get(i), loaded.get(i));
+                nearCache.put(missingKeys.get(i), loaded.get(i), generation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read a list of objects from the database, skipping keys the key filter reports as absent, see getByIds
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of objects containing keys populated
+     * @return List where element i is the object for the key at index i or null if it does not exist
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private <T extends AbstractCassandraTable> List<T> readByIds(Class<T> c, List<T> os) throws DriverException {
+        if(getKeyFilter(c) == null) {
+            return queryByIds(c, os);
+        }
+        List<Integer> candidates = new ArrayList<Integer>();
+        List<T> candidateObjects = new ArrayList<T>();
+        for(int i=0;i<os.size();i++) {
+            if(!isKeyAbsent(c, os.get(i))) {
+                candidates.add(i);
+                candidateObjects.add(os.get(i));
+            }
+        }
+        if(candidates.size() == os.size()) {
+            return queryByIds(c, os);
+        }
+        List<T> found = new ArrayList<T>(Collections.<T>nCopies(os.size(), null));
+        List<T> loaded = queryByIds(c, candidateObjects);
+        for(int i=0;i<candidates.size();i++) {
+            found.set(candidates.get(i), loaded.get(i));
+        }
+        return found;
+    }
+
+    /**
+     * Query a list of objects from the database, see getByIds
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of objects containing keys populated
+     * @return List where element i is the object for the key at index i or null if it does not exist
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    private <T extends AbstractCassandraTable> List<T> queryByIds(Class<T> c, List<T> os) throws DriverException {
+        List<T> found = new ArrayList<T>(Collections.<T>nCopies(os.size(), null));
+        if(os.isEmpty()) {
+            return found;
+        }
+        try {
+            String connectionKey = getConnectionKey(c);
+            ConsistencyLevel consistencyLevel = getConsistencyLevelValue(c,"read");
+            List<Field> keyFields = getKeyFields(c);
+            Mapper<T> mapper = this.getMapper(c);
+
+            if(getClusteringKeyFields(c).isEmpty()) {
+                PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "selectById:"+c.getName(), () -> {
+                    Select select = QueryBuilder.select().all().from(c.getAnnotation(Table.class).name());
+                    for(Field field : keyFields) {
+                        select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+                    }
+                    return select;
+                });
+                List<Statement> statements = new ArrayList<Statement>();
+                for(T o : os) {
+                    BoundStatement boundStatement = preparedStatement.bind(getFieldValues(o, keyFields).toArray());
+                    boundStatement.setConsistencyLevel(consistencyLevel);
+                    statements.add(boundStatement);
+                }
+                List<ResultSet> results = executeParallel(connectionKey, statements);
+                for(int i=0;i<results.size();i++) {
+                    found.set(i, mapper.map(results.get(i)).one());
+                }
+                return found;
+            }
+
+            //Group by all key values except the last clustering column which is passed as an IN list
+            Field lastField = keyFields.get(keyFields.size()-1);
+            List<Field> prefixFields = keyFields.subList(0, keyFields.size()-1);
+            Map<List<Object>,Map<Object,List<Integer>>> groups = new LinkedHashMap<List<Object>,Map<Object,List<Integer>>>();
+            for(int i=0;i<os.size();i++) {
+                List<Object> prefix = getFieldValues(os.get(i), prefixFields);
+                Object last = getFieldValue(os.get(i), lastField);
+                groups.computeIfAbsent(prefix, k -> new LinkedHashMap<Object,List<Integer>>()).computeIfAbsent(last, k -> new ArrayList<Integer>()).add(i);
+            }
+
+            PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "selectIn:"+c.getName(), () -> {
+                Select select = QueryBuilder.select().all().from(c.getAnnotation(Table.class).name());
+                for(Field field : prefixFields) {
+                    select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+                }
+                select.where().and(QueryBuilder.in(getColumnName(lastField), QueryBuilder.bindMarker()));
+                return select;
+            });
+
+            List<Statement> statements = new ArrayList<Statement>();
+            List<Map<Object,List<Integer>>> statementGroups = new ArrayList<Map<Object,List<Integer>>>();
+            for(Map.Entry<List<Object>,Map<Object,List<Integer>>> group : groups.entrySet()) {
+                List<Object> lastValues = new ArrayList<Object>(group.getValue().keySet());
+                for(int start=0;start<lastValues.size();start+=config.bulk.groupSize) {
+                    List<Object> chunk = lastValues.subList(start, Math.min(start+config.bulk.groupSize, lastValues.size()));
+                    Object[] values = new Object[prefixFields.size()+1];
+                    group.getKey().toArray(values);
+                    values[prefixFields.size()] = new ArrayList<Object>(chunk);
+                    BoundStatement boundStatement = preparedStatement.bind(values);
+                    boundStatement.setConsistencyLevel(consistencyLevel);
+                    statements.add(boundStatement);
+                    statementGroups.add(group.getValue());
+                }
+            }
+
+            List<ResultSet> results = executeParallel(connectionKey, statements);
+            for(int i=0;i<results.size();i++) {
+                for(T row : mapper.map(results.get(i))) {
+                    List<Integer> indexes = statementGroups.get(i).get(getFieldValue(row, lastField));
+                    if(indexes != null) {
+                        for(Integer index : indexes) {
+                            found.set(index, row);
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Get an object along with the remaining TTL and write time of one of its columns by passing an instance of the given object with the keys populated. All other fields are ignored
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @param column field or column name of a regular column
+     * @return Object with its TTL and write time or null if it does not exist
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> TimedRow<T> getTimedById(Class<T> c, T o, String column) throws DriverException {
+        return getTimedByIds(c, Collections.singletonList(o), column).get(0);
+    }
+
+    /**
+     * Get a list of objects along with the remaining TTL and write time of one of their columns by passing instances of the given object with the keys populated. All other fields are ignored
+     * Each key is read with one token aware statement and statements run in parallel up to the configured bulk parallelism.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of objects containing keys populated
+     * @param column field or column name of a regular column
+     * @return List where element i is the object for the key at index i with its TTL and write time or null if it does not exist
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> List<TimedRow<T>> getTimedByIds(Class<T> c, List<T> os, String column) throws DriverException {
+        logger.debug("Getting "+os.size()+" "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with ttl of "+column+" by ids from "+getConnectionKey(c));
+        try {
+            String connectionKey = getConnectionKey(c);
+            ConsistencyLevel consistencyLevel = getConsistencyLevelValue(c,"read");
+            List<Field> keyFields = getKeyFields(c);
+            String columnName = resolveColumnName(c, column);
+            Mapper<T> mapper = this.getMapper(c);
+
+            PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "selectTimed:"+c.getName()+":"+columnName, () -> {
+                Select.Selection selection = QueryBuilder.select();
+                for(Field field : getMappedFields(c)) {
+                    if(!Modifier.isStatic(field.getModifiers()) && !field.isAnnotationPresent(Transient.class)) {
+                        selection.column(getColumnName(field));
+                    }
+                }
+                Select select = selection.ttl(columnName).writeTime(columnName).from(c.getAnnotation(Table.class).name());
+                for(Field field : keyFields) {
+                    select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+                }
+                return select;
+            });
+            List<Statement> statements = new ArrayList<Statement>();
+            for(T o : os) {
+                BoundStatement boundStatement = preparedStatement.bind(getFieldValues(o, keyFields).toArray());
+                boundStatement.setConsistencyLevel(consistencyLevel);
+                statements.add(boundStatement);
+            }
+            List<ResultSet> results = executeParallel(connectionKey, statements);
+            long readAt = System.currentTimeMillis();
+            List<TimedRow<T>> found = new ArrayList<TimedRow<T>>(results.size());
+            for(ResultSet result : results) {
+                Row row = result.one();
+                if(row == null) {
+                    found.add(null);
+                    continue;
+                }
+                int ttlIndex = row.getColumnDefinitions().size()-2;
+                Integer ttl = row.isNull(ttlIndex) ? null : row.getInt(ttlIndex);
+                Long writeTime = row.isNull(ttlIndex+1) ? null : row.getLong(ttlIndex+1);
+                found.add(new TimedRow<T>(mapper.map(new RowResultSet(result, row)).one(), ttl, writeTime, readAt));
+            }
+            return found;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Build a bound key only existence statement for a single object
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @param connectionKey connection key to prepare against
+     * @param consistencyLevel consistency level for the statement
+     * @return Bound statement
+     */
+    private <T extends AbstractCassandraTable> BoundStatement buildExistsStatement(Class<T> c, T o, String connectionKey, ConsistencyLevel consistencyLevel) {
+        List<Field> keyFields = getKeyFields(c);
+        PreparedStatement preparedStatement = getPreparedStatement(connectionKey, "exists:"+c.getName(), () -> {
+            Select select = QueryBuilder.select(getColumnNames(getPartitionKeyFields(c))).from(c.getAnnotation(Table.class).name());
+            for(Field field : keyFields) {
+                select.where().and(QueryBuilder.eq(getColumnName(field), QueryBuilder.bindMarker()));
+            }
+            return select.limit(1);
+        });
+        BoundStatement boundStatement = preparedStatement.bind(getFieldValues(o, keyFields).toArray());
+        boundStatement.setConsistencyLevel(consistencyLevel);
+        return boundStatement;
+    }
+
+    /**
+     * Delete an object by passing an instance of the given object with the key populated. All other fields are ignored
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> void delete(Class<T> c, T o) throws DriverException {
+        logger.debug("Deleting "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with values "+o.toString()+" from "+getConnectionKey(c));
+        try {
+        	this.getMapper(c).delete(o,getConsistencyLevel(c,"write"));
+        	publishChange(ChangeEvent.Type.DELETE, c, o);
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+        finally {
+            invalidateNearCache(c, o);
+            invalidateCoalescedReads(c);
+        }
+    }
+
+    /**
+     * Delete an object asynchronously by passing an instance of the given object with the key populated. All other fields are ignored
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return ListenableFuture for query
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> ListenableFuture<Void> deleteAsync(Class<T> c, T o) throws DriverException {
+        logger.debug("Deleting asynchronously "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" with values "+o.toString()+" from "+getConnectionKey(c));
+        try {
+        	ListenableFuture<Void> future = this.getMapper(c).deleteAsync(o,getConsistencyLevel(c,"write"));
+        	future.addListener(() -> {
+        		invalidateNearCache(c, o);
+        		invalidateCoalescedReads(c);
+        		if(isSuccessful(future)) {
+        			publishChange(ChangeEvent.Type.DELETE, c, o);
+        		}
+        	}, MoreExecutors.directExecutor());
+        	return future;
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+    }
+
+    /**
+     * Save an object by passing an instance of the given object. Inserts or updates as necessary. NOTE: Nulls are not persisted to the database.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Populated object
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> void save(Class<T> c, T o) throws DriverException{
+        logger.debug("Saving to  "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" to "+getConnectionKey(c));
+    	try {
+    		addToKeyFilter(c, o);
+    		this.getMapper(c).save(o,getConsistencyLevel(c,"write"));
+    		publishChange(ChangeEvent.Type.SAVE, c, o);
+    	}
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
 	    }
+        finally {
+            invalidateNearCache(c, o);
+            invalidateCoalescedReads(c);
+        }
     }
 
     /**
@@ -958,7 +2641,16 @@ public class CassandraDriver {
     public <T extends AbstractCassandraTable> ListenableFuture<Void> saveAsync(Class<T> c, T o) throws DriverException{
         logger.debug("Saving (asynchronously) to  "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" values "+o.toString()+" to "+getConnectionKey(c));
     	try {
-    		return this.getMapper(c).saveAsync(o,getConsistencyLevel(c,"write"));
+    		addToKeyFilter(c, o);
+    		ListenableFuture<Void> future = this.getMapper(c).saveAsync(o,getConsistencyLevel(c,"write"));
+    		future.addListener(() -> {
+    			invalidateNearCache(c, o);
+    			invalidateCoalescedReads(c);
+    			if(isSuccessful(future)) {
+    				publishChange(ChangeEvent.Type.SAVE, c, o);
+    			}
+    		}, MoreExecutors.directExecutor());
+    		return future;
     	}
 	    catch (Exception e) {
 	        DriverException driverException = new DriverException(e);
@@ -966,6 +2658,61 @@ public class CassandraDriver {
 	    }
     }
 
+    /**
+     * Save a list of objects. Objects are grouped by partition key and each group is written as an unlogged batch of at most the bulk group size, so every batch touches a single partition. Batches run in parallel up to the configured bulk parallelism. NOTE: Nulls are not persisted to the database.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param os List of populated objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> void saveAll(Class<T> c, List<T> os) throws DriverException {
+        logger.debug("Saving "+os.size()+" to "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" to "+getConnectionKey(c));
+        if(os.isEmpty()) {
+            return;
+        }
+        try {
+            String connectionKey = getConnectionKey(c);
+            ConsistencyLevel consistencyLevel = getConsistencyLevelValue(c,"write");
+            Mapper.Option consistencyOption = Mapper.Option.consistencyLevel(consistencyLevel);
+            List<Field> partitionKeyFields = getPartitionKeyFields(c);
+            Mapper<T> mapper = this.getMapper(c);
+
+            Map<List<Object>,List<T>> partitions = new LinkedHashMap<List<Object>,List<T>>();
+            for(T o : os) {
+                partitions.computeIfAbsent(getFieldValues(o, partitionKeyFields), k -> new ArrayList<T>()).add(o);
+            }
+
+            List<Statement> statements = new ArrayList<Statement>();
+            for(List<T> partition : partitions.values()) {
+                for(int start=0;start<partition.size();start+=config.bulk.groupSize) {
+                    BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+                    for(T o : partition.subList(start, Math.min(start+config.bulk.groupSize, partition.size()))) {
+                        batch.add(mapper.saveQuery(o, consistencyOption));
+                    }
+                    batch.setConsistencyLevel(consistencyLevel);
+                    statements.add(batch.size() == 1 ? batch.getStatements().iterator().next() : batch);
+                }
+            }
+            for(T o : os) {
+                addToKeyFilter(c, o);
+            }
+            executeParallel(connectionKey, statements);
+            for(T o : os) {
+                publishChange(ChangeEvent.Type.SAVE, c, o);
+            }
+        }
+	    catch (Exception e) {
+	        DriverException driverException = new DriverException(e);
+	        throw driverException;
+	    }
+        finally {
+            for(T o : os) {
+                invalidateNearCache(c, o);
+            }
+            invalidateCoalescedReads(c);
+        }
+    }
+
     /**
      * Get the connection key from the driver_config table. If not specified then uses "default"
      * @param <T> Domain Object for results
@@ -982,6 +2729,473 @@ public class CassandraDriver {
         return key;
     }    
 
+    /**
+     * Get the near cache of a class annotated with NearCache
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return Near cache or null if the class is not annotated
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractCassandraTable> DriverNearCache<T> getNearCache(Class<T> c) {
+        NearCache nearCache = c.getAnnotation(NearCache.class);
+        if(nearCache == null) {
+            return null;
+        }
+        return (DriverNearCache<T>) nearCacheMap.computeIfAbsent(c, k -> new DriverNearCache<T>(c, nearCache));
+    }
+
+    /**
+     * Get the near cache key of an object from its primary key values
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return Cache key
+     */
+    private <T extends AbstractCassandraTable> CacheKey getNearCacheKey(Class<T> c, T o) {
+        return CacheKey.of(getFieldValues(o, getKeyFields(c)).toArray());
+    }
+
+    /**
+     * Remove an object from the near cache of its class after a write
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     */
+    private <T extends AbstractCassandraTable> void invalidateNearCache(Class<T> c, T o) {
+        DriverNearCache<T> nearCache = getNearCache(c);
+        if(nearCache != null) {
+            nearCache.invalidate(getNearCacheKey(c, o));
+        }
+    }
+
+    /**
+     * Get the number of reads of a class annotated with CoalesceReads that shared an identical read in flight instead of sending their own
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return coalesced reads or 0 if the class is not annotated
+     */
+    public <T extends AbstractCassandraTable> long getCoalescedReadCount(Class<T> c) {
+        ReadCoalescer coalescer = coalescerMap.get(c);
+        return coalescer == null ? 0 : coalescer.getCoalescedCount();
+    }
+
+    /**
+     * Run a read, sharing an identical read in flight if the class is annotated with CoalesceReads
+     * @param <T> Domain Object for results
+     * @param <V> Result type
+     * @param c Class of object
+     * @param statement name of the statement
+     * @param values bound values
+     * @param reader read to run
+     * @param copier copies a shared result for each caller joining the read
+     * @return result of the read
+     */
+    private <T extends AbstractCassandraTable, V> V coalesce(Class<T> c, String statement, List<Object> values, Supplier<V> reader, UnaryOperator<V> copier) {
+        if(!c.isAnnotationPresent(CoalesceReads.class)) {
+            return reader.get();
+        }
+        Object[] parts = new Object[values.size()+2];
+        parts[0] = statement;
+        parts[1] = getConsistencyLevelValue(c,"read");
+        for(int i=0;i<values.size();i++) {
+            parts[i+2] = values.get(i);
+        }
+        return coalescerMap.computeIfAbsent(c, k -> new ReadCoalescer()).read(CacheKey.of(parts), reader, copier);
+    }
+
+    /**
+     * Get the copier of a class, used to hand each caller sharing a read its own objects
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return copier of the class
+     */
+    @SuppressWarnings("unchecked")
+    <T extends AbstractCassandraTable> ModelCopier<T> getCopier(Class<T> c) {
+        return (ModelCopier<T>) copierMap.computeIfAbsent(c, k -> new ModelCopier<T>(c));
+    }
+
+    /**
+     * Stop later reads of a class joining reads in flight once a write completes
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     */
+    private <T extends AbstractCassandraTable> void invalidateCoalescedReads(Class<T> c) {
+        ReadCoalescer coalescer = coalescerMap.get(c);
+        if(coalescer != null) {
+            coalescer.invalidate();
+        }
+    }
+
+    /**
+     * Get the hedged read activity of a class annotated with HedgedReads
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return stats or null if the class is not annotated or not yet read
+     */
+    public <T extends AbstractCassandraTable> HedgeStats getHedgeStats(Class<T> c) {
+        ReadHedger hedger = hedgerMap.get(c);
+        return hedger == null ? null : hedger.getStats();
+    }
+
+    /**
+     * Run a read on the connection of the class. For classes annotated with HedgedReads the same read is also sent to the nearest
+     * remote data center if the local one has not answered within the percentile delay and the hedge budget allows, and the first
+     * successful answer is returned
+     * @param <T> Domain Object for results
+     * @param <V> Result type
+     * @param c Class of object
+     * @param read function starting the read on a connection key
+     * @return result of the read
+     */
+    private <T extends AbstractCassandraTable, V> V hedge(Class<T> c, Function<String, ListenableFuture<V>> read) {
+        String connectionKey = getConnectionKey(c);
+        ReadHedger hedger = getHedger(c, connectionKey);
+        long start = System.nanoTime();
+        ListenableFuture<V> primary = read.apply(connectionKey);
+        if(hedger == null) {
+            return await(primary);
+        }
+        hedger.onRead();
+        primary.addListener(() -> hedger.record(System.nanoTime() - start), MoreExecutors.directExecutor());
+        long delay = hedger.getDelayNanos();
+        if(delay < 0) {
+            return await(primary);
+        }
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e) {
+            //Local data center is slower than the percentile delay
+        }
+        catch (InterruptedException e) {
+            //Keep the interrupt for the caller, the primary is still awaited so the read completes
+            Thread.currentThread().interrupt();
+            return await(primary);
+        }
+        catch (ExecutionException e) {
+            return await(primary);
+        }
+        String dataCenter = getNearestDataCenter(hedger.getDataCenters());
+        if(dataCenter == null || !hedger.tryAcquire()) {
+            return await(primary);
+        }
+        logger.debug("Hedging read of "+c.getAnnotation(Table.class).name()+" to "+dataCenter+" after "+delay+" ns");
+        long hedgeStart = System.nanoTime();
+        ListenableFuture<V> secondary;
+        try {
+            secondary = read.apply(dataCenter);
+        }
+        catch (Exception e) {
+            logger.warn("Unable to hedge read to "+dataCenter, e);
+            recordDataCenterLatency(dataCenter, TimeUnit.SECONDS.toNanos(1));
+            return await(primary);
+        }
+        secondary.addListener(() -> recordDataCenterLatency(dataCenter, isSuccessful(secondary) ? System.nanoTime() - hedgeStart : TimeUnit.SECONDS.toNanos(1)), MoreExecutors.directExecutor());
+
+        SettableFuture<V> first = SettableFuture.create();
+        AtomicInteger failures = new AtomicInteger();
+        for(ListenableFuture<V> future : Arrays.asList(primary, secondary)) {
+            Futures.addCallback(future, new FutureCallback<V>() {
+                @Override
+                public void onSuccess(V value) {
+                    if(first.set(value) && future == secondary) {
+                        hedger.onHedgeWin();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if(failures.incrementAndGet() == 2) {
+                        first.setException(t);
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        V value = await(first);
+        secondary.cancel(true);
+        return value;
+    }
+
+    /**
+     * Get the hedger of a class annotated with HedgedReads. On first use the sessions to its remote data centers are opened in the
+     * background, and reads are not hedged until they are
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param connectionKey connection key of the class
+     * @return hedger or null if the class is not annotated
+     */
+    private <T extends AbstractCassandraTable> ReadHedger getHedger(Class<T> c, String connectionKey) {
+        HedgedReads annotation = c.getAnnotation(HedgedReads.class);
+        if(annotation == null) {
+            return null;
+        }
+        ReadHedger hedger = hedgerMap.get(c);
+        if(hedger == null) {
+            synchronized(hedgerMap) {
+                hedger = hedgerMap.get(c);
+                if(hedger == null) {
+                    ReadHedger created = new ReadHedger(annotation);
+                    hedgerMap.put(c, created);
+                    if(hedgeExecutor == null) {
+                        hedgeExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("casquatch-hedge-%d").build());
+                    }
+                    hedgeExecutor.execute(() -> connectHedger(c, connectionKey, created));
+                    hedger = created;
+                }
+            }
+        }
+        return hedger;
+    }
+
+    /**
+     * Open sessions to the remote data centers of a hedger, from the configured list or every data center of the cluster other
+     * than the local one. Data centers that cannot be reached are left out
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param connectionKey connection key of the class
+     * @param hedger hedger to hand the connected data centers to
+     */
+    private <T extends AbstractCassandraTable> void connectHedger(Class<T> c, String connectionKey, ReadHedger hedger) {
+        List<String> dataCenters = new ArrayList<String>();
+        try {
+            if(config.hedge.dataCenters != null && !config.hedge.dataCenters.isEmpty()) {
+                dataCenters.addAll(Arrays.asList(config.hedge.dataCenters.split("\\s*,\\s*")));
+            }
+            else {
+                String localDC = "default".equals(connectionKey) ? config.localDC : connectionKey;
+                for(Host host : getCluster(connectionKey).getMetadata().getAllHosts()) {
+                    if(host.getDatacenter() != null && !host.getDatacenter().equals(localDC) && !dataCenters.contains(host.getDatacenter())) {
+                        dataCenters.add(host.getDatacenter());
+                    }
+                }
+            }
+        }
+        catch (Exception e) {
+            logger.warn("Unable to find data centers for hedged reads of "+c.getName(), e);
+        }
+        List<String> connected = new ArrayList<String>();
+        for(String dataCenter : dataCenters) {
+            try {
+                getSession(dataCenter);
+                connected.add(dataCenter);
+            }
+            catch (Exception e) {
+                logger.warn("Unable to connect to "+dataCenter+" for hedged reads of "+c.getName(), e);
+            }
+        }
+        logger.info("Hedging reads of "+c.getName()+" to "+connected);
+        hedger.setDataCenters(connected);
+    }
+
+    /**
+     * Get the remote data center with the lowest average hedged read latency. Data centers not yet measured come first
+     * @param dataCenters candidate data centers
+     * @return data center or null if there are none
+     */
+    private String getNearestDataCenter(List<String> dataCenters) {
+        String nearest = null;
+        long nearestLatency = Long.MAX_VALUE;
+        for(String dataCenter : dataCenters) {
+            long latency = hedgeLatencyMap.getOrDefault(dataCenter, 0L);
+            if(latency < nearestLatency) {
+                nearest = dataCenter;
+                nearestLatency = latency;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Fold a hedged read latency into the moving average of a data center
+     * @param dataCenter data center read from
+     * @param nanos latency in nanoseconds, or a penalty for failures
+     */
+    private void recordDataCenterLatency(String dataCenter, long nanos) {
+        hedgeLatencyMap.merge(dataCenter, nanos, (average, sample) -> (average * 4 + sample) / 5);
+    }
+
+    /**
+     * Wait for a read without interruption, rethrowing its failure
+     * @param <V> Result type
+     * @param future read in flight
+     * @return result of the read
+     */
+    private static <V> V await(ListenableFuture<V> future) {
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        }
+        catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+    }
+
+    /**
+     * Get the size and effectiveness of the partition key filter of a class annotated with KeyFilter
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return stats or null if the class is not annotated
+     */
+    public <T extends AbstractCassandraTable> KeyFilterStats getKeyFilterStats(Class<T> c) {
+        DriverKeyFilter<T> keyFilter = getKeyFilter(c);
+        return keyFilter == null ? null : keyFilter.getStats();
+    }
+
+    /**
+     * Rebuild the partition key filter of a class annotated with KeyFilter by scanning the distinct partition keys of each token
+     * range. Lookups keep using the previous filter until the scan completes. Runs periodically in the background
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public <T extends AbstractCassandraTable> void rebuildKeyFilter(Class<T> c) throws DriverException {
+        DriverKeyFilter<T> keyFilter = getKeyFilter(c);
+        if(keyFilter == null) {
+            throw new DriverException(303, c.getName()+" is not annotated with KeyFilter");
+        }
+        logger.debug("Building key filter of "+c.getAnnotation(Table.class).keyspace()+"."+c.getAnnotation(Table.class).name()+" from "+getConnectionKey(c));
+        synchronized(keyFilter) {
+            BloomFilter filter = keyFilter.startBuild();
+            try {
+                String connectionKey = getConnectionKey(c);
+                String table = c.getAnnotation(Table.class).name();
+                String[] partitionKeys = getColumnNames(getPartitionKeyFields(c));
+                List<Statement> statements = new ArrayList<Statement>();
+                for(TokenRange range : getScanRanges(connectionKey)) {
+                    Statement statement = buildTokenRangeStatement(c, connectionKey, "distinctRange", () -> QueryBuilder.select(partitionKeys).distinct().from(table), range);
+                    statement.setFetchSize(config.scan.fetchSize);
+                    statements.add(statement);
+                }
+                RateLimiter rateLimiter = getScanRateLimiter();
+                for(ResultSet result : executeParallel(connectionKey, statements, config.scan.parallelism, rateLimiter)) {
+                    for(Row row : scanRows(result, rateLimiter)) {
+                        filter.put(getPartitionKeyBytes(row, partitionKeys.length));
+                    }
+                }
+                keyFilter.finishBuild(filter);
+                logger.debug("Built key filter of "+table+": "+keyFilter.getStats());
+            }
+            catch (Exception e) {
+                keyFilter.abortBuild();
+                DriverException driverException = new DriverException(e);
+                throw driverException;
+            }
+        }
+    }
+
+    /**
+     * Get the partition key filter of a class annotated with KeyFilter, scheduling its builds on first use
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @return Key filter or null if the class is not annotated
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractCassandraTable> DriverKeyFilter<T> getKeyFilter(Class<T> c) {
+        KeyFilter annotation = c.getAnnotation(KeyFilter.class);
+        if(annotation == null) {
+            return null;
+        }
+        DriverKeyFilter<T> keyFilter = (DriverKeyFilter<T>) keyFilterMap.get(c);
+        if(keyFilter == null) {
+            synchronized(keyFilterMap) {
+                keyFilter = (DriverKeyFilter<T>) keyFilterMap.get(c);
+                if(keyFilter == null) {
+                    keyFilter = new DriverKeyFilter<T>(annotation);
+                    keyFilterMap.put(c, keyFilter);
+                    if(keyFilterExecutor == null) {
+                        keyFilterExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("casquatch-key-filter-%d").build());
+                    }
+                    keyFilterExecutor.scheduleWithFixedDelay(() -> {
+                        try {
+                            rebuildKeyFilter(c);
+                        }
+                        catch (Exception e) {
+                            logger.warn("Unable to build key filter of "+c.getName(), e);
+                        }
+                    }, 0, keyFilter.getRebuildInterval(), TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        return keyFilter;
+    }
+
+    /**
+     * Check the partition key filter of a class for a key that definitely does not exist
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Object containing keys populated
+     * @return true if the class has a built key filter that has never seen the partition key
+     */
+    private <T extends AbstractCassandraTable> boolean isKeyAbsent(Class<T> c, T o) {
+        DriverKeyFilter<T> keyFilter = getKeyFilter(c);
+        return keyFilter != null && keyFilter.isBuilt() && keyFilter.isAbsent(getPartitionKeyBytes(c, o));
+    }
+
+    /**
+     * Add the partition key of an object to the key filter of its class. Called before the write is issued so a write that fails
+     * or times out after being applied is never reported as absent, an extra key only adds a false positive
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param o Saved object
+     */
+    private <T extends AbstractCassandraTable> void addToKeyFilter(Class<T> c, T o) {
+        DriverKeyFilter<T> keyFilter = getKeyFilter(c);
+        if(keyFilter != null && keyFilter.isTracking()) {
+            keyFilter.put(getPartitionKeyBytes(c, o));
+        }
+    }
+
+    /**
+     * Get the in-process bus of change events. Successful save, saveAsync, saveAll, delete and deleteAsync calls publish an event
+     * for each object written once the write completes. Publishing never blocks a write
+     * @return change event bus
+     */
+    public ChangeEventBus getChangeEventBus() {
+        return changeEventBus;
+    }
+
+    /**
+     * Publish a change if anyone listens to the class
+     * @param <T> Domain Object for results
+     * @param type type of change
+     * @param c Class of object
+     * @param o Object written
+     */
+    private <T extends AbstractCassandraTable> void publishChange(ChangeEvent.Type type, Class<T> c, T o) {
+        if(changeEventBus.hasSubscribers(c)) {
+            changeEventBus.publish(new ChangeEvent<T>(type, c, o));
+        }
+    }
+
+    /**
+     * Check if a completed future succeeded
+     * @param future completed future
+     * @return true if it completed without failure
+     */
+    private static boolean isSuccessful(ListenableFuture<?> future) {
+        try {
+            Futures.getUnchecked(future);
+            return true;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check if saves write null fields, replacing every column of the row rather than only the populated ones
+     * @return true if nulls are saved
+     */
+    boolean isSaveNulls() {
+        return config.defaults.saveNulls;
+    }
+
     /**
      * Get mapper for the given class
      * @param <T> Domain Object for results
@@ -1004,17 +3218,16 @@ public class CassandraDriver {
      * @param tableName table name
      * @return Connection Key.
      */
-    private String getConnectionKey(String tableName) {
+    String getConnectionKey(String tableName) {
         String key = "default";
         if (config.features.driverConfig && !tableName.equals("driver_config")) {
-            DriverConfig tmpDriverConfig = null;
-            driverConfig.get(tableName);
+            DriverConfig tmpDriverConfig = driverConfig.get(new DriverConfig.Key(tableName));
             if (tmpDriverConfig == null) {
-            	tmpDriverConfig = driverConfig.get("default");
+            	tmpDriverConfig = driverConfig.get(DEFAULT_DRIVER_CONFIG_KEY);
             }
-            if (tmpDriverConfig != null) {
+            if (tmpDriverConfig != null && tmpDriverConfig.getDataCenter() != null) {
                 key = tmpDriverConfig.getDataCenter();
-                logger.info("Found Connection Key for " + tableName);
+                logger.debug("Found Connection Key for " + tableName);
             }
         }
         logger.debug("Connection Key set to "+key+" for "+tableName);
@@ -1029,29 +3242,52 @@ public class CassandraDriver {
      * @return Mapper Option for consistency level
      */
     private <T extends AbstractCassandraTable> Mapper.Option getConsistencyLevel(Class<T> c,String type) {
-        Mapper.Option option = Mapper.Option.consistencyLevel(ConsistencyLevel.valueOf(config.defaults.consistencyLevel));
+        return Mapper.Option.consistencyLevel(getConsistencyLevelValue(c,type));
+    }
+
+    /**
+     * Get the consistency level from driver_config table for the query.
+     * @param <T> Domain Object for results
+     * @param c Class of object
+     * @param type Read or Write
+     * @return Consistency level
+     */
+    private <T extends AbstractCassandraTable> ConsistencyLevel getConsistencyLevelValue(Class<T> c,String type) {
         if(c.isAnnotationPresent(Table.class)) {
-            Table annotation = c.getAnnotation(Table.class);
-            String tableName = annotation.name();
-            if(config.features.driverConfig && !tableName.equals("driver_config")) {
-                DriverConfig tmpDriverConfig = null;
-                tmpDriverConfig = driverConfig.get(tableName);
-                if (config == null) {
-                	tmpDriverConfig = driverConfig.get("default");
-                }
-                if (tmpDriverConfig != null) {
-                    switch (type) {
-                        case "read":
-                            option = Mapper.Option.consistencyLevel(ConsistencyLevel.valueOf(tmpDriverConfig.getReadConsistency()));
-                            break;
-                        case "write":
-                            option = Mapper.Option.consistencyLevel(ConsistencyLevel.valueOf(tmpDriverConfig.getWriteConsistency()));
-                            break;
-                    }
+            return getConsistencyLevelValue(c.getAnnotation(Table.class).name(), type);
+        }
+        return ConsistencyLevel.valueOf(config.defaults.consistencyLevel);
+    }
+
+    /**
+     * Get the consistency level from driver_config table for a query of a table without a mapped class
+     * @param tableName name of the table
+     * @param type Read or Write
+     * @return Consistency level
+     */
+    ConsistencyLevel getConsistencyLevelValue(String tableName,String type) {
+        ConsistencyLevel consistencyLevel = ConsistencyLevel.valueOf(config.defaults.consistencyLevel);
+        if(config.features.driverConfig && !tableName.equals("driver_config")) {
+            DriverConfig tmpDriverConfig = driverConfig.get(new DriverConfig.Key(tableName));
+            if (tmpDriverConfig == null) {
+            	tmpDriverConfig = driverConfig.get(DEFAULT_DRIVER_CONFIG_KEY);
+            }
+            if (tmpDriverConfig != null) {
+                switch (type) {
+                    case "read":
+                        if (tmpDriverConfig.getReadConsistency() != null) {
+                            consistencyLevel = ConsistencyLevel.valueOf(tmpDriverConfig.getReadConsistency());
+                        }
+                        break;
+                    case "write":
+                        if (tmpDriverConfig.getWriteConsistency() != null) {
+                            consistencyLevel = ConsistencyLevel.valueOf(tmpDriverConfig.getWriteConsistency());
+                        }
+                        break;
                 }
             }
         }
-        return option;
+        return consistencyLevel;
     }
 
     /**
@@ -1059,9 +3295,20 @@ public class CassandraDriver {
      */
     @PreDestroy
     public void close() {
-        for(String key : this.clusterMap.keySet()) {
-            this.clusterMap.get(key).close();
-            logger.info("Closed cluster connection for key "+key);
+        changeEventBus.close();
+        synchronized(keyFilterMap) {
+            if(keyFilterExecutor != null) {
+                keyFilterExecutor.shutdownNow();
+            }
+        }
+        synchronized(hedgerMap) {
+            if(hedgeExecutor != null) {
+                hedgeExecutor.shutdownNow();
+            }
+        }
+        for(Map.Entry<String,Cluster> entry : this.clusterMap.entrySet()) {
+            entry.getValue().close();
+            logger.info("Closed cluster connection for key "+entry.getKey());
         }
 
     }
@@ -54,6 +54,16 @@ public class CassandraDriverSpringConfiguration {
 	@Value("${cassandraDriver.reconnection.maxDelay:-1}") int reconnectionMaxDelay;
 	@Value("${cassandraDriver.features.driverConfig:#{null}}") String featuresDriverConfig;
 	@Value("${cassandraDriver.features.solr:#{null}}") String featuresSolr;
+	@Value("${cassandraDriver.bulk.parallelism:-1}") int bulkParallelism;
+	@Value("${cassandraDriver.bulk.groupSize:-1}") int bulkGroupSize;
+	@Value("${cassandraDriver.scan.parallelism:-1}") int scanParallelism;
+	@Value("${cassandraDriver.scan.splitsPerRange:-1}") int scanSplitsPerRange;
+	@Value("${cassandraDriver.scan.maxRequestsPerSecond:-1}") int scanMaxRequestsPerSecond;
+	@Value("${cassandraDriver.scan.readTimeout:-1}") int scanReadTimeout;
+	@Value("${cassandraDriver.scan.fetchSize:-1}") int scanFetchSize;
+	@Value("${cassandraDriver.scan.sampleRatio:-1}") double scanSampleRatio;
+	@Value("${cassandraDriver.events.bufferSize:-1}") int eventsBufferSize;
+	@Value("${cassandraDriver.hedge.dataCenters:#{null}}") String hedgeDataCenters;
 
     /**
      * Spring bean to auto configure CassandraDriver
@@ -160,6 +170,45 @@ public class CassandraDriverSpringConfiguration {
     		cassandraDriverBuilder = cassandraDriverBuilder.withSolrDC(defaultSolrDC);
     	}
 
+    	if(bulkParallelism!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withBulkParallelism(bulkParallelism);
+    	}
+
+    	if(bulkGroupSize!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withBulkGroupSize(bulkGroupSize);
+    	}
+
+    	if(scanParallelism!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanParallelism(scanParallelism);
+    	}
+
+    	if(scanSplitsPerRange!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanSplitsPerRange(scanSplitsPerRange);
+    	}
+
+    	if(scanMaxRequestsPerSecond!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanThrottle(scanMaxRequestsPerSecond);
+    	}
+
+    	if(scanReadTimeout!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanReadTimeout(scanReadTimeout);
+    	}
+
+    	if(scanFetchSize!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanFetchSize(scanFetchSize);
+    	}
+
+    	if(scanSampleRatio!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withScanSampleRatio(scanSampleRatio);
+    	}
+
+    	if(eventsBufferSize!= -1) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withChangeEventBufferSize(eventsBufferSize);
+    	}
+    	if(hedgeDataCenters!=null) {
+    		cassandraDriverBuilder = cassandraDriverBuilder.withHedgeDataCenters(hedgeDataCenters);
+    	}
+
 
     	return cassandraDriverBuilder.build();
     }
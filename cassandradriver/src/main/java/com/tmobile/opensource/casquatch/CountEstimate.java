@@ -0,0 +1,100 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * Approximate number of partitions in a table as returned by CassandraDriver.estimateCount
+ *
+ * @version 1.3
+ */
+public class CountEstimate {
+
+    private final long estimate;
+    private final double relativeError;
+    private final long sampledEstimate;
+    private final long sizeEstimate;
+    private final double sampledFraction;
+
+    /**
+     * Initializes the estimate
+     * @param estimate best estimate of the partition count
+     * @param relativeError relative standard error of the estimate
+     * @param sampledEstimate estimate from sampled token ranges, -1 if unavailable
+     * @param sizeEstimate estimate from system.size_estimates, -1 if unavailable
+     * @param sampledFraction fraction of the token ring that was sampled
+     */
+    public CountEstimate(long estimate, double relativeError, long sampledEstimate, long sizeEstimate, double sampledFraction) {
+        this.estimate = estimate;
+        this.relativeError = relativeError;
+        this.sampledEstimate = sampledEstimate;
+        this.sizeEstimate = sizeEstimate;
+        this.sampledFraction = sampledFraction;
+    }
+
+    /**
+     * Get the best estimate of the partition count
+     * @return partition count
+     */
+    public long getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Get the relative standard error of the estimate
+     * @return relative error, NaN if unknown
+     */
+    public double getRelativeError() {
+        return relativeError;
+    }
+
+    /**
+     * Get the absolute error bound at roughly 95% confidence (1.96 standard errors)
+     * @return error bound in partitions, -1 if unknown
+     */
+    public long getErrorBound() {
+        if(Double.isNaN(relativeError)) {
+            return -1;
+        }
+        return (long) Math.ceil(1.96 * relativeError * estimate);
+    }
+
+    /**
+     * Get the estimate from sampled token ranges
+     * @return partition count, -1 if unavailable
+     */
+    public long getSampledEstimate() {
+        return sampledEstimate;
+    }
+
+    /**
+     * Get the estimate from system.size_estimates of the coordinator
+     * @return partition count, -1 if unavailable
+     */
+    public long getSizeEstimate() {
+        return sizeEstimate;
+    }
+
+    /**
+     * Get the fraction of the token ring that was sampled
+     * @return fraction between 0 and 1
+     */
+    public double getSampledFraction() {
+        return sampledFraction;
+    }
+
+    public String toString() {
+        return estimate+" +/- "+getErrorBound()+" (sampled "+sampledEstimate+", size_estimates "+sizeEstimate+", fraction "+sampledFraction+")";
+    }
+}
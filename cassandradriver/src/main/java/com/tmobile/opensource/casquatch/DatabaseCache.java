@@ -14,13 +14,63 @@
  */
 package com.tmobile.opensource.casquatch;
 
-import java.util.HashMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.tmobile.opensource.casquatch.cache.BoundedCache;
+import com.tmobile.opensource.casquatch.cache.CacheEntry;
+import com.tmobile.opensource.casquatch.cache.CacheStats;
+import com.tmobile.opensource.casquatch.cache.CacheStatsBean;
+import com.tmobile.opensource.casquatch.cache.DiskStore;
+import com.tmobile.opensource.casquatch.cache.JacksonValueCodec;
+import com.tmobile.opensource.casquatch.cache.ObjectValueStorage;
+import com.tmobile.opensource.casquatch.cache.RemovalListener;
+import com.tmobile.opensource.casquatch.cache.OffHeapValueStorage;
+import com.tmobile.opensource.casquatch.cache.SerializedValueStorage;
+import com.tmobile.opensource.casquatch.cache.SlabAllocator;
+import com.tmobile.opensource.casquatch.cache.StatsCounter;
+import com.tmobile.opensource.casquatch.cache.ValueCodec;
+import com.tmobile.opensource.casquatch.cache.ValueStorage;
+import com.tmobile.opensource.casquatch.cache.WriteBehindBuffer;
+import com.tmobile.opensource.casquatch.events.ChangeEvent;
+import com.tmobile.opensource.casquatch.events.ChangeEventBus;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
 import com.tmobile.opensource.casquatch.models.AbstractCachable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
 
 /**
  * Interface for generic database cache
@@ -30,16 +80,361 @@ import com.tmobile.opensource.casquatch.models.AbstractCachable;
  */
 public class DatabaseCache<T extends AbstractCachable> {
 
+	public static class Builder<T extends AbstractCachable> {
+		private final Class<T> classType;
+		private final CassandraDriver db;
+		private long expirationTime = DEFAULT_EXPIRATION;
+		private long maximum = DEFAULT_MAXIMUM_SIZE;
+		private ToIntFunction<? super T> weigher;
+		private long loadTimeout = DEFAULT_LOAD_TIMEOUT;
+		private double refreshAhead = 0;
+		private long maxStaleness = 0;
+		private int refreshThreads = DEFAULT_REFRESH_THREADS;
+		private long negativeExpirationTime = DEFAULT_NEGATIVE_EXPIRATION;
+		private long negativeMaximumSize = DEFAULT_NEGATIVE_MAXIMUM_SIZE;
+		private StorageMode storageMode = StorageMode.OBJECT;
+		private ValueCodec<T> codec;
+		private long decodedHotSetSize = 0;
+		private File diskFile;
+		private long diskCapacity;
+		private File snapshotFile;
+		private boolean jmx = false;
+		private boolean changeEvents = false;
+		private InvalidationLog invalidationLog = null;
+		private String ttlColumn;
+		private ToLongBiFunction<CacheKey, ? super T> expirationFunction;
+		private long writeBehindDelay = 0;
+		private int writeBehindBatchSize;
+		private int writeMaxAttempts = DEFAULT_WRITE_MAX_ATTEMPTS;
+		private long writeMaxBackoff = DEFAULT_WRITE_MAX_BACKOFF;
+
+	    /**
+	     * DatabaseCache Builder constructor. Defaults to 15 minutes expiration and 10,000 entries
+	     * @param classType Type of class to cache
+	     * @param db Database connection to use
+	     */
+		public Builder(Class<T> classType, CassandraDriver db) {
+			this.classType = classType;
+			this.db = db;
+		}
+
+	    /**
+	     * Build with expiration time
+	     * @param expirationTime Time in milliseconds to expire cache
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withExpiration(long expirationTime) {
+			this.expirationTime = expirationTime;
+			return this;
+		}
+
+	    /**
+	     * Build with an expiration computed per entry. Applies to loads and sets in place of the fixed expiration
+	     * @param expirationFunction function of the key and object returning the Time in milliseconds to expire the entry
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withExpirationFunction(ToLongBiFunction<CacheKey, ? super T> expirationFunction) {
+			this.expirationFunction = expirationFunction;
+			return this;
+		}
+
+	    /**
+	     * Build with loads also reading the TTL and write time of a column. Loaded entries expire no later than the column expires
+	     * on the server, so rows expiring in Cassandra leave the cache at the same time
+	     * @param column field or column name of a regular column
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withTtlColumn(String column) {
+			this.ttlColumn = column;
+			return this;
+		}
+
+	    /**
+	     * Build with a maximum number of entries
+	     * @param maximumSize max entries
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withMaximumSize(long maximumSize) {
+			this.maximum = maximumSize;
+			this.weigher = null;
+			return this;
+		}
+
+	    /**
+	     * Build with a maximum total weight instead of entry count
+	     * @param maximumWeight max total weight
+	     * @param weigher function returning the weight of a cached object
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withMaximumWeight(long maximumWeight, ToIntFunction<? super T> weigher) {
+			this.maximum = maximumWeight;
+			this.weigher = weigher;
+			return this;
+		}
+
+	    /**
+	     * Build with the time a caller waits on a load already in flight for the same key
+	     * @param loadTimeout Time in milliseconds to wait
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withLoadTimeout(long loadTimeout) {
+			this.loadTimeout = loadTimeout;
+			return this;
+		}
+
+	    /**
+	     * Build with refresh ahead. Once an entry is older than the fraction of the expiration it is reloaded in the background
+	     * while the cached value keeps being served
+	     * @param fraction fraction of the expiration between 0 and 1, 0 disables
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withRefreshAhead(double fraction) {
+			this.refreshAhead = fraction;
+			return this;
+		}
+
+	    /**
+	     * Build with stale while revalidate. Expired entries keep being served for up to this long while a background reload
+	     * runs, including when the reload fails
+	     * @param maxStaleness Time in milliseconds past expiration, 0 disables
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withMaxStaleness(long maxStaleness) {
+			this.maxStaleness = maxStaleness;
+			return this;
+		}
+
+	    /**
+	     * Build with the number of threads used for background refreshes
+	     * @param refreshThreads max threads
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withRefreshThreads(int refreshThreads) {
+			this.refreshThreads = refreshThreads;
+			return this;
+		}
+
+	    /**
+	     * Build with the expiration of negative entries, recorded when a key does not exist in the database
+	     * @param negativeExpirationTime Time in milliseconds to expire negative entries, 0 disables negative caching
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withNegativeExpiration(long negativeExpirationTime) {
+			this.negativeExpirationTime = negativeExpirationTime;
+			return this;
+		}
+
+	    /**
+	     * Build with a maximum number of negative entries, bounded separately from found entries
+	     * @param negativeMaximumSize max negative entries
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withNegativeMaximumSize(long negativeMaximumSize) {
+			this.negativeMaximumSize = negativeMaximumSize;
+			return this;
+		}
+
+	    /**
+	     * Build with values kept encoded in on-heap byte arrays rather than as objects. Replaces any maximum size or weight
+	     * @param memoryBudget max bytes of encoded values
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withSerializedStorage(long memoryBudget) {
+			this.storageMode = StorageMode.SERIALIZED;
+			this.maximum = memoryBudget;
+			this.weigher = null;
+			return this;
+		}
+
+	    /**
+	     * Build with values kept encoded in off-heap direct memory slabs. Replaces any maximum size or weight
+	     * @param memoryBudget max bytes of direct memory
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withOffHeapStorage(long memoryBudget) {
+			this.storageMode = StorageMode.OFF_HEAP;
+			this.maximum = memoryBudget;
+			this.weigher = null;
+			return this;
+		}
+
+	    /**
+	     * Build with the codec used by serialized and off-heap storage. Defaults to JSON through Jackson
+	     * @param codec value codec
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withCodec(ValueCodec<T> codec) {
+			this.codec = codec;
+			return this;
+		}
+
+	    /**
+	     * Build with a small set of decoded objects kept in front of serialized or off-heap storage
+	     * @param decodedHotSetSize max decoded entries, 0 disables
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withDecodedHotSetSize(long decodedHotSetSize) {
+			this.decodedHotSetSize = decodedHotSetSize;
+			return this;
+		}
+
+	    /**
+	     * Build with a disk tier. Entries evicted from memory are written to a memory-mapped file and read back on a miss
+	     * @param file backing file, replaced on startup and deleted on close
+	     * @param capacity size of the file in bytes, at most 2GB
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withDiskTier(File file, long capacity) {
+			this.diskFile = file;
+			this.diskCapacity = capacity;
+			return this;
+		}
+
+	    /**
+	     * Build with a snapshot file. Entries in memory are written to it on clearCache and close, and unexpired entries are loaded
+	     * from it when the cache is built
+	     * @param file snapshot file
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withSnapshot(File file) {
+			this.snapshotFile = file;
+			return this;
+		}
+
+	    /**
+	     * Build with write behind. A set updates the cache immediately and buffers the save, replacing any buffered save of the same key.
+	     * Buffered saves are written with CassandraDriver.saveAll once the delay passes or the buffer holds a full batch
+	     * @param delay Time in milliseconds a save may wait in the buffer
+	     * @param batchSize number of buffered keys that triggers a flush, also the max size of a batch
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withWriteBehind(long delay, int batchSize) {
+			this.writeBehindDelay = delay;
+			this.writeBehindBatchSize = batchSize;
+			return this;
+		}
+
+	    /**
+	     * Build with the retries of failed write behind batches. Defaults to 5 attempts and a backoff of at most 10 seconds
+	     * @param maxAttempts max attempts to save a value
+	     * @param maxBackoff max Time in milliseconds between attempts
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withWriteRetries(int maxAttempts, long maxBackoff) {
+			this.writeMaxAttempts = maxAttempts;
+			this.writeMaxBackoff = maxBackoff;
+			return this;
+		}
+
+	    /**
+	     * Build with the statistics registered with the platform MBeanServer as
+	     * com.tmobile.opensource.casquatch:type=DatabaseCache,name=classType,instance=n until close
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withJmx() {
+			this.jmx = true;
+			return this;
+		}
+
+	    /**
+	     * Build with the cache following change events of the driver, so saves and deletes made directly through the driver are seen
+	     * without waiting for expiration. Saved objects replace cached entries and deleted keys are recorded as missing
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withChangeEvents() {
+			this.changeEvents = true;
+			return this;
+		}
+
+	    /**
+	     * Build with the cache evicting keys read from a shared invalidation log, so writes made by other instances are seen within
+	     * the poll interval of the log. Writers register their classes with InvalidationLog.track
+	     * @param invalidationLog log to follow
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withInvalidationLog(InvalidationLog invalidationLog) {
+			this.invalidationLog = invalidationLog;
+			return this;
+		}
+
+	    /**
+	     * Build the defined DatabaseCache
+	     * @return DatabaseCache Configured cache
+	     */
+		public DatabaseCache<T> build() {
+			return new DatabaseCache<T>(this);
+		}
+	}
+
+    private enum StorageMode {
+        OBJECT,
+        SERIALIZED,
+        OFF_HEAP
+    }
+
+    /**
+     * Decoded object along with the stored entry it was decoded from
+     */
+    private static class Decoded<T> {
+        private final CacheEntry<CacheKey,Object> source;
+        private final T value;
+
+        Decoded(CacheEntry<CacheKey,Object> source, T value) {
+            this.source = source;
+            this.value = value;
+        }
+    }
+
+    private static final int SNAPSHOT_MAGIC = 0x43415351;
+
+    private static final long DEFAULT_EXPIRATION = 15*60*1000;
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final long DEFAULT_LOAD_TIMEOUT = 10000;
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1000;
+    private static final double REFRESH_JITTER = 0.1;
+    private static final long DEFAULT_NEGATIVE_EXPIRATION = 60*1000;
+    private static final long DEFAULT_NEGATIVE_MAXIMUM_SIZE = 1000;
+    private static final int ESTIMATE_SAMPLE_SIZE = 16;
+    private static final int DEFAULT_WRITE_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_WRITE_MAX_BACKOFF = 10000;
+    private static final long WRITE_INITIAL_BACKOFF = 100;
+    private static final long WRITE_CLOSE_TIMEOUT = 30000;
+    private static final long SPILL_CLOSE_TIMEOUT = 30000;
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
+
     CassandraDriver db;
 
     final Class<T> classType;
+    private final Constructor<T> constructor;
 
     private final static Logger logger = LoggerFactory.getLogger(DatabaseCache.class);
 
-    private Long expirationTime;
+    private final long expirationTime;
+    private final ToLongBiFunction<CacheKey, ? super T> expirationFunction;
+    private final String ttlColumn;
+    private final long loadTimeout;
+    private final double refreshAhead;
+    private final long maxStaleness;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final long negativeExpirationTime;
 
-    Map<String, T> cacheMap;
-    Map<String, Long> cachExpirationMap;
+    private final ValueCodec<T> codec;
+    private final StorageMode storageMode;
+    private final ValueStorage<T> storage;
+    private final StatsCounter stats;
+    private final ObjectName objectName;
+    private final ChangeEventBus.Subscription subscription;
+    private final ChangeEventBus.Subscription logSubscription;
+    private final WriteBehindBuffer<CacheKey,T> writeBehind;
+    private final DiskStore diskStore;
+    private final ThreadPoolExecutor spillExecutor;
+    private final ConcurrentHashMap<CacheKey, CacheEntry<CacheKey,Object>> spillMap;
+    private final File snapshotFile;
+    final BoundedCache<CacheKey, Object> cacheMap;
+    private final BoundedCache<CacheKey, Decoded<T>> decodedMap;
+    final BoundedCache<CacheKey, Boolean> negativeCacheMap;
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<T>> loadingMap;
 
     /**
      * Initializes the Cache
@@ -48,11 +443,7 @@ public class DatabaseCache<T extends AbstractCachable> {
      * @param expirationTime Time in milliseconds to expire cache
      */
     public DatabaseCache (Class<T> classType, CassandraDriver db, Long expirationTime) {
-        this.db = db;
-        this.classType = classType;
-        this.expirationTime = expirationTime;
-        this.cacheMap = new HashMap<String,T>();
-        this.cachExpirationMap = new HashMap<String,Long>();
+        this(new Builder<T>(classType, db).withExpiration(expirationTime));
     }
 
     /**
@@ -61,45 +452,508 @@ public class DatabaseCache<T extends AbstractCachable> {
      * @param db Database connection to use
      */
     public DatabaseCache (Class<T> classType, CassandraDriver db) {
-        this(classType,db,Long.valueOf(15*60*1000));
+        this(classType,db,Long.valueOf(DEFAULT_EXPIRATION));
     }
 
     /**
-     * Get the cached object for a key
+     * Initializes the Cache from a builder
+     * @param builder configured builder
+     */
+    private DatabaseCache (Builder<T> builder) {
+        this.db = builder.db;
+        this.classType = builder.classType;
+        try {
+            this.constructor = classType.getDeclaredConstructor();
+        }
+        catch (NoSuchMethodException e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+        this.expirationTime = builder.expirationTime;
+        this.expirationFunction = builder.expirationFunction;
+        this.ttlColumn = builder.ttlColumn;
+        this.loadTimeout = builder.loadTimeout;
+        this.refreshAhead = builder.refreshAhead;
+        this.maxStaleness = builder.maxStaleness;
+        this.codec = builder.codec != null ? builder.codec : new JacksonValueCodec<T>(classType);
+        this.storageMode = builder.storageMode;
+        this.stats = new StatsCounter();
+        switch(builder.storageMode) {
+            case SERIALIZED:
+                this.storage = new SerializedValueStorage<T>(codec);
+                break;
+            case OFF_HEAP:
+                this.storage = new OffHeapValueStorage<T>(codec, new SlabAllocator(builder.maximum));
+                break;
+            default:
+                this.storage = new ObjectValueStorage<T>(builder.weigher);
+                break;
+        }
+        this.cacheMap = new BoundedCache<CacheKey,Object>(builder.maximum, storage::weigh, builder.maxStaleness);
+        if(builder.diskFile != null) {
+            try {
+                this.diskStore = new DiskStore(builder.diskFile, builder.diskCapacity);
+            }
+            catch (IOException e) {
+                DriverException driverException = new DriverException(e);
+                throw driverException;
+            }
+        }
+        else {
+            this.diskStore = null;
+        }
+        if(diskStore != null) {
+            this.spillExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DatabaseCache-"+classType.getSimpleName()+"-spill-%d").build());
+            this.spillExecutor.allowCoreThreadTimeOut(true);
+            this.spillMap = new ConcurrentHashMap<CacheKey, CacheEntry<CacheKey,Object>>();
+        }
+        else {
+            this.spillExecutor = null;
+            this.spillMap = null;
+        }
+        this.cacheMap.setRemovalListener((entry, cause) -> {
+            boolean spilling = false;
+            if(cause == RemovalListener.Cause.SIZE) {
+                stats.recordEviction();
+                spilling = diskStore != null && queueSpill(entry);
+            }
+            else if(cause == RemovalListener.Cause.EXPIRED) {
+                stats.recordExpiration();
+            }
+            if(!spilling) {
+                storage.release(entry.getValue());
+            }
+        });
+        if(builder.decodedHotSetSize > 0 && builder.storageMode != StorageMode.OBJECT) {
+            this.decodedMap = new BoundedCache<CacheKey,Decoded<T>>(builder.decodedHotSetSize, null, builder.maxStaleness);
+        }
+        else {
+            this.decodedMap = null;
+        }
+        this.negativeExpirationTime = builder.negativeExpirationTime;
+        this.negativeCacheMap = negativeExpirationTime > 0 ? new BoundedCache<CacheKey,Boolean>(builder.negativeMaximumSize) : null;
+        this.loadingMap = new ConcurrentHashMap<CacheKey, CompletableFuture<T>>();
+        if(refreshAhead > 0 || maxStaleness > 0) {
+            this.refreshExecutor = new ThreadPoolExecutor(builder.refreshThreads, builder.refreshThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DatabaseCache-"+classType.getSimpleName()+"-refresh-%d").build());
+            this.refreshExecutor.allowCoreThreadTimeOut(true);
+        }
+        else {
+            this.refreshExecutor = null;
+        }
+        if(builder.writeBehindDelay > 0) {
+            this.writeBehind = new WriteBehindBuffer<CacheKey,T>(builder.writeBehindDelay, builder.writeBehindBatchSize, builder.writeMaxAttempts,
+                    WRITE_INITIAL_BACKOFF, builder.writeMaxBackoff, objs -> db.saveAll(classType, objs), this::onWriteDropped,
+                    "DatabaseCache-"+classType.getSimpleName()+"-write");
+        }
+        else {
+            this.writeBehind = null;
+        }
+        this.snapshotFile = builder.snapshotFile;
+        loadSnapshot();
+        this.objectName = builder.jmx ? registerMBean() : null;
+        this.subscription = builder.changeEvents ? db.getChangeEventBus().subscribe(classType, this::onChange) : null;
+        this.logSubscription = builder.invalidationLog != null ? builder.invalidationLog.subscribe(classType, this::onInvalidate) : null;
+    }
+
+    /**
+     * DatabaseCache Builder. Please refer to builder docs for details
+     * @param classType Type of class to cache
+     * @param db Database connection to use
+     * @param <T> Domain Object for results
+     * @return builder Instance of DatabaseCache.Builder
+     */
+    public static <T extends AbstractCachable> DatabaseCache.Builder<T> builder(Class<T> classType, CassandraDriver db) {
+        return new DatabaseCache.Builder<T>(classType, db);
+    }
+
+    /**
+     * Get the cached object for a dot separated key. Prefer get(CacheKey) which avoids parsing the key
      * @param key Key for cache
      * @return Object containing the cached object
      */
     public T get(String key) {
-        if(checkCache(key)) {
-            logger.debug("DatabaseCache <"+this.classType+"+> Returned "+key+" from cache");
-            return getCache(key);
+        return get(toKey(key));
+    }
+
+    /**
+     * Get the cached object for a single long key without boxing
+     * @param key Key for cache
+     * @return Object containing the cached object
+     */
+    public T get(long key) {
+        return get(CacheKey.ofLong(key));
+    }
+
+    /**
+     * Get the cached object for a key
+     * @param key Key for cache
+     * @return Object containing the cached object
+     */
+    public T get(CacheKey key) {
+        CacheEntry<CacheKey,Object> entry = getCache(key);
+        T value = entry != null ? decode(key, entry) : null;
+        if(value != null) {
+            stats.recordHit();
+            if(refreshExecutor != null && needsRefresh(key, entry)) {
+                refresh(key);
+            }
+            return value;
+        }
+        else if(negativeCacheMap != null && negativeCacheMap.getEntry(key) != null) {
+            stats.recordNegativeHit();
+            return null;
+        }
+        else if((value = getDisk(key)) != null) {
+            stats.recordHit();
+            return value;
         }
         else {
-            T obj;
+            stats.recordMiss();
             try {
-                obj = classType.newInstance();
-                obj.setCacheKey(key);
-                logger.trace(obj.toString());
-                obj = db.getById(classType, obj);
-                logger.debug("DatabaseCache <"+this.classType+"+> Returned "+key+" from DB");
+                return load(key);
             }
             catch (Exception e) {
-                logger.debug("DatabaseCache <"+this.classType+"+> Returned null for "+key+" from DB");
+                logger.debug("DatabaseCache <{}> Returned null for {} from DB", this.classType, key);
                 return null;
             }
-            this.setCache(key, obj);
+        }
+    }
+
+    /**
+     * Get the cached objects for a collection of dot separated keys. Please refer to getAllByKey for details
+     * @param keys Keys for cache
+     * @return Map of key to cached object, keys that do not exist or failed to load are omitted
+     */
+    public Map<String,T> getAll(Collection<String> keys) {
+        Map<CacheKey,String> names = new LinkedHashMap<CacheKey,String>();
+        for(String key : keys) {
+            names.put(toKey(key), key);
+        }
+        Map<String,T> found = new LinkedHashMap<String,T>();
+        for(Map.Entry<CacheKey,T> entry : getAllByKey(names.keySet()).entrySet()) {
+            found.put(names.get(entry.getKey()), entry.getValue());
+        }
+        return found;
+    }
+
+    /**
+     * Get the cached objects for a collection of keys. Hits are served from memory and all misses are loaded with a single
+     * batched call to CassandraDriver.getByIds. Keys already being loaded by another caller are waited on rather than loaded again.
+     * Loaded objects are only cached once the whole batch has succeeded.
+     * @param keys Keys for cache
+     * @return Map of key to cached object, keys that do not exist or failed to load are omitted
+     */
+    public Map<CacheKey,T> getAllByKey(Collection<? extends CacheKey> keys) {
+        Map<CacheKey,T> found = new LinkedHashMap<CacheKey,T>();
+        Map<CacheKey,CompletableFuture<T>> owned = new LinkedHashMap<CacheKey,CompletableFuture<T>>();
+        Map<CacheKey,CompletableFuture<T>> waiting = new LinkedHashMap<CacheKey,CompletableFuture<T>>();
+        for(CacheKey key : new LinkedHashSet<CacheKey>(keys)) {
+            CacheEntry<CacheKey,Object> entry = getCache(key);
+            T value = entry != null ? decode(key, entry) : null;
+            if(value != null) {
+                stats.recordHit();
+                if(refreshExecutor != null && needsRefresh(key, entry)) {
+                    refresh(key);
+                }
+                found.put(key, value);
+            }
+            else if(negativeCacheMap != null && negativeCacheMap.getEntry(key) != null) {
+                stats.recordNegativeHit();
+            }
+            else if((value = getDisk(key)) != null) {
+                stats.recordHit();
+                found.put(key, value);
+            }
+            else {
+                stats.recordMiss();
+                CompletableFuture<T> loading = new CompletableFuture<T>();
+                CompletableFuture<T> inFlight = loadingMap.putIfAbsent(key, loading);
+                if(inFlight == null) {
+                    owned.put(key, loading);
+                }
+                else {
+                    waiting.put(key, inFlight);
+                }
+            }
+        }
+
+        if(!owned.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                List<T> objs = new ArrayList<T>(owned.size());
+                for(CacheKey key : owned.keySet()) {
+                    T obj = constructor.newInstance();
+                    obj.setKey(key);
+                    objs.add(obj);
+                }
+                List<T> results = null;
+                List<TimedRow<T>> timedResults = null;
+                if(ttlColumn != null) {
+                    timedResults = db.getTimedByIds(classType, objs, ttlColumn);
+                }
+                else {
+                    results = db.getByIds(classType, objs);
+                }
+                stats.recordLoadSuccess(System.nanoTime() - start);
+                logger.debug("DatabaseCache <{}> Returned {} keys from DB", this.classType, owned.size());
+                int i = 0;
+                for(Map.Entry<CacheKey,CompletableFuture<T>> load : owned.entrySet()) {
+                    T obj;
+                    long rowExpiresAt = Long.MAX_VALUE;
+                    if(timedResults != null) {
+                        TimedRow<T> timed = timedResults.get(i++);
+                        obj = timed != null ? timed.getRow() : null;
+                        rowExpiresAt = timed != null ? timed.getExpiresAt() : Long.MAX_VALUE;
+                    }
+                    else {
+                        obj = results.get(i++);
+                    }
+                    completeLoad(load.getKey(), load.getValue(), obj, rowExpiresAt);
+                    if(obj != null) {
+                        found.put(load.getKey(), obj);
+                    }
+                }
+            }
+            catch (Exception e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                logger.debug("DatabaseCache <{}> Batch load of {} keys failed", this.classType, owned.size());
+                for(Map.Entry<CacheKey,CompletableFuture<T>> load : owned.entrySet()) {
+                    loadingMap.remove(load.getKey(), load.getValue());
+                    load.getValue().completeExceptionally(e);
+                }
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + loadTimeout;
+        for(Map.Entry<CacheKey,CompletableFuture<T>> wait : waiting.entrySet()) {
+            try {
+                T obj = wait.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if(obj != null) {
+                    found.put(wait.getKey(), obj);
+                }
+            }
+            catch (Exception e) {
+                logger.debug("DatabaseCache <{}> Returned null for {} from DB", this.classType, wait.getKey());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Private function to check if an entry is stale or past its refresh ahead point. The refresh point is moved earlier by up
+     * to 10% of the expiration based on the key so entries loaded together do not refresh together
+     * @param key Key for cache
+     * @param entry cached entry
+     * @return true if a background refresh should start
+     */
+    private boolean needsRefresh(CacheKey key, CacheEntry<CacheKey,Object> entry) {
+        long now = System.currentTimeMillis();
+        if(entry.isExpired(now)) {
+            logger.debug("DatabaseCache <{}> Serving stale {}", this.classType, key);
+            return true;
+        }
+        if(refreshAhead > 0) {
+            double jitter = REFRESH_JITTER * ((key.hashCode() & 0xffff) / 65536.0);
+            long refreshAt = entry.getCreatedAt() + (long) ((entry.getExpiresAt() - entry.getCreatedAt()) * Math.max(0, refreshAhead - jitter));
+            return now >= refreshAt;
+        }
+        return false;
+    }
+
+    /**
+     * Private function to reload a key on the refresh executor. Skipped if a load of the key is already in flight or the
+     * executor queue is full, the cached value is kept if the reload fails
+     * @param key Key for cache
+     */
+    private void refresh(CacheKey key) {
+        CompletableFuture<T> loading = new CompletableFuture<T>();
+        if(loadingMap.putIfAbsent(key, loading) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    runLoad(key, loading);
+                }
+                catch (Exception e) {
+                    logger.debug("DatabaseCache <{}> Refresh of {} failed, keeping cached value", this.classType, key);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            loadingMap.remove(key, loading);
+            loading.completeExceptionally(e);
+            logger.debug("DatabaseCache <{}> Refresh of {} skipped, queue full", this.classType, key);
+        }
+    }
+
+    /**
+     * Private function to load a key from the database. Only one load runs per key, concurrent callers wait on it and share
+     * its result or failure. Failures are not cached.
+     * @param key Key for cache
+     * @return Object loaded from the database
+     * @throws Exception exception raised by the load or timeout waiting on it
+     */
+    private T load(CacheKey key) throws Exception {
+        CompletableFuture<T> loading = new CompletableFuture<T>();
+        CompletableFuture<T> inFlight = loadingMap.putIfAbsent(key, loading);
+        if(inFlight != null) {
+            logger.debug("DatabaseCache <{}> Waiting on load of {}", this.classType, key);
+            try {
+                return inFlight.get(loadTimeout, TimeUnit.MILLISECONDS);
+            }
+            catch (ExecutionException e) {
+                if(e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                if(e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                DriverException driverException = new DriverException(e);
+                throw driverException;
+            }
+        }
+        return runLoad(key, loading);
+    }
+
+    /**
+     * Private function to run a load registered in the loading map and complete its future
+     * @param key Key for cache
+     * @param loading future registered for the key
+     * @return Object loaded from the database
+     * @throws Exception exception raised by the load
+     */
+    private T runLoad(CacheKey key, CompletableFuture<T> loading) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T obj = writeBehind != null ? writeBehind.getPending(key) : null;
+            if(obj != null) {
+                completeLoad(key, loading, obj, Long.MAX_VALUE);
+                return obj;
+            }
+            obj = constructor.newInstance();
+            obj.setKey(key);
+            logger.trace("{}", obj);
+            long rowExpiresAt = Long.MAX_VALUE;
+            if(ttlColumn != null) {
+                TimedRow<T> timed = db.getTimedById(classType, obj, ttlColumn);
+                obj = timed != null ? timed.getRow() : null;
+                rowExpiresAt = timed != null ? timed.getExpiresAt() : Long.MAX_VALUE;
+            }
+            else {
+                obj = db.getById(classType, obj);
+            }
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            logger.debug("DatabaseCache <{}> Returned {} from DB", this.classType, key);
+            completeLoad(key, loading, obj, rowExpiresAt);
             return obj;
         }
+        catch (Exception e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            loadingMap.remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
     }
 
     /**
-     * Set the cached object of a key
+     * Private function to cache a loaded object and complete its future
+     * @param key Key for cache
+     * @param loading future registered for the key
+     * @param obj Object loaded from the database or null if it does not exist
+     * @param rowExpiresAt Time in milliseconds the row expires on the server or Long.MAX_VALUE
+     */
+    private void completeLoad(CacheKey key, CompletableFuture<T> loading, T obj, long rowExpiresAt) {
+        //A save still buffered by write behind is newer than the database
+        if(writeBehind != null) {
+            T buffered = writeBehind.getPending(key);
+            if(buffered != null) {
+                obj = buffered;
+                rowExpiresAt = Long.MAX_VALUE;
+            }
+        }
+        //A set or clear during the load removes the future so the older result is not cached
+        if(loadingMap.remove(key, loading)) {
+            if(obj != null) {
+                this.setCache(key, obj, getExpiration(key, obj, rowExpiresAt));
+            }
+            else {
+                this.setNegativeCache(key);
+            }
+        }
+        loading.complete(obj);
+    }
+
+    /**
+     * Set the cached object of a dot separated key. With write behind the save is buffered and written later
      * @param key Name of key
      * @param obj Object to cache
      */
     public void set(String key, T obj) {
-        db.save(classType,obj);
+        setAsync(toKey(key), obj);
+    }
+
+    /**
+     * Set the cached object of a key. With write behind the save is buffered and written later
+     * @param key Key for cache
+     * @param obj Object to cache
+     */
+    public void set(CacheKey key, T obj) {
+        setAsync(key, obj);
+    }
+
+    /**
+     * Set the cached object of a dot separated key
+     * @param key Name of key
+     * @param obj Object to cache
+     * @return future completed once the object is saved. Without write behind the save has already completed
+     */
+    public CompletableFuture<Void> setAsync(String key, T obj) {
+        return setAsync(toKey(key), obj);
+    }
+
+    /**
+     * Set the cached object of a key
+     * @param key Key for cache
+     * @param obj Object to cache
+     * @return future completed once the object is saved. Without write behind the save has already completed
+     */
+    public CompletableFuture<Void> setAsync(CacheKey key, T obj) {
+        if(writeBehind == null) {
+            db.save(classType,obj);
+        }
+        loadingMap.remove(key);
         this.setCache(key, obj);
+        return writeBehind != null ? writeBehind.put(key, obj) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Write all saves buffered by write behind now
+     * @return future completed once the buffered saves are written, or failed if any of them run out of attempts
+     */
+    public CompletableFuture<Void> flush() {
+        return writeBehind != null ? writeBehind.flush() : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Private function to convert a dot separated key to a typed key through the cached class
+     * @param key dot separated key
+     * @return typed key
+     * @throws DriverException - Driver exception mapped to error code, also raised for keys the class cannot parse
+     */
+    private CacheKey toKey(String key) {
+        try {
+            T obj = constructor.newInstance();
+            obj.setCacheKey(key);
+            return obj.getKey();
+        }
+        catch (Exception e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
     }
 
     /**
@@ -107,61 +961,518 @@ public class DatabaseCache<T extends AbstractCachable> {
      * @param key Name of key
      * @param obj Object to cache
      */
-    private void setCache(String key, T obj) {
-    	if(obj != null) {
-    		logger.trace("Setting :"+obj.toString());
-    	}
-        cacheMap.put(key, obj);
-        cachExpirationMap.put(key, System.currentTimeMillis() + expirationTime);
-        logger.debug("DatabaseCache <"+this.classType+"+> Added "+key+" with Expiration "+System.currentTimeMillis() + expirationTime);
+    private void setCache(CacheKey key, T obj) {
+        setCache(key, obj, getExpiration(key, obj, Long.MAX_VALUE));
+    }
+
+    /**
+     * Private function to get the expiration of an entry from the expiration function or fixed expiration, clamped to the row expiration
+     * @param key Name of key
+     * @param obj Object to cache
+     * @param rowExpiresAt Time in milliseconds the row expires on the server or Long.MAX_VALUE
+     * @return Time in milliseconds the entry expires
+     */
+    private long getExpiration(CacheKey key, T obj, long rowExpiresAt) {
+        long ttl = expirationFunction != null ? expirationFunction.applyAsLong(key, obj) : expirationTime;
+        return Math.min(System.currentTimeMillis() + ttl, rowExpiresAt);
+    }
+
+    /**
+     * Private function to save an item to the cache with a given expiration
+     * @param key Name of key
+     * @param obj Object to cache
+     * @param expiration Time in milliseconds the item expires
+     */
+    private void setCache(CacheKey key, T obj, long expiration) {
+        Object stored = storage.store(obj);
+        if(stored == null) {
+            logger.debug("DatabaseCache <{}> Unable to store {}, no memory available for its size", this.classType, key);
+            cacheMap.remove(key);
+            if(decodedMap != null) {
+                decodedMap.remove(key);
+            }
+        }
+        else {
+            CacheEntry<CacheKey,Object> entry = cacheMap.put(key, stored, expiration);
+            if(decodedMap != null) {
+                decodedMap.put(key, new Decoded<T>(entry, obj), expiration);
+            }
+        }
+        if(negativeCacheMap != null) {
+            negativeCacheMap.remove(key);
+        }
+        removeDisk(key);
+        logger.debug("DatabaseCache <{}> Added {} with Expiration {}", this.classType, key, expiration);
     }
 
     /**
-     * Private function to get an item from the cache
+     * Private function to apply a change written through the driver. Saves are evicted unless a newer value is waiting to be written
+     * behind, since a save without nulls only writes the populated columns. When nulls are saved a copy of the saved object replaces
+     * an entry already cached and other saved keys are only dropped from the negative and disk tiers. Deletes are recorded as
+     * missing keys. A load of a changed key in flight is detached so the row read before the change is not cached. Dropped events
+     * clear the memory and disk tiers since any entry may be stale
+     * @param event change to apply
+     */
+    private void onChange(ChangeEvent<T> event) {
+        CacheKey key;
+        switch(event.getType()) {
+            case SAVE:
+                key = event.getObject().getKey();
+                loadingMap.remove(key);
+                if(writeBehind != null && writeBehind.getPending(key) != null) {
+                    break;
+                }
+                if(!db.isSaveNulls()) {
+                    evict(key);
+                }
+                else if(cacheMap.getEntry(key) != null) {
+                    setCache(key, db.getCopier(classType).copy(event.getObject()));
+                }
+                else {
+                    if(negativeCacheMap != null) {
+                        negativeCacheMap.remove(key);
+                    }
+                    removeDisk(key);
+                }
+                break;
+            case DELETE:
+                key = event.getObject().getKey();
+                loadingMap.remove(key);
+                setNegativeCache(key);
+                break;
+            default:
+                logger.debug("DatabaseCache <{}> Clearing after dropped change events", this.classType);
+                clearTiers();
+                break;
+        }
+    }
+
+    /**
+     * Private function to evict a key read from the invalidation log from every tier and detach any load of it in flight. Keys
+     * with a value waiting to be written behind are kept since the pending value is newer
+     * @param key dot separated key, or null to clear every key
+     */
+    private void onInvalidate(String key) {
+        if(key == null) {
+            logger.debug("DatabaseCache <{}> Clearing from invalidation log", this.classType);
+            clearTiers();
+            return;
+        }
+        CacheKey cacheKey = toKey(key);
+        if(writeBehind != null && writeBehind.getPending(cacheKey) != null) {
+            return;
+        }
+        evict(cacheKey);
+        logger.debug("DatabaseCache <{}> Invalidated {} from invalidation log", this.classType, cacheKey);
+    }
+
+    /**
+     * Private function to evict a save that write behind dropped after its last attempt. The cached value was never written so the
+     * key is evicted and the next get loads it from the database
+     * @param key Key for cache
+     * @param cause failure of the last attempt
+     */
+    private void onWriteDropped(CacheKey key, Exception cause) {
+        logger.error("DatabaseCache <{}> Save of {} was dropped by write behind, evicting the unsaved value", this.classType, key);
+        evict(key);
+    }
+
+    /**
+     * Private function to remove a key from the memory, negative and disk tiers. A load of the key in flight is detached so its
+     * result is not cached
+     * @param key Key for cache
+     */
+    private void evict(CacheKey key) {
+        loadingMap.remove(key);
+        cacheMap.remove(key);
+        if(decodedMap != null) {
+            decodedMap.remove(key);
+        }
+        if(negativeCacheMap != null) {
+            negativeCacheMap.remove(key);
+        }
+        removeDisk(key);
+    }
+
+    /**
+     * Private function to clear the memory, negative and disk tiers
+     */
+    private void clearTiers() {
+        this.cacheMap.clear();
+        if(decodedMap != null) {
+            decodedMap.clear();
+        }
+        if(negativeCacheMap != null) {
+            negativeCacheMap.clear();
+        }
+        if(diskStore != null) {
+            spillMap.clear();
+            diskStore.clear();
+        }
+    }
+
+    /**
+     * Private function to record that a key does not exist in the database. The found entry is dropped so the two never disagree
+     * @param key Name of key
+     */
+    private void setNegativeCache(CacheKey key) {
+        cacheMap.remove(key);
+        removeDisk(key);
+        if(decodedMap != null) {
+            decodedMap.remove(key);
+        }
+        if(negativeCacheMap != null) {
+            long expiration = System.currentTimeMillis() + negativeExpirationTime;
+            negativeCacheMap.put(key, Boolean.TRUE, expiration);
+            logger.debug("DatabaseCache <{}> Added negative {} with Expiration {}", this.classType, key, expiration);
+        }
+    }
+
+    /**
+     * Private function to get a live item from the cache
      * @param key name of key
-     * @return Object from cache
-     */
-    private T getCache(String key) {
-        if (  cacheMap.containsKey(key) && cachExpirationMap.containsKey(key) && cachExpirationMap.get(key) < System.currentTimeMillis() + expirationTime) {
-    		if(cacheMap.get(key) != null) {
-    			logger.trace("Setting :"+cacheMap.get(key).toString());
-    		}
-    		else {
-    			logger.trace("Setting : NULL");
-    		}
-            return cacheMap.get(key);
-        } else {
+     * @return entry from cache or null on a miss or expiration
+     */
+    private CacheEntry<CacheKey,Object> getCache(CacheKey key) {
+        return cacheMap.getEntry(key);
+    }
+
+    /**
+     * Private function to convert a stored entry back to an object, using the decoded hot set when the entry has not changed
+     * @param key name of key
+     * @param entry stored entry
+     * @return Object or null if the stored value was released or could not be decoded
+     */
+    private T decode(CacheKey key, CacheEntry<CacheKey,Object> entry) {
+        if(decodedMap != null) {
+            CacheEntry<CacheKey,Decoded<T>> decoded = decodedMap.getEntry(key);
+            if(decoded != null && decoded.getValue().source == entry) {
+                return decoded.getValue().value;
+            }
+        }
+        T value;
+        try {
+            value = storage.load(entry.getValue());
+        }
+        catch (Exception e) {
+            logger.debug("DatabaseCache <{}> Unable to decode {}", this.classType, key);
+            cacheMap.remove(key);
             return null;
         }
+        if(value != null && decodedMap != null) {
+            decodedMap.put(key, new Decoded<T>(entry, value), entry.getExpiresAt());
+        }
+        return value;
     }
 
     /**
-     * Private function to check if item is in cache
+     * Private function to move an item from the disk tier back into memory
      * @param key name of key
-     * @return Object from cache
+     * @return Object or null if not on disk
      */
-    private boolean checkCache(String key) {
-        if (  cacheMap.containsKey(key) && cachExpirationMap.containsKey(key)) {
-            if (cachExpirationMap.get(key) >  System.currentTimeMillis()) {
-                logger.debug("DatabaseCache <" + this.classType + "+> Hit: " + key);
-                return true;
-            }
-            else {
-                logger.debug("DatabaseCache <" + this.classType + "+> Miss (Expired): " + key);
-                return true;
+    private T getDisk(CacheKey key) {
+        if(diskStore == null) {
+            return null;
+        }
+        CacheEntry<CacheKey,Object> spilling = spillMap.get(key);
+        if(spilling != null) {
+            synchronized(spilling) {
+                if(spillMap.get(key) == spilling) {
+                    T value = storage.load(spilling.getValue());
+                    if(value != null) {
+                        setCache(key, value, spilling.getExpiresAt());
+                        return value;
+                    }
+                }
             }
-        } else {
-            logger.debug("DatabaseCache <"+this.classType+"+> Miss: "+key);
+        }
+        DiskStore.Record record = diskStore.get(key.toString());
+        if(record == null) {
+            return null;
+        }
+        try {
+            T value = codec.decode(record.getValue());
+            setCache(key, value, record.getExpiresAt());
+            return value;
+        }
+        catch (Exception e) {
+            logger.debug("DatabaseCache <{}> Unable to decode {} from disk", this.classType, key);
+            diskStore.remove(key.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Private function to hand an entry evicted from memory to the spill thread. Called from the removal listener so the encode and
+     * disk write stay out of the eviction lock. The stored value is released once written
+     * @param entry evicted entry
+     * @return true if the entry was queued, false if the spill thread has been shut down
+     */
+    private boolean queueSpill(CacheEntry<CacheKey,Object> entry) {
+        spillMap.put(entry.getKey(), entry);
+        try {
+            spillExecutor.execute(() -> spill(entry));
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            spillMap.remove(entry.getKey(), entry);
             return false;
         }
     }
 
+    /**
+     * Private function to write an entry evicted from memory to the disk tier. Skipped if the key was removed or spilled again
+     * while queued
+     * @param entry evicted entry
+     */
+    private void spill(CacheEntry<CacheKey,Object> entry) {
+        synchronized(entry) {
+            try {
+                if(spillMap.get(entry.getKey()) == entry) {
+                    T value = storage.load(entry.getValue());
+                    if(value != null) {
+                        diskStore.put(entry.getKey().toString(), codec.encode(value), entry.getCreatedAt(), entry.getExpiresAt());
+                    }
+                }
+            }
+            catch (Exception e) {
+                logger.debug("DatabaseCache <{}> Unable to write {} to disk", this.classType, entry.getKey());
+            }
+            finally {
+                spillMap.remove(entry.getKey(), entry);
+                storage.release(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Private function to remove a key from the disk tier, waiting for a spill of the key that is already being written
+     * @param key Name of key
+     */
+    private void removeDisk(CacheKey key) {
+        if(diskStore == null) {
+            return;
+        }
+        CacheEntry<CacheKey,Object> spilling = spillMap.remove(key);
+        if(spilling != null) {
+            synchronized(spilling) {
+                diskStore.remove(key.toString());
+            }
+        }
+        else {
+            diskStore.remove(key.toString());
+        }
+    }
+
+    /**
+     * Private function to write the entries in memory to the snapshot file, most valuable first. Written to a temporary file and
+     * moved into place so a failed write never leaves a partial snapshot
+     */
+    private void writeSnapshot() {
+        if(snapshotFile == null) {
+            return;
+        }
+        File tmpFile = new File(snapshotFile.getPath()+".tmp");
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            for(CacheEntry<CacheKey,Object> entry : cacheMap.entries()) {
+                if(entry.isExpired(now)) {
+                    continue;
+                }
+                T value = storage.load(entry.getValue());
+                if(value == null) {
+                    continue;
+                }
+                byte[] bytes = codec.encode(value);
+                out.writeUTF(entry.getKey().toString());
+                out.writeLong(entry.getCreatedAt());
+                out.writeLong(entry.getExpiresAt());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                count++;
+            }
+        }
+        catch (Exception e) {
+            logger.warn("DatabaseCache <{}> Unable to write snapshot {}", this.classType, snapshotFile, e);
+            tmpFile.delete();
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("DatabaseCache <{}> Wrote {} entries to snapshot {}", this.classType, count, snapshotFile);
+        }
+        catch (IOException e) {
+            logger.warn("DatabaseCache <{}> Unable to write snapshot {}", this.classType, snapshotFile, e);
+        }
+    }
+
+    /**
+     * Private function to warm the cache from the snapshot file, skipping entries that have expired. A missing or unreadable
+     * snapshot leaves the cache empty
+     */
+    private void loadSnapshot() {
+        if(snapshotFile == null || !snapshotFile.exists()) {
+            return;
+        }
+        int count = 0;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if(in.readInt() != SNAPSHOT_MAGIC) {
+                logger.warn("DatabaseCache <{}> Ignoring invalid snapshot {}", this.classType, snapshotFile);
+                return;
+            }
+            while(true) {
+                //The key is written for readability, entries are keyed by the decoded object
+                try {
+                    in.readUTF();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                in.readLong();
+                long expiresAt = in.readLong();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                if(expiresAt > System.currentTimeMillis()) {
+                    T value = codec.decode(bytes);
+                    setCache(value.getKey(), value, expiresAt);
+                    count++;
+                }
+            }
+            logger.info("DatabaseCache <{}> Loaded {} entries from snapshot {}", this.classType, count, snapshotFile);
+        }
+        catch (Exception e) {
+            logger.warn("DatabaseCache <{}> Unable to load snapshot {}, loaded {} entries", this.classType, snapshotFile, count, e);
+        }
+    }
+
+    /**
+     * Get the number of cached entries
+     * @return number of entries
+     */
+    public long size() {
+        return cacheMap.size();
+    }
+
+    /**
+     * Get a snapshot of the cache statistics. Loads count database calls, so a getAll batch is one load
+     * @return statistics labelled with the cached class
+     */
+    public CacheStats getStats() {
+        return stats.snapshot(classType.getName(), cacheMap.size(), estimateBytes());
+    }
+
+    /**
+     * Private function to estimate the memory used by cached values. Serialized and off-heap storage are weighed in bytes,
+     * object storage is estimated from the encoded size of a sample of the hottest entries
+     * @return estimated bytes
+     */
+    private long estimateBytes() {
+        if(storageMode != StorageMode.OBJECT) {
+            return cacheMap.weightedSize();
+        }
+        long size = cacheMap.size();
+        if(size == 0) {
+            return 0;
+        }
+        long sampled = 0;
+        long bytes = 0;
+        for(CacheEntry<CacheKey,Object> entry : cacheMap.entries(ESTIMATE_SAMPLE_SIZE)) {
+            try {
+                T value = storage.load(entry.getValue());
+                if(value != null) {
+                    bytes += codec.encode(value).length;
+                    sampled++;
+                }
+            }
+            catch (Exception e) {
+                logger.trace("DatabaseCache <{}> Unable to encode {} for estimate", this.classType, entry.getKey());
+            }
+        }
+        return sampled == 0 ? 0 : bytes * size / sampled;
+    }
+
+    /**
+     * Private function to register the statistics with the platform MBeanServer
+     * @return registered name or null if registration failed
+     */
+    private ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName("com.tmobile.opensource.casquatch:type=DatabaseCache,name="+ObjectName.quote(classType.getName())
+                    +",instance="+instanceCounter.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new CacheStatsBean(() -> stats.snapshot(classType.getName(), cacheMap.size(), 0), this::estimateBytes), name);
+            return name;
+        }
+        catch (Exception e) {
+            logger.warn("DatabaseCache <{}> Unable to register MBean", this.classType, e);
+            return null;
+        }
+    }
 
     /**
      * Clear the cache
      */
     public void clearCache() {
+        writeSnapshot();
+        this.loadingMap.clear();
         this.cacheMap.clear();
-        this.cachExpirationMap.clear();
+        if(decodedMap != null) {
+            decodedMap.clear();
+        }
+        if(negativeCacheMap != null) {
+            negativeCacheMap.clear();
+        }
+        if(diskStore != null) {
+            spillMap.clear();
+            diskStore.clear();
+        }
+    }
+
+    /**
+     * Stop following change events and the invalidation log, write any buffered saves, write the snapshot if configured, stop background refreshes, close the disk tier, and unregister the MBean
+     */
+    @PreDestroy
+    public void close() {
+        if(subscription != null) {
+            subscription.close();
+        }
+        if(logSubscription != null) {
+            logSubscription.close();
+        }
+        if(writeBehind != null) {
+            writeBehind.close(WRITE_CLOSE_TIMEOUT);
+        }
+        writeSnapshot();
+        if(objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            }
+            catch (Exception e) {
+                logger.warn("DatabaseCache <{}> Unable to unregister MBean", this.classType, e);
+            }
+        }
+        if(refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if(diskStore != null) {
+            spillExecutor.shutdown();
+            try {
+                if(!spillExecutor.awaitTermination(SPILL_CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    logger.warn("DatabaseCache <{}> Closed disk tier with {} unwritten spills", this.classType, spillMap.size());
+                    spillExecutor.shutdownNow();
+                }
+            }
+            catch (InterruptedException e) {
+                spillExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            try {
+                diskStore.close();
+            }
+            catch (IOException e) {
+                logger.warn("DatabaseCache <{}> Unable to close disk tier", this.classType, e);
+            }
+        }
     }
 }
@@ -0,0 +1,182 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.tmobile.opensource.casquatch.annotations.KeyFilter;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.util.BloomFilter;
+
+/**
+ * Bloom filter of the serialized partition keys of a model annotated with KeyFilter. Nothing is reported absent until the first
+ * build completes.
+ *
+ * A build fills a new filter while the current one keeps answering, and keys saved during the build are added to both so the
+ * swap loses none of them. Saves hold a shared lock while adding so a swap never runs between adding to the old filter and the
+ * new one.
+ *
+ * @version 1.3
+ */
+class DriverKeyFilter<T extends AbstractCassandraTable> {
+
+    private final KeyFilter settings;
+    private final AtomicLong lookups;
+    private final AtomicLong absent;
+    private final ReadWriteLock swapLock;
+    private volatile BloomFilter current;
+    private volatile BloomFilter next;
+    private volatile long lastBuild;
+
+    /**
+     * Initializes an unbuilt filter from the annotation of a class
+     * @param settings annotation of the class
+     */
+    DriverKeyFilter(KeyFilter settings) {
+        this.settings = settings;
+        this.lookups = new AtomicLong();
+        this.absent = new AtomicLong();
+        this.swapLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Get the time in milliseconds between rebuilds
+     * @return rebuild interval
+     */
+    long getRebuildInterval() {
+        return settings.rebuildInterval();
+    }
+
+    /**
+     * Check if a build has completed, so lookups can report keys absent
+     * @return true once the first build has completed
+     */
+    boolean isBuilt() {
+        return current != null;
+    }
+
+    /**
+     * Check if saved keys need to be added, either to a built filter or to one being built
+     * @return true if a filter is built or building
+     */
+    boolean isTracking() {
+        return current != null || next != null;
+    }
+
+    /**
+     * Check if a key is definitely absent
+     * @param key serialized partition key or null if not fully populated
+     * @return true if the key was never added to a built filter
+     */
+    boolean isAbsent(ByteBuffer key) {
+        BloomFilter filter = current;
+        if(filter == null || key == null) {
+            return false;
+        }
+        lookups.incrementAndGet();
+        if(!filter.mightContain(key)) {
+            absent.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add a saved key to the current filter and any filter being built
+     * @param key serialized partition key or null if not fully populated
+     */
+    void put(ByteBuffer key) {
+        if(key == null) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            BloomFilter filter = current;
+            if(filter != null) {
+                filter.put(key);
+            }
+            filter = next;
+            if(filter != null) {
+                filter.put(key);
+            }
+        }
+        finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Start a build. Saves from now on are also added to the returned filter
+     * @return empty filter to fill with every existing key
+     */
+    BloomFilter startBuild() {
+        BloomFilter filter = BloomFilter.create(settings.expectedKeys(), settings.falsePositiveRate(), settings.maxBytes());
+        swapLock.writeLock().lock();
+        try {
+            next = filter;
+        }
+        finally {
+            swapLock.writeLock().unlock();
+        }
+        return filter;
+    }
+
+    /**
+     * Swap in a filled filter
+     * @param filter filter returned by startBuild
+     */
+    void finishBuild(BloomFilter filter) {
+        swapLock.writeLock().lock();
+        try {
+            current = filter;
+            next = null;
+            lastBuild = System.currentTimeMillis();
+        }
+        finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Abandon a failed build, keeping the current filter
+     */
+    void abortBuild() {
+        swapLock.writeLock().lock();
+        try {
+            next = null;
+        }
+        finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the size and effectiveness of the filter
+     * @return stats, sized from the settings if not yet built
+     */
+    KeyFilterStats getStats() {
+        BloomFilter filter = current;
+        if(filter == null) {
+            long bits = BloomFilter.optimalBits(settings.expectedKeys(), settings.falsePositiveRate(), settings.maxBytes());
+            return new KeyFilterStats(false, bits, BloomFilter.optimalHashes(settings.expectedKeys(), bits), settings.falsePositiveRate(), 0, 0,
+                    lookups.get(), absent.get(), 0);
+        }
+        return new KeyFilterStats(true, filter.bitSize(), filter.hashCount(), settings.falsePositiveRate(), filter.expectedFalsePositiveRate(),
+                filter.approximateCount(), lookups.get(), absent.get(), lastBuild);
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tmobile.opensource.casquatch.annotations.NearCache;
+import com.tmobile.opensource.casquatch.cache.BoundedCache;
+import com.tmobile.opensource.casquatch.cache.CacheEntry;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+
+/**
+ * Near cache of a model annotated with NearCache, keyed by its primary key values. A null value records that the key does not exist.
+ *
+ * Objects are copied field by field going in and coming out so callers can modify what they read or saved without changing the
+ * cached copy. Writes bump a generation before removing keys, and a load that finds the generation moved after populating the cache
+ * removes what it put, so a read racing a write never caches the old row.
+ *
+ * @version 1.3
+ */
+class DriverNearCache<T extends AbstractCassandraTable> {
+
+    private final ModelCopier<T> copier;
+    private final long ttl;
+    private final BoundedCache<CacheKey, T> cacheMap;
+    private final AtomicLong generation;
+
+    /**
+     * Initializes the cache from the annotation of a class
+     * @param classType Type of class to cache
+     * @param nearCache annotation of the class
+     */
+    DriverNearCache(Class<T> classType, NearCache nearCache) {
+        this.copier = new ModelCopier<T>(classType);
+        this.ttl = nearCache.ttl();
+        this.cacheMap = new BoundedCache<CacheKey, T>(nearCache.maxSize());
+        this.generation = new AtomicLong();
+    }
+
+    /**
+     * Get a live entry
+     * @param key primary key values
+     * @return entry whose value is null if the key does not exist, or null if not cached
+     */
+    CacheEntry<CacheKey, T> getEntry(CacheKey key) {
+        CacheEntry<CacheKey, T> entry = cacheMap.getEntry(key);
+        return entry != null && !entry.isExpired(System.currentTimeMillis()) ? entry : null;
+    }
+
+    /**
+     * Get the generation to pass to put once a load completes
+     * @return current generation
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Cache a loaded value unless a write ran since the load started. The value is put before the generation is checked so a
+     * write landing in between either bumps the generation before the check or removes the key after the put
+     * @param key primary key values
+     * @param value loaded object or null if it does not exist
+     * @param loadGeneration generation read before the load started
+     */
+    void put(CacheKey key, T value, long loadGeneration) {
+        if(generation.get() != loadGeneration) {
+            return;
+        }
+        cacheMap.put(key, copy(value), System.currentTimeMillis() + ttl);
+        if(generation.get() != loadGeneration) {
+            cacheMap.remove(key);
+        }
+    }
+
+    /**
+     * Remove a key after a write, discarding loads in flight
+     * @param key primary key values
+     */
+    void invalidate(CacheKey key) {
+        generation.incrementAndGet();
+        cacheMap.remove(key);
+    }
+
+    /**
+     * Get the number of cached keys
+     * @return number of keys
+     */
+    long size() {
+        return cacheMap.size();
+    }
+
+    /**
+     * Shallow copy an object so the cached copy is not shared with callers
+     * @param value object to copy or null
+     * @return copy or null
+     */
+    T copy(T value) {
+        return copier.copy(value);
+    }
+}
@@ -0,0 +1,86 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * Hedged read activity of a model annotated with HedgedReads as returned by CassandraDriver.getHedgeStats
+ *
+ * @version 1.3
+ */
+public class HedgeStats {
+
+    private final long readCount;
+    private final long hedgeCount;
+    private final long hedgeWinCount;
+    private final double delayMillis;
+
+    /**
+     * Initializes the stats
+     * @param readCount number of reads
+     * @param hedgeCount number of reads sent to a remote data center
+     * @param hedgeWinCount number of hedged reads answered first by the remote data center
+     * @param delayMillis current delay before hedging, -1 while local latency is still being measured
+     */
+    public HedgeStats(long readCount, long hedgeCount, long hedgeWinCount, double delayMillis) {
+        this.readCount = readCount;
+        this.hedgeCount = hedgeCount;
+        this.hedgeWinCount = hedgeWinCount;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Get the number of reads
+     * @return reads
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Get the number of reads sent to a remote data center
+     * @return hedges
+     */
+    public long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    /**
+     * Get the number of hedged reads answered first by the remote data center
+     * @return hedge wins
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount;
+    }
+
+    /**
+     * Get the fraction of reads that were hedged
+     * @return hedge rate between 0 and 1
+     */
+    public double getHedgeRate() {
+        return readCount == 0 ? 0 : (double) hedgeCount / readCount;
+    }
+
+    /**
+     * Get the current delay before hedging
+     * @return delay in milliseconds, -1 while local latency is still being measured
+     */
+    public double getDelayMillis() {
+        return delayMillis;
+    }
+
+    public String toString() {
+        return hedgeCount+" of "+readCount+" reads hedged, "+hedgeWinCount+" won by the remote data center, delay "+delayMillis+" ms";
+    }
+}
@@ -0,0 +1,471 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.utils.UUIDs;
+import com.datastax.driver.mapping.annotations.Table;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.tmobile.opensource.casquatch.events.ChangeEvent;
+import com.tmobile.opensource.casquatch.events.ChangeEventBus;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.AbstractCachable;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+
+/**
+ * Invalidation channel between instances through a time bucketed Cassandra table (see invalidation_log.cql). Writes to tracked
+ * classes are appended as compact records of table and key, and every instance tails the log with a paged query per bucket each
+ * poll, passing the keys written by other instances to its subscribers. The log table is reached through the connection key that
+ * driver_config assigns to its table name.
+ *
+ * Delivery is at least once. Appends and polls use the driver_config write and read consistency of the log table, LOCAL_QUORUM
+ * by default. Each poll reads back from the previous successful poll less the allowed clock skew between writers, records already
+ * delivered are skipped by their timeuuid, and a failed poll is read again by the next one. A record reaching the polled data
+ * center later than the clock skew allows, such as through replication lag from another data center, is never delivered, so the
+ * skew must cover that lag as well.
+ *
+ * @version 1.3
+ */
+public class InvalidationLog {
+
+	public static class Builder {
+		private final CassandraDriver db;
+		private String table = DEFAULT_TABLE;
+		private long bucketSize = DEFAULT_BUCKET_SIZE;
+		private long pollInterval = DEFAULT_POLL_INTERVAL;
+		private int pageSize = DEFAULT_PAGE_SIZE;
+		private long maxClockSkew = DEFAULT_MAX_CLOCK_SKEW;
+
+	    /**
+	     * InvalidationLog Builder constructor. Defaults to the invalidation_log table with 1 minute buckets polled every second
+	     * @param db Database connection to use
+	     */
+		public Builder(CassandraDriver db) {
+			this.db = db;
+		}
+
+	    /**
+	     * Build with the name of the log table in the default keyspace
+	     * @param table table name
+	     * @return Reference to Builder object
+	     */
+		public Builder withTable(String table) {
+			this.table = table;
+			return this;
+		}
+
+	    /**
+	     * Build with the time span of each partition of the log. Must match across instances
+	     * @param bucketSize Time in milliseconds
+	     * @return Reference to Builder object
+	     */
+		public Builder withBucketSize(long bucketSize) {
+			this.bucketSize = bucketSize;
+			return this;
+		}
+
+	    /**
+	     * Build with the time between polls of the log
+	     * @param pollInterval Time in milliseconds
+	     * @return Reference to Builder object
+	     */
+		public Builder withPollInterval(long pollInterval) {
+			this.pollInterval = pollInterval;
+			return this;
+		}
+
+	    /**
+	     * Build with the number of records fetched per page when tailing
+	     * @param pageSize rows per page
+	     * @return Reference to Builder object
+	     */
+		public Builder withPageSize(int pageSize) {
+			this.pageSize = pageSize;
+			return this;
+		}
+
+	    /**
+	     * Build with the largest expected difference between writer clocks plus the replication lag between data centers. Each
+	     * poll re-reads this far back so late records from writers running behind or replicas catching up are still delivered
+	     * @param maxClockSkew Time in milliseconds
+	     * @return Reference to Builder object
+	     */
+		public Builder withMaxClockSkew(long maxClockSkew) {
+			this.maxClockSkew = maxClockSkew;
+			return this;
+		}
+
+	    /**
+	     * Build the defined InvalidationLog and start tailing it
+	     * @return InvalidationLog Configured log
+	     */
+		public InvalidationLog build() {
+			if(bucketSize <= 0 || pollInterval <= 0 || pageSize <= 0 || maxClockSkew < 0) {
+				throw new DriverException(401, "Invalidation log bucket size, poll interval and page size must be positive");
+			}
+			return new InvalidationLog(this);
+		}
+	}
+
+    /**
+     * Receiver of invalidations read from the log
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called for each record of a subscribed table
+         * @param key dot separated cache key, or null when every key of the table should be dropped
+         */
+        void onInvalidate(String key);
+    }
+
+    private static final String DEFAULT_TABLE = "invalidation_log";
+    private static final long DEFAULT_BUCKET_SIZE = 60*1000;
+    private static final long DEFAULT_POLL_INTERVAL = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final long DEFAULT_MAX_CLOCK_SKEW = 5000;
+    private static final int APPEND_MAX_ATTEMPTS = 3;
+
+    private final static Logger logger = LoggerFactory.getLogger(InvalidationLog.class);
+
+    private final CassandraDriver db;
+    private final String source;
+    private final String connectionKey;
+    private final String logTable;
+    private final long bucketSize;
+    private final long maxClockSkew;
+    private final int pageSize;
+    private final PreparedStatement insertStatement;
+    private final PreparedStatement selectStatement;
+    private final ConcurrentHashMap<String, List<Listener>> listeners;
+    private final List<ChangeEventBus.Subscription> tracked;
+    private final ScheduledExecutorService poller;
+
+    //Tail state, only touched by the poller thread
+    private final LinkedHashMap<UUID, Long> delivered;
+    private long polledTo;
+
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong appendFailureCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong pollFailureCount = new AtomicLong();
+    private volatile long lastPollAt;
+    private volatile long lastLag;
+    private volatile long maxLag;
+
+    /**
+     * Initializes the log from a builder and starts tailing from now
+     * @param builder configured builder
+     */
+    private InvalidationLog(Builder builder) {
+        this.db = builder.db;
+        this.source = UUID.randomUUID().toString();
+        this.bucketSize = builder.bucketSize;
+        this.maxClockSkew = builder.maxClockSkew;
+        this.pageSize = builder.pageSize;
+        this.connectionKey = db.getConnectionKey(builder.table);
+        this.logTable = builder.table;
+        try {
+            Session session = db.getSession(connectionKey);
+            this.insertStatement = session.prepare("INSERT INTO "+builder.table+" (bucket, event_time, table_name, cache_key, source) VALUES (?, ?, ?, ?, ?)");
+            this.selectStatement = session.prepare("SELECT event_time, table_name, cache_key, source FROM "+builder.table+" WHERE bucket = ? AND event_time > ?");
+        }
+        catch (Exception e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+        this.listeners = new ConcurrentHashMap<String, List<Listener>>();
+        this.tracked = new CopyOnWriteArrayList<ChangeEventBus.Subscription>();
+        this.delivered = new LinkedHashMap<UUID, Long>();
+        this.polledTo = System.currentTimeMillis();
+        this.lastPollAt = polledTo;
+        this.poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("InvalidationLog-%d").build());
+        this.poller.scheduleWithFixedDelay(this::poll, builder.pollInterval, builder.pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * InvalidationLog Builder. Please refer to builder docs for details
+     * @param db Database connection to use
+     * @return builder Instance of InvalidationLog.Builder
+     */
+    public static InvalidationLog.Builder builder(CassandraDriver db) {
+        return new InvalidationLog.Builder(db);
+    }
+
+    /**
+     * Append a record for every save and delete of a class made through the driver. Appends are asynchronous and retried
+     * @param <T> Domain Object for records
+     * @param c Class of object
+     */
+    public <T extends AbstractCassandraTable> void track(Class<T> c) {
+        String tableName = getTableName(c);
+        tracked.add(db.getChangeEventBus().subscribe(c, event -> {
+            if(event.getType() == ChangeEvent.Type.OVERFLOW) {
+                append(tableName, null);
+            }
+            else {
+                append(tableName, getCacheKey(c, event.getObject()));
+            }
+        }));
+    }
+
+    /**
+     * Append a record for a key written outside the driver
+     * @param c Class of object
+     * @param key dot separated cache key, or null to drop every key of the table
+     */
+    public void append(Class<?> c, String key) {
+        append(getTableName(c), key);
+    }
+
+    /**
+     * Receive the records of a class read from the log. Records appended by this instance are skipped since its own writes are
+     * already seen locally
+     * @param c Class of object
+     * @param listener listener to call on the polling thread
+     * @return subscription to close when no longer interested
+     */
+    public ChangeEventBus.Subscription subscribe(Class<?> c, Listener listener) {
+        List<Listener> tableListeners = listeners.computeIfAbsent(getTableName(c), k -> new CopyOnWriteArrayList<Listener>());
+        tableListeners.add(listener);
+        return () -> tableListeners.remove(listener);
+    }
+
+    /**
+     * Get the number of records appended
+     * @return appended records
+     */
+    public long getAppendedCount() {
+        return appendedCount.get();
+    }
+
+    /**
+     * Get the number of records that could not be appended after retries
+     * @return failed appends
+     */
+    public long getAppendFailureCount() {
+        return appendFailureCount.get();
+    }
+
+    /**
+     * Get the number of records delivered to listeners
+     * @return delivered records
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * Get the number of polls that failed and will be read again
+     * @return failed polls
+     */
+    public long getPollFailureCount() {
+        return pollFailureCount.get();
+    }
+
+    /**
+     * Get the time between writing and delivering the most recent record
+     * @return lag in milliseconds
+     */
+    public long getLastLagMillis() {
+        return lastLag;
+    }
+
+    /**
+     * Get the longest time between writing and delivering a record
+     * @return lag in milliseconds
+     */
+    public long getMaxLagMillis() {
+        return maxLag;
+    }
+
+    /**
+     * Get the bound on how far behind the log this instance may be: the time since the last successful poll began
+     * @return lag bound in milliseconds
+     */
+    public long getLagBoundMillis() {
+        return System.currentTimeMillis() - lastPollAt;
+    }
+
+    /**
+     * Stop tracking writes and tailing the log
+     */
+    public void close() {
+        for(ChangeEventBus.Subscription subscription : tracked) {
+            subscription.close();
+        }
+        tracked.clear();
+        poller.shutdownNow();
+    }
+
+    /**
+     * Private function to append a record, retrying failures
+     * @param tableName name of the table written
+     * @param key dot separated cache key or null
+     */
+    private void append(String tableName, String key) {
+        UUID eventTime = UUIDs.timeBased();
+        BoundStatement statement = insertStatement.bind(getBucket(UUIDs.unixTimestamp(eventTime)), eventTime, tableName, key, source);
+        statement.setConsistencyLevel(db.getConsistencyLevelValue(logTable, "write"));
+        append(statement, 1);
+    }
+
+    /**
+     * Private function to run an append attempt
+     * @param statement bound insert
+     * @param attempt attempt number starting at 1
+     */
+    private void append(BoundStatement statement, int attempt) {
+        ResultSetFuture future = db.getSession(connectionKey).executeAsync(statement);
+        Futures.addCallback(future, new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(ResultSet result) {
+                appendedCount.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if(attempt < APPEND_MAX_ATTEMPTS) {
+                    append(statement, attempt + 1);
+                }
+                else {
+                    appendFailureCount.incrementAndGet();
+                    logger.warn("Unable to append to invalidation log", t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Private function run by the poller to read every bucket from the previous poll less the clock skew up to now
+     */
+    private void poll() {
+        long pollAt = System.currentTimeMillis();
+        long since = polledTo - maxClockSkew;
+        try {
+            Session session = db.getSession(connectionKey);
+            for(long bucket = getBucket(since); bucket <= getBucket(pollAt); bucket += bucketSize) {
+                BoundStatement statement = selectStatement.bind(bucket, UUIDs.startOf(since));
+                statement.setFetchSize(pageSize);
+                statement.setConsistencyLevel(db.getConsistencyLevelValue(logTable, "read"));
+                for(Row row : session.execute(statement)) {
+                    UUID eventTime = row.getUUID(0);
+                    if(delivered.containsKey(eventTime)) {
+                        continue;
+                    }
+                    long writtenAt = UUIDs.unixTimestamp(eventTime);
+                    if(!source.equals(row.getString(3))) {
+                        deliver(row.getString(1), row.getString(2));
+                    }
+                    delivered.put(eventTime, writtenAt);
+                    long lag = Math.max(0, System.currentTimeMillis() - writtenAt);
+                    lastLag = lag;
+                    maxLag = Math.max(maxLag, lag);
+                }
+            }
+            polledTo = pollAt;
+            lastPollAt = pollAt;
+            //Records older than the next read window can no longer be read again
+            Iterator<Map.Entry<UUID, Long>> iterator = delivered.entrySet().iterator();
+            while(iterator.hasNext() && iterator.next().getValue() < pollAt - maxClockSkew) {
+                iterator.remove();
+            }
+        }
+        catch (Exception e) {
+            pollFailureCount.incrementAndGet();
+            logger.warn("Unable to poll invalidation log, it will be read again on the next poll", e);
+        }
+    }
+
+    /**
+     * Private function to pass a record to the listeners of its table, isolating listener failures
+     * @param tableName name of the table written
+     * @param key dot separated cache key or null
+     */
+    private void deliver(String tableName, String key) {
+        List<Listener> tableListeners = listeners.get(tableName);
+        if(tableListeners != null) {
+            for(Listener listener : tableListeners) {
+                try {
+                    listener.onInvalidate(key);
+                }
+                catch (Exception e) {
+                    logger.warn("Invalidation listener failed on "+tableName+" "+key, e);
+                }
+            }
+        }
+        deliveredCount.incrementAndGet();
+    }
+
+    /**
+     * Private function to get the bucket of a time
+     * @param time Time in milliseconds
+     * @return bucket start in milliseconds
+     */
+    private long getBucket(long time) {
+        return Math.floorDiv(time, bucketSize) * bucketSize;
+    }
+
+    /**
+     * Private function to get the dot separated cache key of an object
+     * @param c Class of object
+     * @param o Object written
+     * @return cache key
+     */
+    private <T extends AbstractCassandraTable> String getCacheKey(Class<T> c, T o) {
+        if(o instanceof AbstractCachable) {
+            return ((AbstractCachable) o).getKey().toString();
+        }
+        return CacheKey.of(db.getFieldValues(o, db.getKeyFields(c)).toArray()).toString();
+    }
+
+    /**
+     * Private function to get the table name of a class
+     * @param c Class of object
+     * @return table name
+     */
+    private static String getTableName(Class<?> c) {
+        Table table = c.getAnnotation(Table.class);
+        if(table == null) {
+            throw new DriverException(303, c.getName()+" is not a mapped table");
+        }
+        return table.name();
+    }
+}
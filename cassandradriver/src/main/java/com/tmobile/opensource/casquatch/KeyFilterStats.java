@@ -0,0 +1,143 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * Size and effectiveness of the partition key filter of a model annotated with KeyFilter as returned by CassandraDriver.getKeyFilterStats
+ *
+ * @version 1.3
+ */
+public class KeyFilterStats {
+
+    private final boolean built;
+    private final long bitSize;
+    private final int hashCount;
+    private final double targetFalsePositiveRate;
+    private final double expectedFalsePositiveRate;
+    private final long approximateKeys;
+    private final long lookupCount;
+    private final long absentCount;
+    private final long lastBuild;
+
+    /**
+     * Initializes the stats
+     * @param built true once the first build completed
+     * @param bitSize number of bits of the filter
+     * @param hashCount number of hash functions
+     * @param targetFalsePositiveRate configured false positive rate
+     * @param expectedFalsePositiveRate false positive rate implied by the bits set
+     * @param approximateKeys approximate number of keys added
+     * @param lookupCount number of keys checked against the filter
+     * @param absentCount number of keys answered as absent without a query
+     * @param lastBuild time in milliseconds the last build completed, 0 if never
+     */
+    public KeyFilterStats(boolean built, long bitSize, int hashCount, double targetFalsePositiveRate, double expectedFalsePositiveRate,
+            long approximateKeys, long lookupCount, long absentCount, long lastBuild) {
+        this.built = built;
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.approximateKeys = approximateKeys;
+        this.lookupCount = lookupCount;
+        this.absentCount = absentCount;
+        this.lastBuild = lastBuild;
+    }
+
+    /**
+     * Check if the filter has been built. Lookups go to the database until then
+     * @return true once built
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Get the number of bits of the filter
+     * @return bits
+     */
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    /**
+     * Get the memory used by the filter
+     * @return bytes
+     */
+    public long getByteSize() {
+        return bitSize / 8;
+    }
+
+    /**
+     * Get the number of hash functions
+     * @return hashes
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Get the configured false positive rate at the expected number of keys
+     * @return false positive rate
+     */
+    public double getTargetFalsePositiveRate() {
+        return targetFalsePositiveRate;
+    }
+
+    /**
+     * Get the false positive rate implied by the bits currently set
+     * @return false positive rate
+     */
+    public double getExpectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+
+    /**
+     * Get the approximate number of keys added
+     * @return keys
+     */
+    public long getApproximateKeys() {
+        return approximateKeys;
+    }
+
+    /**
+     * Get the number of keys checked against the filter
+     * @return lookups
+     */
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Get the number of keys answered as absent without a query
+     * @return absent keys
+     */
+    public long getAbsentCount() {
+        return absentCount;
+    }
+
+    /**
+     * Get the time the last build completed
+     * @return Time in milliseconds, 0 if never built
+     */
+    public long getLastBuild() {
+        return lastBuild;
+    }
+
+    public String toString() {
+        return (getByteSize())+" bytes, "+hashCount+" hashes, ~"+approximateKeys+" keys, false positive rate "+expectedFalsePositiveRate
+                +" (target "+targetFalsePositiveRate+"), "+absentCount+" of "+lookupCount+" lookups absent";
+    }
+}
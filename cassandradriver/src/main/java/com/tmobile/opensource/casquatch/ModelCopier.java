@@ -0,0 +1,172 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.datastax.driver.mapping.annotations.UDT;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+
+/**
+ * Field by field deep copier of a model, so objects handed to several callers or kept by the driver are not shared. Lists, sets,
+ * maps, dates, blobs and UDT values are copied, other values are treated as immutable and kept. The constructor and fields are
+ * resolved once per class.
+ *
+ * @param <T> Domain Object to copy
+ *
+ * @version 1.3
+ */
+class ModelCopier<T> {
+
+    private static final ConcurrentHashMap<Class<?>, ModelCopier<?>> udtCopierMap = new ConcurrentHashMap<Class<?>, ModelCopier<?>>();
+
+    private final Constructor<T> constructor;
+    private final List<Field> fields;
+
+    /**
+     * Initializes the copier of a class
+     * @param classType Type of class to copy
+     */
+    ModelCopier(Class<T> classType) {
+        try {
+            this.constructor = classType.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        }
+        catch (NoSuchMethodException e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+        this.fields = new ArrayList<Field>();
+        for(Class<?> type = classType; type != null && type != Object.class; type = type.getSuperclass()) {
+            for(Field field : type.getDeclaredFields()) {
+                if(!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deep copy an object
+     * @param value object to copy or null
+     * @return copy or null
+     */
+    T copy(T value) {
+        if(value == null) {
+            return null;
+        }
+        try {
+            T copy = constructor.newInstance();
+            for(Field field : fields) {
+                field.set(copy, copyValue(field.get(value)));
+            }
+            return copy;
+        }
+        catch (Exception e) {
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+    }
+
+    /**
+     * Deep copy every object of a list
+     * @param values objects to copy or null
+     * @return new list of copies or null
+     */
+    List<T> copyAll(List<T> values) {
+        if(values == null) {
+            return null;
+        }
+        List<T> copies = new ArrayList<T>(values.size());
+        for(T value : values) {
+            copies.add(copy(value));
+        }
+        return copies;
+    }
+
+    /**
+     * Private function to copy a field value
+     * @param value value to copy or null
+     * @return copy of mutable values, otherwise the value
+     */
+    private static Object copyValue(Object value) {
+        if(value == null) {
+            return null;
+        }
+        else if(value instanceof List) {
+            return copyInto(new ArrayList<Object>(((List<?>) value).size()), (List<?>) value);
+        }
+        else if(value instanceof Set) {
+            return copyInto(new LinkedHashSet<Object>(), (Set<?>) value);
+        }
+        else if(value instanceof Map) {
+            Map<Object,Object> copy = new LinkedHashMap<Object,Object>();
+            for(Map.Entry<?,?> entry : ((Map<?,?>) value).entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        else if(value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        else if(value instanceof ByteBuffer) {
+            ByteBuffer source = ((ByteBuffer) value).duplicate();
+            ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+            copy.put(source);
+            copy.flip();
+            return copy;
+        }
+        else if(value.getClass().isAnnotationPresent(UDT.class)) {
+            return getUdtCopier(value.getClass()).copy(value);
+        }
+        return value;
+    }
+
+    /**
+     * Private function to add a copy of every element of a collection
+     * @param copy collection to fill
+     * @param values elements to copy
+     * @return copy
+     */
+    private static Collection<Object> copyInto(Collection<Object> copy, Collection<?> values) {
+        for(Object value : values) {
+            copy.add(copyValue(value));
+        }
+        return copy;
+    }
+
+    /**
+     * Private function to get the copier of a UDT class, shared by every model using it
+     * @param udtType Type of UDT class
+     * @return copier of the class
+     */
+    @SuppressWarnings("unchecked")
+    private static ModelCopier<Object> getUdtCopier(Class<?> udtType) {
+        return (ModelCopier<Object>) udtCopierMap.computeIfAbsent(udtType, k -> new ModelCopier<>(k));
+    }
+}
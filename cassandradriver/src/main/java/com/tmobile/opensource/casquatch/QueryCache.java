@@ -0,0 +1,388 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.tmobile.opensource.casquatch.cache.BoundedCache;
+import com.tmobile.opensource.casquatch.cache.CacheEntry;
+import com.tmobile.opensource.casquatch.cache.CacheStats;
+import com.tmobile.opensource.casquatch.cache.RemovalListener;
+import com.tmobile.opensource.casquatch.cache.StatsCounter;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+
+/**
+ * Cache of multi row query results such as partitions read by getAllById and prepared queries run through executeAll. Results are
+ * keyed by statement and bound values, bounded by total rows and bytes read, expire after a fixed time and can be invalidated by
+ * partition key.
+ *
+ * Cached lists are unmodifiable and the objects in them are shared between callers, so they should be treated as read only.
+ *
+ * @version 1.3
+ */
+public class QueryCache<T extends AbstractCassandraTable> {
+
+	public static class Builder<T extends AbstractCassandraTable> {
+		private final Class<T> classType;
+		private final CassandraDriver db;
+		private long expirationTime = DEFAULT_EXPIRATION;
+		private long maximumRows = DEFAULT_MAXIMUM_ROWS;
+		private long maximumBytes = 0;
+
+	    /**
+	     * QueryCache Builder constructor. Defaults to 15 minutes expiration and 100,000 rows
+	     * @param classType Type of class to cache
+	     * @param db Database connection to use
+	     */
+		public Builder(Class<T> classType, CassandraDriver db) {
+			this.classType = classType;
+			this.db = db;
+		}
+
+	    /**
+	     * Build with expiration time
+	     * @param expirationTime Time in milliseconds to expire a result
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withExpiration(long expirationTime) {
+			this.expirationTime = expirationTime;
+			return this;
+		}
+
+	    /**
+	     * Build with a maximum total number of rows across cached results. An empty result counts as one row
+	     * @param maximumRows max rows, 0 for no row bound
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withMaximumRows(long maximumRows) {
+			this.maximumRows = maximumRows;
+			return this;
+		}
+
+	    /**
+	     * Build with a maximum total size in bytes of the rows as read across cached results
+	     * @param maximumBytes max bytes, 0 for no byte bound
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withMaximumBytes(long maximumBytes) {
+			this.maximumBytes = maximumBytes;
+			return this;
+		}
+
+	    /**
+	     * Build the defined QueryCache
+	     * @return QueryCache Configured cache
+	     */
+		public QueryCache<T> build() {
+			if(maximumRows <= 0 && maximumBytes <= 0) {
+				throw new DriverException(401, "QueryCache requires a maximum number of rows or bytes");
+			}
+			return new QueryCache<T>(this);
+		}
+	}
+
+    /**
+     * Cached result along with the partitions it was read from and its size
+     */
+    private static class Result<T> {
+        private final List<T> rows;
+        private final Set<CacheKey> partitions;
+        private final long bytes;
+
+        Result(List<T> rows, Set<CacheKey> partitions, long bytes) {
+            this.rows = rows;
+            this.partitions = partitions;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final long DEFAULT_EXPIRATION = 15*60*1000;
+    private static final long DEFAULT_MAXIMUM_ROWS = 100000;
+    private static final String GET_ALL_BY_ID = "getAllById";
+
+    private final static Logger logger = LoggerFactory.getLogger(QueryCache.class);
+
+    private final CassandraDriver db;
+    private final Class<T> classType;
+    private final long expirationTime;
+    private final List<Field> keyFields;
+    private final List<Field> partitionKeyFields;
+    private final BoundedCache<CacheKey, Result<T>> resultMap;
+    private final ConcurrentHashMap<CacheKey, Set<CacheKey>> partitionIndex;
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<List<T>>> loadingMap;
+    private final AtomicLong invalidations;
+    private final LongAdder bytes;
+    private final StatsCounter stats;
+
+    /**
+     * Initializes the Cache from a builder
+     * @param builder configured builder
+     */
+    private QueryCache(Builder<T> builder) {
+        this.db = builder.db;
+        this.classType = builder.classType;
+        this.expirationTime = builder.expirationTime;
+        this.keyFields = db.getKeyFields(classType);
+        this.partitionKeyFields = db.getPartitionKeyFields(classType);
+        this.partitionIndex = new ConcurrentHashMap<CacheKey, Set<CacheKey>>();
+        this.loadingMap = new ConcurrentHashMap<CacheKey, CompletableFuture<List<T>>>();
+        this.invalidations = new AtomicLong();
+        this.bytes = new LongAdder();
+        this.stats = new StatsCounter();
+
+        //Each result weighs the larger of its share of the row bound and its share of the byte bound, so the total weight stays
+        //under the byte maximum only while both totals stay under their maximums
+        long maximumRows = builder.maximumRows;
+        long maximumBytes = builder.maximumBytes;
+        if(maximumBytes <= 0) {
+            this.resultMap = new BoundedCache<CacheKey, Result<T>>(maximumRows, result -> Math.max(1, result.rows.size()));
+        }
+        else if(maximumRows <= 0) {
+            this.resultMap = new BoundedCache<CacheKey, Result<T>>(maximumBytes, result -> (int) Math.min(Integer.MAX_VALUE, result.bytes));
+        }
+        else {
+            long bytesPerRow = Math.max(1, (maximumBytes + maximumRows - 1) / maximumRows);
+            this.resultMap = new BoundedCache<CacheKey, Result<T>>(maximumBytes, result -> (int) Math.min(Integer.MAX_VALUE, Math.max(Math.max(1, result.rows.size()) * bytesPerRow, result.bytes)));
+        }
+        this.resultMap.setRemovalListener(this::onRemoval);
+    }
+
+    /**
+     * QueryCache Builder. Please refer to builder docs for details
+     * @param classType Type of class to cache
+     * @param db Database connection to use
+     * @param <T> Domain Object for results
+     * @return builder Instance of QueryCache.Builder
+     */
+    public static <T extends AbstractCassandraTable> QueryCache.Builder<T> builder(Class<T> classType, CassandraDriver db) {
+        return new QueryCache.Builder<T>(classType, db);
+    }
+
+    /**
+     * Get all objects from a partition, loading through CassandraDriver.getAllById on a miss
+     * @param o Object containing the partition key and optionally leading clustering keys populated
+     * @return Unmodifiable list of objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public List<T> getAllById(T o) throws DriverException {
+        List<Object> keyValues = db.getFieldValues(o, keyFields);
+        List<Object> parts = new ArrayList<Object>(keyValues.size()+1);
+        parts.add(GET_ALL_BY_ID);
+        parts.addAll(keyValues);
+        CacheKey partition = CacheKey.of(keyValues.subList(0, partitionKeyFields.size()).toArray());
+        return get(CacheKey.of(parts.toArray()), partition, () -> db.generateSelectQuery(classType, o));
+    }
+
+    /**
+     * Get all objects returned by a prepared query, loading through CassandraDriver.executeAll on a miss. Results are invalidated
+     * by the partitions of the rows they returned, so an empty result only leaves the cache by expiration or invalidateAll
+     * @param cql cql query with ? bind markers
+     * @param values values to bind in marker order
+     * @return Unmodifiable list of objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public List<T> executeAll(String cql, Object... values) throws DriverException {
+        Object[] parts = new Object[values.length+1];
+        parts[0] = cql;
+        System.arraycopy(values, 0, parts, 1, values.length);
+        return get(CacheKey.of(parts), null, () -> db.bindQuery(classType, cql, values));
+    }
+
+    /**
+     * Remove every cached result that read from the partition of the given object
+     * @param o Object containing the partition key populated
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public void invalidate(T o) throws DriverException {
+        invalidations.incrementAndGet();
+        CacheKey partition = CacheKey.of(db.getFieldValues(o, partitionKeyFields).toArray());
+        Set<CacheKey> keys = partitionIndex.remove(partition);
+        if(keys != null) {
+            logger.debug("QueryCache <{}> invalidating {} results of partition {}", this.classType, keys.size(), partition);
+            for(CacheKey key : keys) {
+                resultMap.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove every cached result
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        resultMap.clear();
+        partitionIndex.clear();
+    }
+
+    /**
+     * Get the number of cached results
+     * @return number of results
+     */
+    public long size() {
+        return resultMap.size();
+    }
+
+    /**
+     * Get a snapshot of the cache statistics
+     * @return statistics labelled with the cached class, estimated bytes are the size of the rows as read
+     */
+    public CacheStats getStats() {
+        return stats.snapshot(classType.getName(), resultMap.size(), bytes.sum());
+    }
+
+    /**
+     * Private function to get a result or load it once for all concurrent callers
+     * @param key statement and bound values
+     * @param partition partition read by the statement if known
+     * @param statement supplier of the statement to run on a miss
+     * @return Unmodifiable list of objects
+     */
+    private List<T> get(CacheKey key, CacheKey partition, Supplier<Statement> statement) {
+        CacheEntry<CacheKey, Result<T>> entry = resultMap.getEntry(key);
+        if(entry != null && !entry.isExpired(System.currentTimeMillis())) {
+            stats.recordHit();
+            return entry.getValue().rows;
+        }
+        stats.recordMiss();
+        CompletableFuture<List<T>> loading = new CompletableFuture<List<T>>();
+        CompletableFuture<List<T>> existing = loadingMap.putIfAbsent(key, loading);
+        if(existing != null) {
+            try {
+                return existing.get();
+            }
+            catch (ExecutionException e) {
+                throw (DriverException) e.getCause();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                DriverException driverException = new DriverException(e);
+                throw driverException;
+            }
+        }
+        try {
+            List<T> rows = load(key, partition, statement.get());
+            loading.complete(rows);
+            return rows;
+        }
+        catch (Exception e) {
+            DriverException driverException = e instanceof DriverException ? (DriverException) e : new DriverException(e);
+            loading.completeExceptionally(driverException);
+            throw driverException;
+        }
+        finally {
+            loadingMap.remove(key, loading);
+        }
+    }
+
+    /**
+     * Private function to run a statement and cache its result unless an invalidation ran while it was in flight
+     * @param key statement and bound values
+     * @param partition partition read by the statement if known
+     * @param statement statement to run
+     * @return Unmodifiable list of objects
+     */
+    private List<T> load(CacheKey key, CacheKey partition, Statement statement) {
+        long generation = invalidations.get();
+        long start = System.nanoTime();
+        List<T> rows;
+        long size = 0;
+        try {
+            ResultSet result = db.getSession(db.getConnectionKey(classType)).execute(statement);
+            List<Row> read = result.all();
+            for(Row row : read) {
+                for(int i=0;i<row.getColumnDefinitions().size();i++) {
+                    ByteBuffer value = row.getBytesUnsafe(i);
+                    if(value != null) {
+                        size += value.remaining();
+                    }
+                }
+            }
+            rows = Collections.unmodifiableList(db.mapRows(classType, result, read));
+            stats.recordLoadSuccess(System.nanoTime() - start);
+        }
+        catch (Exception e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+
+        Set<CacheKey> partitions = new LinkedHashSet<CacheKey>();
+        if(partition != null) {
+            partitions.add(partition);
+        }
+        for(T row : rows) {
+            partitions.add(CacheKey.of(db.getFieldValues(row, partitionKeyFields).toArray()));
+        }
+        if(invalidations.get() != generation) {
+            logger.debug("QueryCache <{}> not caching {} after a concurrent invalidation", this.classType, key);
+            return rows;
+        }
+        //Drop an older result first so its removal does not unregister the partitions of the new one
+        resultMap.remove(key);
+        //Index before the put so a result evicted or rejected by the put is unregistered by the removal listener
+        for(CacheKey read : partitions) {
+            partitionIndex.computeIfAbsent(read, k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        Result<T> cached = new Result<T>(rows, partitions, size);
+        bytes.add(size);
+        resultMap.put(key, cached, System.currentTimeMillis() + expirationTime);
+        //An invalidation between the first check and the index registration would have missed this result
+        if(invalidations.get() != generation) {
+            logger.debug("QueryCache <{}> dropping {} after a concurrent invalidation", this.classType, key);
+            resultMap.remove(key);
+        }
+        return rows;
+    }
+
+    /**
+     * Private function to account for a result leaving the cache and drop it from the partition index
+     * @param entry removed entry
+     * @param cause reason for removal
+     */
+    private void onRemoval(CacheEntry<CacheKey, Result<T>> entry, RemovalListener.Cause cause) {
+        if(cause == RemovalListener.Cause.SIZE) {
+            stats.recordEviction();
+        }
+        else if(cause == RemovalListener.Cause.EXPIRED) {
+            stats.recordExpiration();
+        }
+        bytes.add(-entry.getValue().bytes);
+        for(CacheKey partition : entry.getValue().partitions) {
+            partitionIndex.computeIfPresent(partition, (k, keys) -> {
+                keys.remove(entry.getKey());
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+
+/**
+ * Identical reads in flight for a model annotated with CoalesceReads. The first caller of a key runs the read and later callers
+ * wait for its result instead of sending their own, each receiving its own copy so callers never share mutable objects.
+ *
+ * Writes through the driver bump a generation, and callers only join a read started at or after the generation they saw, so a
+ * read issued after a write completed never shares the result of a read sent before it.
+ *
+ * @version 1.3
+ */
+class ReadCoalescer {
+
+    /**
+     * Read in flight with the generation it started in
+     */
+    private static class InFlight {
+        private final CompletableFuture<Object> future = new CompletableFuture<Object>();
+        private final long generation;
+
+        private InFlight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private final ConcurrentHashMap<CacheKey, InFlight> inFlight;
+    private final AtomicLong generation;
+    private final LongAdder coalesced;
+
+    /**
+     * Initializes an empty coalescer
+     */
+    ReadCoalescer() {
+        this.inFlight = new ConcurrentHashMap<CacheKey, InFlight>();
+        this.generation = new AtomicLong();
+        this.coalesced = new LongAdder();
+    }
+
+    /**
+     * Run a read or join an identical one in flight
+     * @param <V> Result type
+     * @param key statement, consistency level and bound values
+     * @param reader read to run if none is in flight
+     * @param copier copies the result for callers joining the read
+     * @return result of the read
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    @SuppressWarnings("unchecked")
+    <V> V read(CacheKey key, Supplier<V> reader, UnaryOperator<V> copier) throws DriverException {
+        long seen = generation.get();
+        InFlight mine = new InFlight(seen);
+        while(true) {
+            InFlight existing = inFlight.putIfAbsent(key, mine);
+            if(existing == null) {
+                break;
+            }
+            if(existing.generation >= seen) {
+                coalesced.increment();
+                return copier.apply((V) await(existing));
+            }
+            //Sent before a write completed, take its place instead of joining
+            if(inFlight.replace(key, existing, mine)) {
+                break;
+            }
+        }
+        try {
+            V value = reader.get();
+            inFlight.remove(key, mine);
+            mine.future.complete(value);
+            return value;
+        }
+        catch (Throwable t) {
+            //Errors complete the future too so callers waiting on it are never left blocked
+            inFlight.remove(key, mine);
+            mine.future.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    /**
+     * Stop later callers joining reads already in flight, called once a write completes
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Get the number of callers that shared a read in flight instead of sending their own
+     * @return coalesced callers
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Private function to wait for a read in flight
+     * @param existing read in flight
+     * @return result of the read
+     */
+    private static Object await(InFlight existing) {
+        try {
+            return existing.future.get();
+        }
+        catch (ExecutionException e) {
+            //The leading read only throws unchecked exceptions
+            if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            DriverException driverException = new DriverException(e);
+            throw driverException;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.tmobile.opensource.casquatch.annotations.HedgedReads;
+
+/**
+ * Hedging state of a model annotated with HedgedReads.
+ *
+ * Local read latency is counted in log scaled microsecond buckets with eight buckets per power of two, kept in a current and a
+ * previous window that rotate every 10 seconds so the delay follows recent latency. The delay is the configured percentile over
+ * both windows, recomputed at most every 100 milliseconds, and no read is hedged until 100 local reads have been measured.
+ *
+ * The budget is a credit balance. Each read earns the budget fraction of a credit, each hedge spends a whole credit, and the
+ * balance is capped at a small burst, so hedges stay under the budget fraction of reads over time.
+ *
+ * @version 1.3
+ */
+class ReadHedger {
+
+    private static final int BUCKETS = 280;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long RECOMPUTE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN_SAMPLES = 100;
+    private static final long CREDIT = 1000;
+    private static final long MAX_CREDITS = 10 * CREDIT;
+
+    private final LongSupplier clock;
+    private final double percentile;
+    private final long earned;
+    private final long minDelayNanos;
+    private volatile List<String> dataCenters;
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    private final AtomicLong rotateAt;
+    private final AtomicLong recomputeAt;
+    private volatile long delayNanos;
+
+    private final AtomicLong credits;
+    private final LongAdder reads;
+    private final LongAdder hedges;
+    private final LongAdder hedgeWins;
+
+    /**
+     * Initializes the hedger from the annotation of a class
+     * @param settings annotation of the class
+     */
+    ReadHedger(HedgedReads settings) {
+        this(settings, System::nanoTime);
+    }
+
+    /**
+     * Initializes the hedger from the annotation of a class with the given clock
+     * @param settings annotation of the class
+     * @param clock source of the current time in nanoseconds
+     */
+    ReadHedger(HedgedReads settings, LongSupplier clock) {
+        this.clock = clock;
+        this.percentile = settings.percentile();
+        this.earned = Math.round(settings.budget() * CREDIT);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.minDelay());
+        this.dataCenters = Collections.emptyList();
+        this.current = new AtomicLongArray(BUCKETS);
+        this.previous = new AtomicLongArray(BUCKETS);
+        long now = clock.getAsLong();
+        this.rotateAt = new AtomicLong(now + WINDOW_NANOS);
+        this.recomputeAt = new AtomicLong(now);
+        this.delayNanos = -1;
+        this.credits = new AtomicLong();
+        this.reads = new LongAdder();
+        this.hedges = new LongAdder();
+        this.hedgeWins = new LongAdder();
+    }
+
+    /**
+     * Get the remote data centers reads may be hedged to
+     * @return data centers
+     */
+    List<String> getDataCenters() {
+        return dataCenters;
+    }
+
+    /**
+     * Set the remote data centers reads may be hedged to once their sessions are open
+     * @param dataCenters connected data centers
+     */
+    void setDataCenters(List<String> dataCenters) {
+        this.dataCenters = Collections.unmodifiableList(dataCenters);
+    }
+
+    /**
+     * Count a read and earn its share of hedge budget
+     */
+    void onRead() {
+        reads.increment();
+        long balance;
+        do {
+            balance = credits.get();
+            if(balance >= MAX_CREDITS) {
+                return;
+            }
+        } while(!credits.compareAndSet(balance, Math.min(MAX_CREDITS, balance + earned)));
+    }
+
+    /**
+     * Spend a credit of hedge budget if available
+     * @return true if the read may be hedged
+     */
+    boolean tryAcquire() {
+        long balance;
+        do {
+            balance = credits.get();
+            if(balance < CREDIT) {
+                return false;
+            }
+        } while(!credits.compareAndSet(balance, balance - CREDIT));
+        hedges.increment();
+        return true;
+    }
+
+    /**
+     * Count a hedged read answered first by the remote data center
+     */
+    void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Record the latency of a local read
+     * @param nanos latency in nanoseconds
+     */
+    void record(long nanos) {
+        long now = clock.getAsLong();
+        long rotate = rotateAt.get();
+        if(now - rotate >= 0 && rotateAt.compareAndSet(rotate, now + WINDOW_NANOS)) {
+            previous = current;
+            current = new AtomicLongArray(BUCKETS);
+        }
+        current.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /**
+     * Get the time to wait for the local data center before hedging
+     * @return delay in nanoseconds, -1 while fewer than 100 local reads have been measured
+     */
+    long getDelayNanos() {
+        long now = clock.getAsLong();
+        long recompute = recomputeAt.get();
+        if(now - recompute >= 0 && recomputeAt.compareAndSet(recompute, now + RECOMPUTE_NANOS)) {
+            delayNanos = computeDelay();
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Get the hedging activity
+     * @return stats
+     */
+    HedgeStats getStats() {
+        long delay = getDelayNanos();
+        return new HedgeStats(reads.sum(), hedges.sum(), hedgeWins.sum(), delay < 0 ? -1 : delay / 1e6);
+    }
+
+    /**
+     * Private function to compute the percentile delay over both windows
+     * @return delay in nanoseconds or -1 if too few samples
+     */
+    private long computeDelay() {
+        AtomicLongArray newer = current;
+        AtomicLongArray older = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for(int i=0;i<BUCKETS;i++) {
+            counts[i] = newer.get(i) + older.get(i);
+            total += counts[i];
+        }
+        if(total < MIN_SAMPLES) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for(int i=0;i<BUCKETS;i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.max(minDelayNanos, TimeUnit.MICROSECONDS.toNanos(upperBound(i)));
+            }
+        }
+        return Math.max(minDelayNanos, TimeUnit.MICROSECONDS.toNanos(upperBound(BUCKETS - 1)));
+    }
+
+    /**
+     * Private function to get the bucket of a latency, eight buckets per power of two
+     * @param micros latency in microseconds
+     * @return bucket index
+     */
+    private static int bucket(long micros) {
+        if(micros < 8) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int index = (exponent - 2) * 8 + (int) ((micros >>> (exponent - 3)) & 7);
+        return Math.min(BUCKETS - 1, index);
+    }
+
+    /**
+     * Private function to get the exclusive upper bound of a bucket
+     * @param index bucket index
+     * @return latency in microseconds
+     */
+    private static long upperBound(int index) {
+        if(index < 8) {
+            return index + 1;
+        }
+        int exponent = index / 8 + 2;
+        return (long) (8 + index % 8 + 1) << (exponent - 3);
+    }
+}
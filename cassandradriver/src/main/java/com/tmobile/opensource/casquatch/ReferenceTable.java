@@ -0,0 +1,516 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TokenRange;
+import com.datastax.driver.mapping.annotations.Column;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+
+/**
+ * Whole table held in memory for small tables that rarely change. The table is loaded by token range scan and lookups by primary
+ * key, partition, or declared index fields are answered from in-memory indexes without touching the network.
+ *
+ * Rows are kept per token range with a digest of the range. Background refreshes read the ranges again, a batch at a time if
+ * configured, and when any range changed the indexes are rebuilt and swapped in atomically so readers always see a complete
+ * snapshot. Objects are shared between callers and must not be modified.
+ *
+ * @version 1.3
+ */
+public class ReferenceTable<T extends AbstractCassandraTable> {
+
+	public static class Builder<T extends AbstractCassandraTable> {
+		private final Class<T> classType;
+		private final CassandraDriver db;
+		private final List<String> hashIndexes = new ArrayList<String>();
+		private final List<String> sortedIndexes = new ArrayList<String>();
+		private long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+		private int refreshRanges = 0;
+
+	    /**
+	     * ReferenceTable Builder constructor. Defaults to refreshing every token range every 5 minutes
+	     * @param classType Type of class to hold
+	     * @param db Database connection to use
+	     */
+		public Builder(Class<T> classType, CassandraDriver db) {
+			this.classType = classType;
+			this.db = db;
+		}
+
+	    /**
+	     * Build with a hash index on a field for getAllByIndex
+	     * @param field field name or column name
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withIndex(String field) {
+			this.hashIndexes.add(field);
+			return this;
+		}
+
+	    /**
+	     * Build with a sorted index on a field for getAllByIndex and getRangeByIndex. Field values must be Comparable
+	     * @param field field name or column name
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withSortedIndex(String field) {
+			this.sortedIndexes.add(field);
+			return this;
+		}
+
+	    /**
+	     * Build with the time between background refreshes
+	     * @param refreshInterval Time in milliseconds, 0 to only refresh on demand
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withRefreshInterval(long refreshInterval) {
+			this.refreshInterval = refreshInterval;
+			return this;
+		}
+
+	    /**
+	     * Build with the number of token ranges read by each background refresh, spreading a full pass over several intervals
+	     * @param refreshRanges token ranges per refresh, 0 for all
+	     * @return Reference to Builder object
+	     */
+		public Builder<T> withRefreshRanges(int refreshRanges) {
+			this.refreshRanges = refreshRanges;
+			return this;
+		}
+
+	    /**
+	     * Build the defined ReferenceTable, loading the whole table
+	     * @return ReferenceTable Loaded table
+	     * @throws DriverException - Driver exception mapped to error code
+	     */
+		public ReferenceTable<T> build() throws DriverException {
+			if(refreshInterval < 0 || refreshRanges < 0) {
+				throw new DriverException(401, "Reference table refresh interval and ranges must not be negative");
+			}
+			return new ReferenceTable<T>(this);
+		}
+	}
+
+    /**
+     * Rows of a token range with the digest of their contents
+     */
+    private static class Segment<T> {
+        private final List<T> rows;
+        private final long digest;
+
+        private Segment(List<T> rows, long digest) {
+            this.rows = rows;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Immutable indexes over every segment, replaced as a whole on change
+     */
+    private static class Snapshot<T> {
+        private final Map<CacheKey, T> byKey = new HashMap<CacheKey, T>();
+        private final Map<CacheKey, List<T>> byPartition = new HashMap<CacheKey, List<T>>();
+        private final Map<Field, Map<Object, List<T>>> indexes = new HashMap<Field, Map<Object, List<T>>>();
+        private final List<T> rows = new ArrayList<T>();
+    }
+
+    private static final long DEFAULT_REFRESH_INTERVAL = 5*60*1000;
+
+    private final static Logger logger = LoggerFactory.getLogger(ReferenceTable.class);
+
+    private final Class<T> classType;
+    private final CassandraDriver db;
+    private final List<Field> keyFields;
+    private final int partitionKeySize;
+    private final List<Field> hashIndexFields;
+    private final List<Field> sortedIndexFields;
+    private final int refreshRanges;
+    private final ScheduledExecutorService refresher;
+
+    //Refresh state, guarded by this
+    private List<TokenRange> ranges;
+    private final List<Segment<T>> segments;
+    private int refreshCursor;
+
+    private volatile Snapshot<T> snapshot;
+    private volatile long lastRefresh;
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong swapCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    /**
+     * Initializes the table from a builder and loads every token range
+     * @param builder configured builder
+     */
+    private ReferenceTable(Builder<T> builder) {
+        this.classType = builder.classType;
+        this.db = builder.db;
+        this.keyFields = db.getKeyFields(classType);
+        this.partitionKeySize = db.getPartitionKeyFields(classType).size();
+        this.hashIndexFields = resolveFields(builder.hashIndexes);
+        this.sortedIndexFields = resolveFields(builder.sortedIndexes);
+        this.refreshRanges = builder.refreshRanges;
+        this.segments = new ArrayList<Segment<T>>();
+        this.ranges = Collections.emptyList();
+        refresh();
+        if(builder.refreshInterval > 0) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ReferenceTable-"+classType.getSimpleName()+"-%d").build());
+            this.refresher.scheduleWithFixedDelay(this::backgroundRefresh, builder.refreshInterval, builder.refreshInterval, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.refresher = null;
+        }
+    }
+
+    /**
+     * ReferenceTable Builder. Please refer to builder docs for details
+     * @param classType Type of class to hold
+     * @param db Database connection to use
+     * @param <T> Domain Object for results
+     * @return builder Instance of ReferenceTable.Builder
+     */
+    public static <T extends AbstractCassandraTable> ReferenceTable.Builder<T> builder(Class<T> classType, CassandraDriver db) {
+        return new ReferenceTable.Builder<T>(classType, db);
+    }
+
+    /**
+     * Get an object by passing an instance of the given object with the key populated
+     * @param o Object containing keys populated
+     * @return Object or null if missing
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public T getById(T o) throws DriverException {
+        return snapshot.byKey.get(CacheKey.of(db.getFieldValues(o, keyFields).toArray()));
+    }
+
+    /**
+     * Check if an object exists by passing an instance of the given object with the key populated
+     * @param o Object containing keys populated
+     * @return true if the object exists
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public boolean existsById(T o) throws DriverException {
+        return getById(o) != null;
+    }
+
+    /**
+     * Get all objects of a partition by passing an instance of the given object with the partition key and optionally leading
+     * clustering keys populated
+     * @param o Object containing keys populated
+     * @return Unmodifiable list of objects in clustering order
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public List<T> getAllById(T o) throws DriverException {
+        List<Object> keyValues = db.getFieldValues(o, keyFields);
+        List<T> partition = snapshot.byPartition.get(CacheKey.of(keyValues.subList(0, partitionKeySize).toArray()));
+        if(partition == null) {
+            return Collections.emptyList();
+        }
+        int prefix = partitionKeySize;
+        while(prefix < keyValues.size() && keyValues.get(prefix) != null) {
+            prefix++;
+        }
+        if(prefix == partitionKeySize) {
+            return Collections.unmodifiableList(partition);
+        }
+        List<T> matches = new ArrayList<T>();
+        for(T row : partition) {
+            if(db.getFieldValues(row, keyFields.subList(partitionKeySize, prefix)).equals(keyValues.subList(partitionKeySize, prefix))) {
+                matches.add(row);
+            }
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Get all objects with an indexed field equal to a value
+     * @param field indexed field name or column name
+     * @param value value to match
+     * @return Unmodifiable list of objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public List<T> getAllByIndex(String field, Object value) throws DriverException {
+        List<T> rows = getIndex(field).get(value);
+        return rows == null ? Collections.emptyList() : Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Get all objects with a sorted index field in a range, ordered by the field
+     * @param field sorted index field name or column name
+     * @param from inclusive lower bound or null for unbounded
+     * @param to exclusive upper bound or null for unbounded
+     * @return Unmodifiable list of objects
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public List<T> getRangeByIndex(String field, Object from, Object to) throws DriverException {
+        Map<Object, List<T>> index = getIndex(field);
+        if(!(index instanceof NavigableMap)) {
+            throw new DriverException(303, field+" is not a sorted index of "+classType.getName());
+        }
+        NavigableMap<Object, List<T>> range = (NavigableMap<Object, List<T>>) index;
+        if(from != null) {
+            range = range.tailMap(from, true);
+        }
+        if(to != null) {
+            range = range.headMap(to, false);
+        }
+        List<T> rows = new ArrayList<T>();
+        for(List<T> values : range.values()) {
+            rows.addAll(values);
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Get every object in token order
+     * @return Unmodifiable list of objects
+     */
+    public List<T> getAll() {
+        return Collections.unmodifiableList(snapshot.rows);
+    }
+
+    /**
+     * Get the number of rows held
+     * @return number of rows
+     */
+    public int size() {
+        return snapshot.rows.size();
+    }
+
+    /**
+     * Get the time of the last successful refresh
+     * @return Time in milliseconds
+     */
+    public long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Get the number of successful refreshes including the initial load
+     * @return refreshes
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Get the number of times changed rows were swapped in, including the initial load
+     * @return swaps
+     */
+    public long getSwapCount() {
+        return swapCount.get();
+    }
+
+    /**
+     * Get the number of background refreshes that failed. The previous snapshot is kept on failure
+     * @return failed refreshes
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    /**
+     * Read the next batch of token ranges, or every range if the cluster token ranges changed, and swap in new indexes if any
+     * range changed
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    public synchronized void refresh() throws DriverException {
+        List<TokenRange> current = db.getScanRanges(classType);
+        boolean changed = false;
+        if(!current.equals(ranges)) {
+            logger.debug("ReferenceTable <{}> Loading {} token ranges", this.classType, current.size());
+            List<Segment<T>> loaded = readSegments(current);
+            ranges = current;
+            segments.clear();
+            segments.addAll(loaded);
+            refreshCursor = 0;
+            changed = true;
+        }
+        else if(!ranges.isEmpty()) {
+            int batch = refreshRanges > 0 ? Math.min(refreshRanges, ranges.size()) : ranges.size();
+            List<Integer> positions = new ArrayList<Integer>(batch);
+            List<TokenRange> batchRanges = new ArrayList<TokenRange>(batch);
+            for(int i=0;i<batch;i++) {
+                int position = (refreshCursor + i) % ranges.size();
+                positions.add(position);
+                batchRanges.add(ranges.get(position));
+            }
+            List<Segment<T>> read = readSegments(batchRanges);
+            for(int i=0;i<batch;i++) {
+                if(read.get(i).digest != segments.get(positions.get(i)).digest) {
+                    segments.set(positions.get(i), read.get(i));
+                    changed = true;
+                }
+            }
+            refreshCursor = (refreshCursor + batch) % ranges.size();
+        }
+        if(changed) {
+            snapshot = buildSnapshot();
+            swapCount.incrementAndGet();
+            logger.debug("ReferenceTable <{}> Swapped in {} rows", this.classType, snapshot.rows.size());
+        }
+        lastRefresh = System.currentTimeMillis();
+        refreshCount.incrementAndGet();
+    }
+
+    /**
+     * Stop background refreshes. Lookups keep answering from the last snapshot
+     */
+    public void close() {
+        if(refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Private function run by the refresher to refresh and count failures
+     */
+    private void backgroundRefresh() {
+        try {
+            refresh();
+        }
+        catch (Exception e) {
+            refreshFailureCount.incrementAndGet();
+            logger.warn("ReferenceTable <{}> Refresh failed, keeping the previous rows", this.classType, e);
+        }
+    }
+
+    /**
+     * Private function to read token ranges into segments
+     * @param toRead token ranges
+     * @return segments in the same order as ranges
+     */
+    private List<Segment<T>> readSegments(List<TokenRange> toRead) {
+        List<ResultSet> results = db.scanTokenRanges(classType, toRead);
+        List<Segment<T>> read = new ArrayList<Segment<T>>(results.size());
+        for(ResultSet result : results) {
+            List<Row> rows = new ArrayList<Row>();
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            for(Row row : result) {
+                rows.add(row);
+                for(int i=0;i<row.getColumnDefinitions().size();i++) {
+                    ByteBuffer bytes = row.getBytesUnsafe(i);
+                    if(bytes == null) {
+                        hasher.putInt(-1);
+                    }
+                    else {
+                        byte[] value = new byte[bytes.remaining()];
+                        bytes.duplicate().get(value);
+                        hasher.putInt(value.length).putBytes(value);
+                    }
+                }
+            }
+            read.add(new Segment<T>(db.mapRows(classType, result, rows), hasher.hash().asLong()));
+        }
+        return read;
+    }
+
+    /**
+     * Private function to build indexes over every segment
+     * @return new snapshot
+     */
+    private Snapshot<T> buildSnapshot() {
+        Snapshot<T> built = new Snapshot<T>();
+        for(Field field : hashIndexFields) {
+            built.indexes.put(field, new HashMap<Object, List<T>>());
+        }
+        for(Field field : sortedIndexFields) {
+            built.indexes.put(field, new TreeMap<Object, List<T>>());
+        }
+        for(Segment<T> segment : segments) {
+            for(T row : segment.rows) {
+                List<Object> keyValues = db.getFieldValues(row, keyFields);
+                built.rows.add(row);
+                built.byKey.put(CacheKey.of(keyValues.toArray()), row);
+                built.byPartition.computeIfAbsent(CacheKey.of(keyValues.subList(0, partitionKeySize).toArray()), k -> new ArrayList<T>()).add(row);
+                for(Map.Entry<Field, Map<Object, List<T>>> index : built.indexes.entrySet()) {
+                    Object value = db.getFieldValues(row, Collections.singletonList(index.getKey())).get(0);
+                    if(value != null) {
+                        index.getValue().computeIfAbsent(value, k -> new ArrayList<T>()).add(row);
+                    }
+                }
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Private function to get the index of a field
+     * @param name field name or column name
+     * @return index
+     */
+    private Map<Object, List<T>> getIndex(String name) {
+        for(Map.Entry<Field, Map<Object, List<T>>> index : snapshot.indexes.entrySet()) {
+            if(matches(index.getKey(), name)) {
+                return index.getValue();
+            }
+        }
+        throw new DriverException(303, name+" is not an index of "+classType.getName());
+    }
+
+    /**
+     * Private function to resolve index names to fields
+     * @param names field names or column names
+     * @return fields in the same order
+     */
+    private List<Field> resolveFields(List<String> names) {
+        List<Field> fields = new ArrayList<Field>(names.size());
+        for(String name : names) {
+            Field found = null;
+            for(Field field : CassandraDriver.getMappedFields(classType)) {
+                if(matches(field, name)) {
+                    found = field;
+                }
+            }
+            if(found == null) {
+                throw new DriverException(303, "Unknown column "+name+" for "+classType.getName());
+            }
+            fields.add(found);
+        }
+        return fields;
+    }
+
+    /**
+     * Private function to check if a field has a name or column name
+     * @param field mapped field
+     * @param name field name or column name
+     * @return true if matching
+     */
+    private static boolean matches(Field field, String name) {
+        return field.getName().equals(name) || (field.isAnnotationPresent(Column.class) && field.getAnnotation(Column.class).name().equals(name));
+    }
+}
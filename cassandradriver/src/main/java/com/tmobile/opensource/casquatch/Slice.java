@@ -0,0 +1,246 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+/**
+ * Defines a range of clustering values within a partition along with ordering and limits. Build with Slice.builder(). Slices are
+ * immutable so one may be shared, and changing the builder afterwards does not affect slices already built
+ *
+ * @version 1.3
+ */
+public class Slice {
+
+	/**
+	 * Order of returned rows
+	 */
+	public enum Order {
+		ASC,
+		DESC
+	}
+
+	public static class Builder {
+		private String column;
+		private Object from;
+		private boolean fromInclusive;
+		private Object to;
+		private boolean toInclusive;
+		private Order order;
+		private Integer limit;
+		private Integer perPartitionLimit;
+		private Integer fetchSize;
+
+	    /**
+	     * Slice Builder constructor. Defaults to the whole partition in clustering order
+	     */
+		public Builder() {
+		}
+
+	    /**
+	     * Build with the clustering column to range over. Defaults to the first clustering column not populated in the key object
+	     * @param column field or column name
+	     * @return Reference to Builder object
+	     */
+		public Builder withColumn(String column) {
+			this.column = column;
+			return this;
+		}
+
+	    /**
+	     * Build with a lower bound
+	     * @param value lower bound value
+	     * @param inclusive true to include rows equal to the bound
+	     * @return Reference to Builder object
+	     */
+		public Builder withFrom(Object value, boolean inclusive) {
+			this.from = value;
+			this.fromInclusive = inclusive;
+			return this;
+		}
+
+	    /**
+	     * Build with an upper bound
+	     * @param value upper bound value
+	     * @param inclusive true to include rows equal to the bound
+	     * @return Reference to Builder object
+	     */
+		public Builder withTo(Object value, boolean inclusive) {
+			this.to = value;
+			this.toInclusive = inclusive;
+			return this;
+		}
+
+	    /**
+	     * Build with rows returned in ascending clustering value order
+	     * @return Reference to Builder object
+	     */
+		public Builder withAscending() {
+			this.order = Order.ASC;
+			return this;
+		}
+
+	    /**
+	     * Build with rows returned in descending clustering value order
+	     * @return Reference to Builder object
+	     */
+		public Builder withDescending() {
+			this.order = Order.DESC;
+			return this;
+		}
+
+	    /**
+	     * Build with a limit on the total number of rows
+	     * @param limit max rows
+	     * @return Reference to Builder object
+	     */
+		public Builder withLimit(int limit) {
+			this.limit = limit;
+			return this;
+		}
+
+	    /**
+	     * Build with a limit on the number of rows per partition
+	     * @param perPartitionLimit max rows per partition
+	     * @return Reference to Builder object
+	     */
+		public Builder withPerPartitionLimit(int perPartitionLimit) {
+			this.perPartitionLimit = perPartitionLimit;
+			return this;
+		}
+
+	    /**
+	     * Build with a page size used when streaming or paging
+	     * @param fetchSize rows per page
+	     * @return Reference to Builder object
+	     */
+		public Builder withFetchSize(int fetchSize) {
+			this.fetchSize = fetchSize;
+			return this;
+		}
+
+	    /**
+	     * Build the defined Slice
+	     * @return Slice Configured slice object
+	     */
+		public Slice build() {
+			return new Slice(this);
+		}
+	}
+
+	private final String column;
+	private final Object from;
+	private final boolean fromInclusive;
+	private final Object to;
+	private final boolean toInclusive;
+	private final Order order;
+	private final Integer limit;
+	private final Integer perPartitionLimit;
+	private final Integer fetchSize;
+
+    /**
+     * Initializes the slice from the current settings of a builder
+     * @param builder configured builder
+     */
+	private Slice(Builder builder) {
+		this.column = builder.column;
+		this.from = builder.from;
+		this.fromInclusive = builder.fromInclusive;
+		this.to = builder.to;
+		this.toInclusive = builder.toInclusive;
+		this.order = builder.order;
+		this.limit = builder.limit;
+		this.perPartitionLimit = builder.perPartitionLimit;
+		this.fetchSize = builder.fetchSize;
+	}
+
+    /**
+     * Slice Builder. Please refer to builder docs for details
+     * @return builder Instance of Slice.Builder
+     */
+	public static Slice.Builder builder() {
+		return new Slice.Builder();
+	}
+
+    /**
+     * Get the clustering column to range over
+     * @return field or column name, null for the default
+     */
+	public String getColumn() {
+		return column;
+	}
+
+    /**
+     * Get the lower bound
+     * @return lower bound value or null if unbounded
+     */
+	public Object getFrom() {
+		return from;
+	}
+
+    /**
+     * Check if the lower bound is inclusive
+     * @return true if inclusive
+     */
+	public boolean isFromInclusive() {
+		return fromInclusive;
+	}
+
+    /**
+     * Get the upper bound
+     * @return upper bound value or null if unbounded
+     */
+	public Object getTo() {
+		return to;
+	}
+
+    /**
+     * Check if the upper bound is inclusive
+     * @return true if inclusive
+     */
+	public boolean isToInclusive() {
+		return toInclusive;
+	}
+
+    /**
+     * Get the order of returned rows
+     * @return order or null for the table clustering order
+     */
+	public Order getOrder() {
+		return order;
+	}
+
+    /**
+     * Get the limit on the total number of rows
+     * @return limit or null for none
+     */
+	public Integer getLimit() {
+		return limit;
+	}
+
+    /**
+     * Get the limit on the number of rows per partition
+     * @return limit or null for none
+     */
+	public Integer getPerPartitionLimit() {
+		return perPartitionLimit;
+	}
+
+    /**
+     * Get the page size
+     * @return fetch size or null for the driver default
+     */
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+}
@@ -0,0 +1,64 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import java.util.List;
+
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+
+/**
+ * A single page of a slice query along with the state required to fetch the next page
+ *
+ * @version 1.3
+ */
+public class SlicePage<T extends AbstractCassandraTable> {
+
+    private final List<T> rows;
+    private final String pagingState;
+
+    /**
+     * Initializes the page
+     * @param rows rows of this page
+     * @param pagingState paging state of the next page or null if this is the last page
+     */
+    public SlicePage(List<T> rows, String pagingState) {
+        this.rows = rows;
+        this.pagingState = pagingState;
+    }
+
+    /**
+     * Get the rows of this page
+     * @return List of Objects
+     */
+    public List<T> getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the paging state to pass back for the next page
+     * @return paging state or null if this is the last page
+     */
+    public String getPagingState() {
+        return pagingState;
+    }
+
+    /**
+     * Check if there is another page
+     * @return true if another page is available
+     */
+    public boolean hasNext() {
+        return pagingState != null;
+    }
+}
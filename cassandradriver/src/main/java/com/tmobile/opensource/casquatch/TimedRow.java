@@ -0,0 +1,76 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch;
+
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+
+/**
+ * An object read along with the remaining TTL and write time of one of its columns
+ *
+ * @version 1.3
+ */
+public class TimedRow<T extends AbstractCassandraTable> {
+
+    private final T row;
+    private final Integer ttl;
+    private final Long writeTime;
+    private final long readAt;
+
+    /**
+     * Initializes the row
+     * @param row object read
+     * @param ttl remaining TTL in seconds or null if the column does not expire
+     * @param writeTime write time in microseconds since epoch or null if the column is null
+     * @param readAt Time in milliseconds the row was read
+     */
+    public TimedRow(T row, Integer ttl, Long writeTime, long readAt) {
+        this.row = row;
+        this.ttl = ttl;
+        this.writeTime = writeTime;
+        this.readAt = readAt;
+    }
+
+    /**
+     * Get the object read
+     * @return Object
+     */
+    public T getRow() {
+        return row;
+    }
+
+    /**
+     * Get the remaining TTL of the column when it was read
+     * @return TTL in seconds or null if the column does not expire
+     */
+    public Integer getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Get the write time of the column
+     * @return write time in microseconds since epoch or null if the column is null
+     */
+    public Long getWriteTime() {
+        return writeTime;
+    }
+
+    /**
+     * Get the time the column expires on the server
+     * @return Time in milliseconds or Long.MAX_VALUE if the column does not expire
+     */
+    public long getExpiresAt() {
+        return ttl != null ? readAt + ttl*1000L : Long.MAX_VALUE;
+    }
+}
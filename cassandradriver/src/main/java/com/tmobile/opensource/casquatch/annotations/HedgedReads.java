@@ -0,0 +1,52 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model as hedging reads to a remote data center inside CassandraDriver. When getById, existsById or getAllById has not
+ * been answered by the local data center within a percentile of recent local latency, the same read is sent to the nearest
+ * remote data center and the first answer is used. Hedges are capped at a fraction of reads.
+ *
+ * @version 1.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface HedgedReads {
+
+    /**
+     * Percentile of recent local read latency to wait before hedging
+     * @return percentile between 0 and 1
+     */
+    double percentile() default 0.99;
+
+    /**
+     * Largest fraction of reads that may be hedged
+     * @return budget between 0 and 1
+     */
+    double budget() default 0.05;
+
+    /**
+     * Shortest time in milliseconds to wait before hedging
+     * @return minimum delay
+     */
+    long minDelay() default 5;
+}
@@ -0,0 +1,58 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model as having a client side Bloom filter of its partition keys inside CassandraDriver. getById, existsById and
+ * getByIds skip the database for keys the filter reports as definitely absent. The filter is built by a token range scan of the
+ * partition keys, updated by saves through the same driver, and rebuilt periodically to pick up writes made elsewhere.
+ *
+ * @version 1.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface KeyFilter {
+
+    /**
+     * Number of partition keys the filter is sized for
+     * @return expected keys
+     */
+    long expectedKeys() default 1000000;
+
+    /**
+     * False positive rate at the expected number of keys
+     * @return false positive rate between 0 and 1
+     */
+    double falsePositiveRate() default 0.01;
+
+    /**
+     * Largest size of the filter in bytes. A smaller cap raises the false positive rate
+     * @return maximum bytes, 0 for no cap
+     */
+    long maxBytes() default 0;
+
+    /**
+     * Time in milliseconds between rebuilds
+     * @return rebuild interval
+     */
+    long rebuildInterval() default 3600000;
+}
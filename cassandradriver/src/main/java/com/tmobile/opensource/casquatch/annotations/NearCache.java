@@ -0,0 +1,45 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model as served from a per class near cache inside CassandraDriver. getById, existsById and getByIds read through the
+ * cache, and save, saveAll and delete through the same driver invalidate the keys they write.
+ *
+ * @version 1.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface NearCache {
+
+    /**
+     * Time in milliseconds an entry is served before it is read again
+     * @return time to live
+     */
+    long ttl() default 60000;
+
+    /**
+     * Maximum number of keys cached, including keys recorded as not existing
+     * @return maximum size
+     */
+    long maxSize() default 10000;
+}
@@ -0,0 +1,547 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Concurrent size bounded map with per entry expiration and W-TinyLFU eviction.
+ *
+ * New entries enter a small LRU window. Entries leaving the window compete with the least recently used entry of the main
+ * region for admission based on a frequency sketch. The main region is a segmented LRU split into probation and protected.
+ *
+ * Reads never block. Accesses are recorded in a lossy ring buffer and replayed against the policy under a try lock, writes apply
+ * their policy changes under the eviction lock.
+ *
+ * Expired entries are removed in amortized O(1) by a hierarchical timer wheel advanced during maintenance, which runs on reads and
+ * writes and periodically on a shared low priority thread so idle caches shrink too.
+ *
+ * @version 1.3
+ */
+public class BoundedCache<K,V> {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+
+    private final ConcurrentHashMap<K,CacheEntry<K,V>> map;
+    private final long maximum;
+    private final ToIntFunction<? super V> weigher;
+    private final long staleRetention;
+    private volatile RemovalListener<K,V> removalListener;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final EntryDeque<K,V> window = new EntryDeque<>();
+    private final EntryDeque<K,V> probation = new EntryDeque<>();
+    private final EntryDeque<K,V> protectedDeque = new EntryDeque<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+
+    private final AtomicReferenceArray<CacheEntry<K,V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    private volatile long readBufferReads;
+    private final ConcurrentLinkedQueue<CacheEntry<K,V>> pendingRemovals = new ConcurrentLinkedQueue<>();
+    private final TimerWheel<K,V> timerWheel;
+
+    /**
+     * Initializes the cache bounded by entry count
+     * @param maximumSize maximum number of entries
+     */
+    public BoundedCache(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * Initializes the cache bounded by total weight
+     * @param maximumWeight maximum total weight
+     * @param weigher function to weigh a value, null to weigh every entry as 1
+     */
+    public BoundedCache(long maximumWeight, ToIntFunction<? super V> weigher) {
+        this(maximumWeight, weigher, 0);
+    }
+
+    /**
+     * Initializes the cache bounded by total weight, keeping entries readable for a period after they expire
+     * @param maximumWeight maximum total weight
+     * @param weigher function to weigh a value, null to weigh every entry as 1
+     * @param staleRetention time in milliseconds an expired entry is still returned by getEntry
+     */
+    public BoundedCache(long maximumWeight, ToIntFunction<? super V> weigher, long staleRetention) {
+        if(maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum must be positive");
+        }
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        this.staleRetention = Math.max(0, staleRetention);
+        this.map = new ConcurrentHashMap<>();
+        this.sketch = new FrequencySketch(weigher == null ? maximumWeight : Math.min(maximumWeight, 1 << 16));
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+        this.timerWheel = new TimerWheel<>(this.staleRetention, System.currentTimeMillis());
+        CacheMaintenance.register(this);
+    }
+
+    /**
+     * Get a live entry without blocking. With stale retention the entry may have expired, callers check CacheEntry.isExpired
+     * @param key key to look up
+     * @return entry or null if absent or expired past the stale retention
+     */
+    public CacheEntry<K,V> getEntry(K key) {
+        CacheEntry<K,V> entry = map.get(key);
+        if(entry == null) {
+            return null;
+        }
+        if(entry.isExpired(System.currentTimeMillis() - staleRetention)) {
+            if(map.remove(key, entry)) {
+                pendingRemovals.add(entry);
+                notifyRemoval(entry, RemovalListener.Cause.EXPIRED);
+                tryMaintenance();
+            }
+            return null;
+        }
+        recordRead(entry);
+        return entry;
+    }
+
+    /**
+     * Insert or replace an entry
+     * @param key key of the entry
+     * @param value value to store, may be null
+     * @param expiresAt time in milliseconds the entry expires
+     * @return the new entry
+     */
+    public CacheEntry<K,V> put(K key, V value, long expiresAt) {
+        int weight = (weigher == null || value == null) ? 1 : Math.max(0, weigher.applyAsInt(value));
+        CacheEntry<K,V> entry = new CacheEntry<>(key, value, weight, System.currentTimeMillis(), expiresAt);
+        CacheEntry<K,V> previous = map.put(key, entry);
+        evictionLock.lock();
+        try {
+            if(previous != null) {
+                unlink(previous);
+                notifyRemoval(previous, RemovalListener.Cause.REPLACED);
+            }
+            //A concurrent put may already have replaced this entry
+            if(map.get(key) == entry) {
+                link(entry);
+            }
+            maintenance();
+        }
+        finally {
+            evictionLock.unlock();
+        }
+        return entry;
+    }
+
+    /**
+     * Remove an entry
+     * @param key key to remove
+     * @return removed entry or null if absent
+     */
+    public CacheEntry<K,V> remove(K key) {
+        CacheEntry<K,V> entry = map.remove(key);
+        if(entry != null) {
+            evictionLock.lock();
+            try {
+                unlink(entry);
+            }
+            finally {
+                evictionLock.unlock();
+            }
+            notifyRemoval(entry, RemovalListener.Cause.EXPLICIT);
+        }
+        return entry;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for(CacheEntry<K,V> entry : map.values()) {
+                if(map.remove(entry.getKey(), entry)) {
+                    notifyRemoval(entry, RemovalListener.Cause.EXPLICIT);
+                }
+            }
+            pendingRemovals.clear();
+            drainReadBuffer();
+            timerWheel.clear();
+            for(EntryDeque<K,V> deque : Arrays.asList(window, probation, protectedDeque)) {
+                for(CacheEntry<K,V> entry = deque.pollFirst(); entry != null; entry = deque.pollFirst()) {
+                    entry.queue = CacheEntry.NONE;
+                }
+            }
+            windowWeight = 0;
+            protectedWeight = 0;
+            weightedSize = 0;
+        }
+        finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Get the entries ordered from most to least valuable to keep: protected, then window, then probation, each most recent first
+     * @return list of entries, may include expired entries
+     */
+    public List<CacheEntry<K,V>> entries() {
+        return entries(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get up to a number of the most valuable entries, in the order of entries(). Only the returned entries are copied while the
+     * eviction lock is held
+     * @param limit max number of entries
+     * @return list of entries, may include expired entries
+     */
+    public List<CacheEntry<K,V>> entries(int limit) {
+        List<CacheEntry<K,V>> entries = new ArrayList<CacheEntry<K,V>>(Math.min(limit, 16));
+        evictionLock.lock();
+        try {
+            maintenance();
+            for(EntryDeque<K,V> deque : Arrays.asList(protectedDeque, window, probation)) {
+                for(CacheEntry<K,V> entry = deque.peekLast(); entry != null && entries.size() < limit; entry = entry.prev) {
+                    entries.add(entry);
+                }
+            }
+        }
+        finally {
+            evictionLock.unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Set the listener notified when entries leave the cache
+     * @param removalListener listener or null for none
+     */
+    public void setRemovalListener(RemovalListener<K,V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Replay pending reads and removals, remove expired entries and evict if required
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        }
+        finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of entries, including expired entries not yet removed
+     * @return number of entries
+     */
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * Get the total weight of the entries
+     * @return weighted size
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Get the maximum size or weight
+     * @return maximum
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Record a read in the lossy buffer, draining if it is getting full
+     * @param entry entry read
+     */
+    private void recordRead(CacheEntry<K,V> entry) {
+        long writes = readBufferWrites.get();
+        long pending = writes - readBufferReads;
+        if(pending < READ_BUFFER_SIZE && readBufferWrites.compareAndSet(writes, writes + 1)) {
+            readBuffer.lazySet((int) (writes & READ_BUFFER_MASK), entry);
+            if(pending + 1 >= READ_BUFFER_DRAIN_THRESHOLD) {
+                tryMaintenance();
+            }
+        }
+        else {
+            //Buffer full or contended, the read is dropped
+            tryMaintenance();
+        }
+    }
+
+    /**
+     * Run maintenance if nobody else is
+     */
+    void tryMaintenance() {
+        if(evictionLock.tryLock()) {
+            try {
+                maintenance();
+            }
+            finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Apply buffered reads and removals, expire then evict. Requires the eviction lock
+     */
+    private void maintenance() {
+        drainReadBuffer();
+        for(CacheEntry<K,V> entry = pendingRemovals.poll(); entry != null; entry = pendingRemovals.poll()) {
+            unlink(entry);
+        }
+        timerWheel.advance(System.currentTimeMillis(), this::expireEntry);
+        evict();
+    }
+
+    /**
+     * Replay buffered reads against the policy. Requires the eviction lock
+     */
+    private void drainReadBuffer() {
+        long writes = readBufferWrites.get();
+        long reads = readBufferReads;
+        for(; reads < writes; reads++) {
+            int index = (int) (reads & READ_BUFFER_MASK);
+            CacheEntry<K,V> entry = readBuffer.get(index);
+            if(entry == null) {
+                //Slot claimed but not yet published
+                break;
+            }
+            readBuffer.lazySet(index, null);
+            onAccess(entry);
+        }
+        readBufferReads = reads;
+    }
+
+    /**
+     * Reorder an entry after a read. Requires the eviction lock
+     * @param entry entry read
+     */
+    private void onAccess(CacheEntry<K,V> entry) {
+        sketch.increment(entry.getKey());
+        switch(entry.queue) {
+            case CacheEntry.WINDOW:
+                window.moveToBack(entry);
+                break;
+            case CacheEntry.PROBATION:
+                probation.remove(entry);
+                entry.queue = CacheEntry.PROTECTED;
+                protectedDeque.addLast(entry);
+                protectedWeight += entry.getWeight();
+                while(protectedWeight > protectedMaximum) {
+                    CacheEntry<K,V> demoted = protectedDeque.pollFirst();
+                    protectedWeight -= demoted.getWeight();
+                    demoted.queue = CacheEntry.PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            case CacheEntry.PROTECTED:
+                protectedDeque.moveToBack(entry);
+                break;
+            default:
+                //Removed since the read
+                break;
+        }
+    }
+
+    /**
+     * Add a new entry to the window. Requires the eviction lock
+     * @param entry entry to add
+     */
+    private void link(CacheEntry<K,V> entry) {
+        sketch.increment(entry.getKey());
+        entry.queue = CacheEntry.WINDOW;
+        window.addLast(entry);
+        windowWeight += entry.getWeight();
+        weightedSize += entry.getWeight();
+        timerWheel.schedule(entry);
+    }
+
+    /**
+     * Remove an entry from the policy. Requires the eviction lock
+     * @param entry entry to remove
+     */
+    private void unlink(CacheEntry<K,V> entry) {
+        timerWheel.deschedule(entry);
+        switch(entry.queue) {
+            case CacheEntry.WINDOW:
+                window.remove(entry);
+                windowWeight -= entry.getWeight();
+                break;
+            case CacheEntry.PROBATION:
+                probation.remove(entry);
+                break;
+            case CacheEntry.PROTECTED:
+                protectedDeque.remove(entry);
+                protectedWeight -= entry.getWeight();
+                break;
+            default:
+                return;
+        }
+        entry.queue = CacheEntry.NONE;
+        weightedSize -= entry.getWeight();
+    }
+
+    /**
+     * Move window overflow into probation then evict until under the maximum, letting the sketch decide between each
+     * candidate and the probation victim. Requires the eviction lock
+     */
+    private void evict() {
+        int candidates = 0;
+        while(windowWeight > windowMaximum) {
+            CacheEntry<K,V> candidate = window.pollFirst();
+            windowWeight -= candidate.getWeight();
+            candidate.queue = CacheEntry.PROBATION;
+            probation.addLast(candidate);
+            candidates++;
+        }
+        while(weightedSize > maximum) {
+            CacheEntry<K,V> victim = probation.peekFirst();
+            if(victim == null) {
+                victim = protectedDeque.peekFirst();
+            }
+            if(victim == null) {
+                victim = window.peekFirst();
+            }
+            CacheEntry<K,V> candidate = candidates > 0 ? probation.peekLast() : null;
+            if(candidate == null || candidate == victim || victim.queue != CacheEntry.PROBATION) {
+                evictEntry(victim);
+                if(victim == candidate) {
+                    candidates--;
+                }
+            }
+            else if(sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+                evictEntry(victim);
+            }
+            else {
+                evictEntry(candidate);
+                candidates--;
+            }
+        }
+    }
+
+    /**
+     * Evict an entry from the policy and the map. Requires the eviction lock
+     * @param entry entry to evict
+     */
+    private void evictEntry(CacheEntry<K,V> entry) {
+        unlink(entry);
+        if(map.remove(entry.getKey(), entry)) {
+            notifyRemoval(entry, RemovalListener.Cause.SIZE);
+        }
+    }
+
+    /**
+     * Remove an entry the timer wheel found expired past the stale retention. Requires the eviction lock
+     * @param entry entry to expire
+     */
+    private void expireEntry(CacheEntry<K,V> entry) {
+        unlink(entry);
+        if(map.remove(entry.getKey(), entry)) {
+            notifyRemoval(entry, RemovalListener.Cause.EXPIRED);
+        }
+    }
+
+    /**
+     * Notify the removal listener if one is set
+     * @param entry removed entry
+     * @param cause reason for removal
+     */
+    private void notifyRemoval(CacheEntry<K,V> entry, RemovalListener.Cause cause) {
+        RemovalListener<K,V> listener = removalListener;
+        if(listener != null) {
+            listener.onRemoval(entry, cause);
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list of entries in access order, least recent first
+     */
+    private static class EntryDeque<K,V> {
+        private CacheEntry<K,V> head;
+        private CacheEntry<K,V> tail;
+
+        void addLast(CacheEntry<K,V> entry) {
+            entry.prev = tail;
+            entry.next = null;
+            if(tail == null) {
+                head = entry;
+            }
+            else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        void remove(CacheEntry<K,V> entry) {
+            if(entry.prev == null) {
+                head = entry.next;
+            }
+            else {
+                entry.prev.next = entry.next;
+            }
+            if(entry.next == null) {
+                tail = entry.prev;
+            }
+            else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        void moveToBack(CacheEntry<K,V> entry) {
+            if(entry != tail) {
+                remove(entry);
+                addLast(entry);
+            }
+        }
+
+        CacheEntry<K,V> peekFirst() {
+            return head;
+        }
+
+        CacheEntry<K,V> peekLast() {
+            return tail;
+        }
+
+        CacheEntry<K,V> pollFirst() {
+            CacheEntry<K,V> entry = head;
+            if(entry != null) {
+                remove(entry);
+            }
+            return entry;
+        }
+    }
+}
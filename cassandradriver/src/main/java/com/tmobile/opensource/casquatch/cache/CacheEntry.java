@@ -0,0 +1,108 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * Single cache record holding the value together with its expiration. Entries are immutable once created, replacing a value creates a new entry.
+ *
+ * @version 1.3
+ */
+public class CacheEntry<K,V> {
+
+    static final int NONE = 0;
+    static final int WINDOW = 1;
+    static final int PROBATION = 2;
+    static final int PROTECTED = 3;
+
+    private final K key;
+    private final V value;
+    private final int weight;
+    private final long createdAt;
+    private final long expiresAt;
+
+    //Policy links, guarded by the eviction lock of the owning cache
+    CacheEntry<K,V> prev;
+    CacheEntry<K,V> next;
+    int queue = NONE;
+
+    //Timer wheel links, guarded by the eviction lock of the owning cache
+    CacheEntry<K,V> timerPrev;
+    CacheEntry<K,V> timerNext;
+
+    /**
+     * Initializes the entry
+     * @param key key of the entry
+     * @param value cached value, may be null
+     * @param weight weight of the entry against the cache maximum
+     * @param createdAt time in milliseconds the value was loaded
+     * @param expiresAt time in milliseconds the value expires
+     */
+    public CacheEntry(K key, V value, int weight, long createdAt, long expiresAt) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Get the key
+     * @return key of the entry
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Get the value
+     * @return cached value, may be null
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Get the weight
+     * @return weight of the entry
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Get the time the value was loaded
+     * @return time in milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Get the time the value expires
+     * @return time in milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Check if the entry has expired
+     * @param now current time in milliseconds
+     * @return true if expired
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
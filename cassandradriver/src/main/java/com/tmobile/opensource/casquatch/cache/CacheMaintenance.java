@@ -0,0 +1,88 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared low priority daemon thread running maintenance on every live BoundedCache once a second so expired entries are removed
+ * from caches that are no longer read or written. Caches are held weakly and dropped once collected.
+ *
+ * @version 1.3
+ */
+final class CacheMaintenance {
+
+    private static final long INTERVAL = 1000;
+    private final static Logger logger = LoggerFactory.getLogger(CacheMaintenance.class);
+    private static final ConcurrentLinkedQueue<WeakReference<BoundedCache<?,?>>> caches = new ConcurrentLinkedQueue<>();
+    private static volatile ScheduledExecutorService executor;
+
+    private CacheMaintenance() {}
+
+    /**
+     * Register a cache for periodic maintenance, starting the thread on first use
+     * @param cache cache to maintain
+     */
+    static void register(BoundedCache<?,?> cache) {
+        caches.add(new WeakReference<BoundedCache<?,?>>(cache));
+        if(executor == null) {
+            start();
+        }
+    }
+
+    /**
+     * Private function to start the shared thread once
+     */
+    private static synchronized void start() {
+        if(executor == null) {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "casquatch-cache-maintenance");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(CacheMaintenance::run, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+            executor = scheduler;
+        }
+    }
+
+    /**
+     * Private function to maintain each live cache, skipping any busy with maintenance of its own
+     */
+    private static void run() {
+        Iterator<WeakReference<BoundedCache<?,?>>> iterator = caches.iterator();
+        while(iterator.hasNext()) {
+            BoundedCache<?,?> cache = iterator.next().get();
+            if(cache == null) {
+                iterator.remove();
+                continue;
+            }
+            try {
+                cache.tryMaintenance();
+            }
+            catch (Exception e) {
+                logger.warn("Cache maintenance failed", e);
+            }
+        }
+    }
+}
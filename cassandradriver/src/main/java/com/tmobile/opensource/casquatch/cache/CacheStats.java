@@ -0,0 +1,191 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the statistics of a cache
+ *
+ * @version 1.3
+ */
+public class CacheStats {
+
+    private final String name;
+    private final long hitCount;
+    private final long missCount;
+    private final long negativeHitCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final long size;
+    private final long estimatedBytes;
+    private final long[] loadTimeHistogram;
+
+    /**
+     * Initializes the snapshot
+     * @param name label of the cache
+     * @param hitCount lookups served from the cache
+     * @param missCount lookups not found in the cache
+     * @param negativeHitCount lookups answered by a negative entry
+     * @param loadSuccessCount successful database loads
+     * @param loadFailureCount failed database loads
+     * @param totalLoadTime total time spent loading in nanoseconds
+     * @param evictionCount entries evicted for size
+     * @param expirationCount entries removed because they expired
+     * @param size current number of entries
+     * @param estimatedBytes current estimated memory use
+     * @param loadTimeHistogram count of loads per bucket of StatsCounter.LOAD_TIME_BUCKETS
+     */
+    public CacheStats(String name, long hitCount, long missCount, long negativeHitCount, long loadSuccessCount, long loadFailureCount,
+            long totalLoadTime, long evictionCount, long expirationCount, long size, long estimatedBytes, long[] loadTimeHistogram) {
+        this.name = name;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.negativeHitCount = negativeHitCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.size = size;
+        this.estimatedBytes = estimatedBytes;
+        this.loadTimeHistogram = loadTimeHistogram;
+    }
+
+    /**
+     * Get the label of the cache
+     * @return name, the cached class
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the lookups served from the cache
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the lookups not found in the cache
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the lookups answered by a negative entry
+     * @return negative hit count
+     */
+    public long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+
+    /**
+     * Get the number of database loads
+     * @return load count
+     */
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Get the failed database loads
+     * @return load failure count
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Get the total time spent loading
+     * @return time in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Get the entries evicted for size
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get the entries removed because they expired
+     * @return expiration count
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Get the number of entries
+     * @return size
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the estimated memory use of the values
+     * @return bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Get the count of loads per bucket of StatsCounter.LOAD_TIME_BUCKETS
+     * @return histogram counts
+     */
+    public long[] getLoadTimeHistogram() {
+        return loadTimeHistogram.clone();
+    }
+
+    /**
+     * Get the ratio of lookups served from the cache, counting negative hits as hits
+     * @return hit rate between 0 and 1, 1 if there were no lookups
+     */
+    public double getHitRate() {
+        long requests = hitCount + negativeHitCount + missCount;
+        return requests == 0 ? 1.0 : (double) (hitCount + negativeHitCount) / requests;
+    }
+
+    /**
+     * Get the average time of a load
+     * @return time in milliseconds
+     */
+    public double getAverageLoadMillis() {
+        long loads = getLoadCount();
+        return loads == 0 ? 0.0 : totalLoadTime / 1e6 / loads;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{name="+name+", hitCount="+hitCount+", missCount="+missCount+", negativeHitCount="+negativeHitCount
+                +", loadSuccessCount="+loadSuccessCount+", loadFailureCount="+loadFailureCount+", totalLoadTime="+totalLoadTime
+                +", evictionCount="+evictionCount+", expirationCount="+expirationCount+", size="+size+", estimatedBytes="+estimatedBytes
+                +", loadTimeHistogram="+Arrays.toString(loadTimeHistogram)+"}";
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * CacheStatsMXBean backed by a fresh snapshot on every attribute read. The estimated bytes are only computed when that attribute is
+ * read, since estimating may sample and encode entries
+ *
+ * @version 1.3
+ */
+public class CacheStatsBean implements CacheStatsMXBean {
+
+    private final Supplier<CacheStats> stats;
+    private final LongSupplier estimatedBytes;
+
+    /**
+     * Initializes the bean
+     * @param stats supplier of statistics snapshots, its estimated bytes are not used
+     * @param estimatedBytes supplier of the estimated bytes
+     */
+    public CacheStatsBean(Supplier<CacheStats> stats, LongSupplier estimatedBytes) {
+        this.stats = stats;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    @Override
+    public String getName() {
+        return stats.get().getName();
+    }
+
+    @Override
+    public long getHitCount() {
+        return stats.get().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return stats.get().getMissCount();
+    }
+
+    @Override
+    public long getNegativeHitCount() {
+        return stats.get().getNegativeHitCount();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return stats.get().getLoadCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return stats.get().getLoadFailureCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return stats.get().getEvictionCount();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return stats.get().getExpirationCount();
+    }
+
+    @Override
+    public long getSize() {
+        return stats.get().getSize();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return estimatedBytes.getAsLong();
+    }
+
+    @Override
+    public double getHitRate() {
+        return stats.get().getHitRate();
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        return stats.get().getAverageLoadMillis();
+    }
+
+    @Override
+    public long[] getLoadTimeHistogram() {
+        return stats.get().getLoadTimeHistogram();
+    }
+
+    @Override
+    public long[] getLoadTimeBucketMillis() {
+        return StatsCounter.LOAD_TIME_BUCKETS.clone();
+    }
+}
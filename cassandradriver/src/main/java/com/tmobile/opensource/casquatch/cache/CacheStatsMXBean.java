@@ -0,0 +1,51 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * JMX view of the statistics of a cache
+ *
+ * @version 1.3
+ */
+public interface CacheStatsMXBean {
+
+    String getName();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getNegativeHitCount();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    long getEvictionCount();
+
+    long getExpirationCount();
+
+    long getSize();
+
+    long getEstimatedBytes();
+
+    double getHitRate();
+
+    double getAverageLoadMillis();
+
+    long[] getLoadTimeHistogram();
+
+    long[] getLoadTimeBucketMillis();
+}
@@ -0,0 +1,260 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Memory-mapped file store used as a second cache tier on local disk.
+ *
+ * The file holds a direct mapped index of slots addressed by a 64 bit hash of the key followed by a circular log of records.
+ * A new record whose slot is taken replaces the older one, and old records are overwritten as the log wraps. Records carry their
+ * key so a slot pointing at an overwritten record is detected and treated as a miss. Contents are only valid while open, the file
+ * is recreated on open and deleted on close.
+ *
+ * @version 1.3
+ */
+public class DiskStore implements Closeable {
+
+    private static final int SLOT_SIZE = 16;
+    private static final int BYTES_PER_SLOT = 512;
+    private static final int MIN_SLOTS = 1024;
+    private static final int RECORD_OVERHEAD = 4 + 8 + 8 + 4;
+
+    /**
+     * Record read back from the store
+     */
+    public static class Record {
+        private final byte[] value;
+        private final long createdAt;
+        private final long expiresAt;
+
+        Record(byte[] value, long createdAt, long expiresAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Get the encoded value
+         * @return value bytes
+         */
+        public byte[] getValue() {
+            return value;
+        }
+
+        /**
+         * Get the time the value was loaded
+         * @return time in milliseconds
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * Get the time the value expires
+         * @return time in milliseconds
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotMask;
+    private final int dataStart;
+    private final int dataEnd;
+    private int writePosition;
+
+    /**
+     * Initializes the store, replacing any existing file
+     * @param file backing file
+     * @param capacity size of the file in bytes, at most 2GB
+     * @throws IOException unable to create or map the file
+     */
+    public DiskStore(File file, long capacity) throws IOException {
+        if(capacity <= 0 || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity must be between 1 byte and 2GB");
+        }
+        int slots = Integer.highestOneBit((int) Math.max(MIN_SLOTS, capacity / BYTES_PER_SLOT));
+        if((long) slots * SLOT_SIZE >= capacity) {
+            throw new IllegalArgumentException("Capacity is too small for the index");
+        }
+        this.file = file;
+        this.slotMask = slots - 1;
+        this.dataStart = slots * SLOT_SIZE;
+        this.dataEnd = (int) capacity;
+        this.writePosition = dataStart;
+
+        file.delete();
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.randomAccessFile.setLength(capacity);
+        this.channel = randomAccessFile.getChannel();
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Write a record, replacing any record in the same slot
+     * @param key key of the record
+     * @param value encoded value
+     * @param createdAt time in milliseconds the value was loaded
+     * @param expiresAt time in milliseconds the value expires
+     */
+    public synchronized void put(String key, byte[] value, long createdAt, long expiresAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_OVERHEAD + keyBytes.length + value.length;
+        if(length > dataEnd - dataStart) {
+            return;
+        }
+        if(writePosition + length > dataEnd) {
+            writePosition = dataStart;
+        }
+        int offset = writePosition;
+        buffer.putInt(offset, keyBytes.length);
+        putBytes(offset + 4, keyBytes);
+        int position = offset + 4 + keyBytes.length;
+        buffer.putLong(position, createdAt);
+        buffer.putLong(position + 8, expiresAt);
+        buffer.putInt(position + 16, value.length);
+        putBytes(position + 20, value);
+        writePosition += length;
+
+        long hash = hash(key);
+        int slot = slotOf(hash);
+        buffer.putLong(slot, hash);
+        buffer.putInt(slot + 8, offset);
+        buffer.putInt(slot + 12, length);
+    }
+
+    /**
+     * Read a record
+     * @param key key of the record
+     * @return record or null if absent, overwritten, or expired
+     */
+    public synchronized Record get(String key) {
+        long hash = hash(key);
+        int slot = slotOf(hash);
+        if(buffer.getLong(slot) != hash) {
+            return null;
+        }
+        int offset = buffer.getInt(slot + 8);
+        int length = buffer.getInt(slot + 12);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if(offset < dataStart || length < RECORD_OVERHEAD || offset + length > dataEnd || buffer.getInt(offset) != keyBytes.length
+                || !Arrays.equals(keyBytes, getBytes(offset + 4, keyBytes.length))) {
+            buffer.putLong(slot, 0);
+            return null;
+        }
+        int position = offset + 4 + keyBytes.length;
+        long createdAt = buffer.getLong(position);
+        long expiresAt = buffer.getLong(position + 8);
+        int valueLength = buffer.getInt(position + 16);
+        if(valueLength < 0 || position + 20 + valueLength > offset + length || expiresAt <= System.currentTimeMillis()) {
+            buffer.putLong(slot, 0);
+            return null;
+        }
+        return new Record(getBytes(position + 20, valueLength), createdAt, expiresAt);
+    }
+
+    /**
+     * Remove a record
+     * @param key key of the record
+     */
+    public synchronized void remove(String key) {
+        long hash = hash(key);
+        int slot = slotOf(hash);
+        if(buffer.getLong(slot) == hash) {
+            buffer.putLong(slot, 0);
+        }
+    }
+
+    /**
+     * Remove all records
+     */
+    public synchronized void clear() {
+        for(int slot = 0; slot < dataStart; slot += SLOT_SIZE) {
+            buffer.putLong(slot, 0);
+        }
+        writePosition = dataStart;
+    }
+
+    /**
+     * Close and delete the backing file
+     * @throws IOException unable to close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        randomAccessFile.close();
+        file.delete();
+    }
+
+    /**
+     * Copy bytes into the file
+     * @param position absolute position
+     * @param bytes bytes to write
+     */
+    private void putBytes(int position, byte[] bytes) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.put(bytes);
+    }
+
+    /**
+     * Copy bytes out of the file
+     * @param position absolute position
+     * @param length bytes to read
+     * @return bytes read
+     */
+    private byte[] getBytes(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Position of the index slot for a hash
+     * @param hash key hash
+     * @return absolute position of the slot
+     */
+    private int slotOf(long hash) {
+        return (int) (hash & slotMask) * SLOT_SIZE;
+    }
+
+    /**
+     * 64 bit hash of a key, never 0 as 0 marks an empty slot
+     * @param key key to hash
+     * @return hash
+     */
+    private static long hash(String key) {
+        long hash = Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,56 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps values as live objects. Weighs each entry as 1 unless a weigher is given
+ *
+ * @version 1.3
+ */
+public class ObjectValueStorage<T> implements ValueStorage<T> {
+
+    private final ToIntFunction<? super T> weigher;
+
+    /**
+     * Initializes the storage
+     * @param weigher function to weigh a value, null to weigh every entry as 1
+     */
+    public ObjectValueStorage(ToIntFunction<? super T> weigher) {
+        this.weigher = weigher;
+    }
+
+    @Override
+    public Object store(T value) {
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T load(Object stored) {
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int weigh(Object stored) {
+        return weigher == null ? 1 : Math.max(0, weigher.applyAsInt((T) stored));
+    }
+
+    @Override
+    public void release(Object stored) {
+    }
+}
@@ -0,0 +1,121 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps values encoded in off-heap slabs from a SlabAllocator, outside the view of the garbage collector. Entries are weighed by
+ * their chunk size so the cache maximum should not exceed the allocator capacity.
+ *
+ * Stored values are reference counted. The cache holds one reference and readers take another while copying the bytes out, so a
+ * chunk is only returned to the allocator once the entry has left the cache and no reader is using it.
+ *
+ * @version 1.3
+ */
+public class OffHeapValueStorage<T> implements ValueStorage<T> {
+
+    private final ValueCodec<T> codec;
+    private final SlabAllocator allocator;
+
+    /**
+     * Initializes the storage
+     * @param codec codec used to encode values
+     * @param allocator allocator of off-heap memory
+     */
+    public OffHeapValueStorage(ValueCodec<T> codec, SlabAllocator allocator) {
+        this.codec = codec;
+        this.allocator = allocator;
+    }
+
+    @Override
+    public Object store(T value) {
+        byte[] bytes = codec.encode(value);
+        long handle = allocator.allocate(bytes.length);
+        if(handle < 0) {
+            return null;
+        }
+        allocator.write(handle, bytes);
+        return new OffHeapValue(allocator, handle, bytes.length);
+    }
+
+    @Override
+    public T load(Object stored) {
+        OffHeapValue value = (OffHeapValue) stored;
+        if(!value.retain()) {
+            return null;
+        }
+        byte[] bytes = new byte[value.length];
+        try {
+            allocator.read(value.handle, bytes);
+        }
+        finally {
+            value.release();
+        }
+        return codec.decode(bytes);
+    }
+
+    @Override
+    public int weigh(Object stored) {
+        return allocator.getChunkSize(((OffHeapValue) stored).length);
+    }
+
+    @Override
+    public void release(Object stored) {
+        ((OffHeapValue) stored).release();
+    }
+
+    /**
+     * Get the allocator
+     * @return allocator of off-heap memory
+     */
+    public SlabAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * Reference counted handle to an off-heap chunk
+     */
+    private static class OffHeapValue {
+        private final SlabAllocator allocator;
+        private final long handle;
+        private final int length;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        OffHeapValue(SlabAllocator allocator, long handle, int length) {
+            this.allocator = allocator;
+            this.handle = handle;
+            this.length = length;
+        }
+
+        boolean retain() {
+            for(;;) {
+                int count = references.get();
+                if(count == 0) {
+                    return false;
+                }
+                if(references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if(references.decrementAndGet() == 0) {
+                allocator.free(handle);
+            }
+        }
+    }
+}
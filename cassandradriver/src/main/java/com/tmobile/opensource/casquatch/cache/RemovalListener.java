@@ -0,0 +1,40 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * Notified exactly once for every entry that leaves a BoundedCache. May be called while the eviction lock is held so it must be cheap
+ *
+ * @version 1.3
+ */
+public interface RemovalListener<K,V> {
+
+	/**
+	 * Reason an entry left the cache
+	 */
+	public enum Cause {
+		EXPLICIT,
+		REPLACED,
+		EXPIRED,
+		SIZE
+	}
+
+    /**
+     * Called when an entry is removed
+     * @param entry removed entry
+     * @param cause reason for removal
+     */
+    void onRemoval(CacheEntry<K,V> entry, Cause cause);
+}
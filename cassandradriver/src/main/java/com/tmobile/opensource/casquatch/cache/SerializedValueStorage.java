@@ -0,0 +1,54 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * Keeps values encoded in on-heap byte arrays. Entries are weighed by their size in bytes so the cache maximum is a memory budget
+ *
+ * @version 1.3
+ */
+public class SerializedValueStorage<T> implements ValueStorage<T> {
+
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private final ValueCodec<T> codec;
+
+    /**
+     * Initializes the storage
+     * @param codec codec used to encode values
+     */
+    public SerializedValueStorage(ValueCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public Object store(T value) {
+        return codec.encode(value);
+    }
+
+    @Override
+    public T load(Object stored) {
+        return codec.decode((byte[]) stored);
+    }
+
+    @Override
+    public int weigh(Object stored) {
+        return ((byte[]) stored).length + ARRAY_OVERHEAD;
+    }
+
+    @Override
+    public void release(Object stored) {
+    }
+}
@@ -0,0 +1,207 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocator of fixed size chunks out of direct memory slabs, similar to a memcached slab allocator.
+ *
+ * Chunk sizes grow geometrically from 64 bytes up to the slab size. Slabs are reserved lazily up to the capacity and assigned to
+ * a single chunk size. Freed chunks go back to the free list of their size and are reused, slabs are never returned.
+ *
+ * Allocation and free are synchronized, reads and writes of chunk contents are not.
+ *
+ * @version 1.3
+ */
+public class SlabAllocator {
+
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+    private static final int MIN_SLAB_SIZE = 4096;
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double CHUNK_GROWTH = 1.25;
+
+    private final long capacity;
+    private final int slabSize;
+    private final int[] chunkSizes;
+    private final long[][] freeLists;
+    private final int[] freeCounts;
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private int[] slabClasses = new int[0];
+    private long allocatedBytes;
+
+    /**
+     * Initializes the allocator with 1MB slabs
+     * @param capacity maximum bytes of direct memory to reserve
+     */
+    public SlabAllocator(long capacity) {
+        this(capacity, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Initializes the allocator
+     * @param capacity maximum bytes of direct memory to reserve
+     * @param slabSize bytes per slab, also the largest chunk that can be allocated
+     */
+    public SlabAllocator(long capacity, int slabSize) {
+        this.capacity = capacity;
+        this.slabSize = (int) Math.max(MIN_SLAB_SIZE, Math.min(slabSize, capacity));
+        List<Integer> sizes = new ArrayList<Integer>();
+        for(double size = MIN_CHUNK_SIZE; size < this.slabSize; size *= CHUNK_GROWTH) {
+            //Align to 8 bytes
+            sizes.add(((int) Math.ceil(size) + 7) & ~7);
+        }
+        sizes.add(this.slabSize);
+        this.chunkSizes = new int[sizes.size()];
+        for(int i=0;i<chunkSizes.length;i++) {
+            chunkSizes[i] = sizes.get(i);
+        }
+        this.freeLists = new long[chunkSizes.length][];
+        this.freeCounts = new int[chunkSizes.length];
+        for(int i=0;i<chunkSizes.length;i++) {
+            freeLists[i] = new long[16];
+        }
+    }
+
+    /**
+     * Allocate a chunk
+     * @param length bytes required
+     * @return handle of the chunk or -1 if the length is too large or the capacity is exhausted for its size
+     */
+    public synchronized long allocate(int length) {
+        int sizeClass = getSizeClass(length);
+        if(sizeClass < 0) {
+            return -1;
+        }
+        if(freeCounts[sizeClass] == 0 && !addSlab(sizeClass)) {
+            return -1;
+        }
+        allocatedBytes += chunkSizes[sizeClass];
+        return freeLists[sizeClass][--freeCounts[sizeClass]];
+    }
+
+    /**
+     * Return a chunk to its free list
+     * @param handle handle of the chunk
+     */
+    public synchronized void free(long handle) {
+        int sizeClass = slabClasses[(int) (handle >>> 32)];
+        if(freeCounts[sizeClass] == freeLists[sizeClass].length) {
+            freeLists[sizeClass] = Arrays.copyOf(freeLists[sizeClass], freeLists[sizeClass].length * 2);
+        }
+        freeLists[sizeClass][freeCounts[sizeClass]++] = handle;
+        allocatedBytes -= chunkSizes[sizeClass];
+    }
+
+    /**
+     * Copy bytes into a chunk
+     * @param handle handle of the chunk
+     * @param bytes bytes to write, no longer than the chunk
+     */
+    public void write(long handle, byte[] bytes) {
+        ByteBuffer buffer = slabs[(int) (handle >>> 32)].duplicate();
+        buffer.position((int) handle);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Copy bytes out of a chunk
+     * @param handle handle of the chunk
+     * @param bytes destination, filled completely
+     */
+    public void read(long handle, byte[] bytes) {
+        ByteBuffer buffer = slabs[(int) (handle >>> 32)].duplicate();
+        buffer.position((int) handle);
+        buffer.get(bytes);
+    }
+
+    /**
+     * Get the size of the chunk used for a length
+     * @param length bytes required
+     * @return chunk size or the length itself if it is too large to allocate
+     */
+    public int getChunkSize(int length) {
+        int sizeClass = getSizeClass(length);
+        return sizeClass < 0 ? length : chunkSizes[sizeClass];
+    }
+
+    /**
+     * Get the maximum bytes of direct memory
+     * @return capacity in bytes
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the bytes of direct memory reserved in slabs
+     * @return reserved bytes
+     */
+    public long getReservedBytes() {
+        return (long) slabs.length * slabSize;
+    }
+
+    /**
+     * Get the bytes of allocated chunks
+     * @return allocated bytes
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Find the smallest size class that fits a length
+     * @param length bytes required
+     * @return size class or -1 if larger than a slab
+     */
+    private int getSizeClass(int length) {
+        int index = Arrays.binarySearch(chunkSizes, length);
+        if(index < 0) {
+            index = -index - 1;
+        }
+        return index < chunkSizes.length ? index : -1;
+    }
+
+    /**
+     * Reserve a slab for a size class and carve it into free chunks. Requires the allocator lock
+     * @param sizeClass size class to add to
+     * @return true if a slab was added, false if the capacity is exhausted
+     */
+    private boolean addSlab(int sizeClass) {
+        if((long) (slabs.length + 1) * slabSize > capacity) {
+            return false;
+        }
+        int slabIndex = slabs.length;
+        ByteBuffer[] newSlabs = Arrays.copyOf(slabs, slabIndex + 1);
+        newSlabs[slabIndex] = ByteBuffer.allocateDirect(slabSize);
+        slabClasses = Arrays.copyOf(slabClasses, slabIndex + 1);
+        slabClasses[slabIndex] = sizeClass;
+
+        int chunkSize = chunkSizes[sizeClass];
+        int chunks = slabSize / chunkSize;
+        if(freeLists[sizeClass].length < freeCounts[sizeClass] + chunks) {
+            freeLists[sizeClass] = Arrays.copyOf(freeLists[sizeClass], freeCounts[sizeClass] + chunks);
+        }
+        //Push in reverse so chunks are handed out in address order
+        for(int i=chunks-1;i>=0;i--) {
+            freeLists[sizeClass][freeCounts[sizeClass]++] = ((long) slabIndex << 32) | ((long) i * chunkSize);
+        }
+        slabs = newSlabs;
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped lock-free counters of cache activity. Load times are also kept in a histogram of power of two millisecond buckets
+ *
+ * @version 1.3
+ */
+public class StatsCounter {
+
+    /**
+     * Upper bound in milliseconds of each load time bucket, the last bucket is unbounded
+     */
+    public static final long[] LOAD_TIME_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096, Long.MAX_VALUE};
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder[] loadTimeHistogram = new LongAdder[LOAD_TIME_BUCKETS.length];
+
+    /**
+     * Initializes the counters
+     */
+    public StatsCounter() {
+        for(int i=0;i<loadTimeHistogram.length;i++) {
+            loadTimeHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a lookup served from the cache
+     */
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    /**
+     * Record a lookup not found in the cache
+     */
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * Record a lookup answered by a negative entry
+     */
+    public void recordNegativeHit() {
+        negativeHitCount.increment();
+    }
+
+    /**
+     * Record a successful load from the database
+     * @param nanos time taken in nanoseconds
+     */
+    public void recordLoadSuccess(long nanos) {
+        loadSuccessCount.increment();
+        recordLoadTime(nanos);
+    }
+
+    /**
+     * Record a failed load from the database
+     * @param nanos time taken in nanoseconds
+     */
+    public void recordLoadFailure(long nanos) {
+        loadFailureCount.increment();
+        recordLoadTime(nanos);
+    }
+
+    /**
+     * Record an entry evicted for size
+     */
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * Record an entry removed because it expired
+     */
+    public void recordExpiration() {
+        expirationCount.increment();
+    }
+
+    /**
+     * Take a snapshot of the counters
+     * @param name label of the cache
+     * @param size current number of entries
+     * @param estimatedBytes current estimated memory use
+     * @return snapshot of the counters
+     */
+    public CacheStats snapshot(String name, long size, long estimatedBytes) {
+        long[] histogram = new long[loadTimeHistogram.length];
+        for(int i=0;i<histogram.length;i++) {
+            histogram[i] = loadTimeHistogram[i].sum();
+        }
+        return new CacheStats(name, hitCount.sum(), missCount.sum(), negativeHitCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                totalLoadTime.sum(), evictionCount.sum(), expirationCount.sum(), size, estimatedBytes, histogram);
+    }
+
+    /**
+     * Add a load time to the total and histogram
+     * @param nanos time taken in nanoseconds
+     */
+    private void recordLoadTime(long nanos) {
+        totalLoadTime.add(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        loadTimeHistogram[Math.min(bucket, loadTimeHistogram.length - 1)].increment();
+    }
+}
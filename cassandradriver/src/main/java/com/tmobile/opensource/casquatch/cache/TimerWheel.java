@@ -0,0 +1,185 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel of cache entries by removal time. Each level is an array of buckets covering a power of two span of
+ * time, roughly seconds, minutes, hours and days, plus an overflow bucket. Scheduling and removal are O(1). Advancing the wheel
+ * only visits the buckets whose span has passed, expiring their entries and cascading the rest down to finer levels.
+ *
+ * Not thread safe, callers hold the eviction lock of the owning cache.
+ *
+ * @version 1.3
+ */
+class TimerWheel<K,V> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            Long.highestOneBit(1000) << 1,              //1.02 seconds
+            Long.highestOneBit(60*1000) << 1,           //1.09 minutes
+            Long.highestOneBit(60*60*1000) << 1,        //1.17 hours
+            Long.highestOneBit(24*60*60*1000) << 1,     //1.55 days
+            BUCKETS[3] * (Long.highestOneBit(24*60*60*1000) << 1),
+            BUCKETS[3] * (Long.highestOneBit(24*60*60*1000) << 1)
+    };
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4])
+    };
+
+    private final CacheEntry<K,V>[][] wheel;
+    private final long retention;
+    private long time;
+
+    /**
+     * Initializes the wheel
+     * @param retention time in milliseconds past expiration an entry is kept before removal
+     * @param now current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long retention, long now) {
+        this.retention = retention;
+        this.time = now;
+        this.wheel = (CacheEntry<K,V>[][]) new CacheEntry<?,?>[BUCKETS.length][];
+        for(int i=0;i<BUCKETS.length;i++) {
+            wheel[i] = (CacheEntry<K,V>[]) new CacheEntry<?,?>[BUCKETS[i]];
+            for(int j=0;j<BUCKETS[i];j++) {
+                CacheEntry<K,V> sentinel = new CacheEntry<K,V>(null, null, 0, 0, Long.MAX_VALUE);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Add an entry to the bucket of its removal time. Entries that never expire are not scheduled
+     * @param entry entry to schedule
+     */
+    void schedule(CacheEntry<K,V> entry) {
+        if(entry.getExpiresAt() >= Long.MAX_VALUE - retention) {
+            return;
+        }
+        CacheEntry<K,V> sentinel = findBucket(entry.getExpiresAt() + retention);
+        entry.timerPrev = sentinel.timerPrev;
+        entry.timerNext = sentinel;
+        sentinel.timerPrev.timerNext = entry;
+        sentinel.timerPrev = entry;
+    }
+
+    /**
+     * Remove an entry from its bucket if scheduled
+     * @param entry entry to remove
+     */
+    void deschedule(CacheEntry<K,V> entry) {
+        if(entry.timerNext != null) {
+            entry.timerNext.timerPrev = entry.timerPrev;
+            entry.timerPrev.timerNext = entry.timerNext;
+            entry.timerNext = null;
+            entry.timerPrev = null;
+        }
+    }
+
+    /**
+     * Advance the wheel to the current time, passing entries whose removal time has passed to the expirer. Entries in passed buckets
+     * that are not yet due are rescheduled into finer buckets
+     * @param now current time in milliseconds
+     * @param expirer called with each due entry after it is descheduled
+     */
+    void advance(long now, Consumer<CacheEntry<K,V>> expirer) {
+        long previous = time;
+        time = now;
+        for(int i=0;i<SHIFT.length;i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            if(currentTicks - previousTicks <= 0) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks, expirer);
+        }
+    }
+
+    /**
+     * Unlink every entry without notifying
+     */
+    void clear() {
+        for(CacheEntry<K,V>[] level : wheel) {
+            for(CacheEntry<K,V> sentinel : level) {
+                CacheEntry<K,V> entry = sentinel.timerNext;
+                while(entry != sentinel) {
+                    CacheEntry<K,V> next = entry.timerNext;
+                    entry.timerPrev = null;
+                    entry.timerNext = null;
+                    entry = next;
+                }
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Private function to expire or cascade the entries of the buckets of a level between two ticks
+     * @param level index of the level
+     * @param previousTicks ticks of the level at the previous advance
+     * @param currentTicks ticks of the level now
+     * @param expirer called with each due entry
+     */
+    private void expire(int level, long previousTicks, long currentTicks, Consumer<CacheEntry<K,V>> expirer) {
+        CacheEntry<K,V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + (currentTicks - previousTicks), buckets.length);
+        int start = (int) (previousTicks & mask);
+        for(int i=start;i<start+steps;i++) {
+            CacheEntry<K,V> sentinel = buckets[i & mask];
+            CacheEntry<K,V> entry = sentinel.timerNext;
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            while(entry != sentinel) {
+                CacheEntry<K,V> next = entry.timerNext;
+                entry.timerPrev = null;
+                entry.timerNext = null;
+                if(entry.getExpiresAt() + retention <= time) {
+                    expirer.accept(entry);
+                }
+                else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * Private function to find the bucket of a removal time
+     * @param removalTime time in milliseconds
+     * @return sentinel of the bucket
+     */
+    private CacheEntry<K,V> findBucket(long removalTime) {
+        long duration = removalTime - time;
+        for(int i=0;i<wheel.length-1;i++) {
+            if(duration < SPANS[i+1]) {
+                long ticks = removalTime >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[wheel.length-1][0];
+    }
+}
@@ -0,0 +1,37 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * Converts cached values to and from a compact binary form for serialized cache storage
+ *
+ * @version 1.3
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Encode a value
+     * @param value value to encode, never null
+     * @return encoded bytes
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decode a value
+     * @param bytes encoded bytes
+     * @return decoded value
+     */
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,50 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+/**
+ * Defines how a cached value is held in a BoundedCache. Values may be kept as is or converted to a compact stored form
+ *
+ * @version 1.3
+ */
+public interface ValueStorage<T> {
+
+    /**
+     * Convert a value to its stored form
+     * @param value value to store, never null
+     * @return stored form or null if it cannot be stored
+     */
+    Object store(T value);
+
+    /**
+     * Convert a stored form back to a value
+     * @param stored stored form
+     * @return value or null if the stored form has already been released
+     */
+    T load(Object stored);
+
+    /**
+     * Weight of a stored form against the cache maximum
+     * @param stored stored form
+     * @return weight
+     */
+    int weigh(Object stored);
+
+    /**
+     * Release any resources held by a stored form once it has left the cache
+     * @param stored stored form
+     */
+    void release(Object stored);
+}
@@ -0,0 +1,349 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Buffer of pending writes flushed asynchronously in batches. Writes to a key waiting in the buffer replace its value so only the
+ * latest is written. A flush runs once the delay has passed since the first buffered write or once the buffer holds a full batch.
+ * Failed batches are put back in the buffer and retried with exponential backoff, unless a newer write to the key has arrived, up to
+ * a maximum number of attempts, after which the write is dropped and reported. Writes stay visible through getPending until they are
+ * written or dropped, including while their batch is in flight. Flushes run on a single thread so writes to a key are never reordered.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ *
+ * @version 1.3
+ */
+public class WriteBehindBuffer<K,V> {
+
+    /**
+     * Pending write of a key along with the future completed once it is written
+     */
+    private class Pending {
+        private volatile V value;
+        private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        private int attempts = 0;
+
+        Pending(V value) {
+            this.value = value;
+        }
+    }
+
+    private final static Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final long delay;
+    private final int maxBatch;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final Consumer<List<V>> writer;
+    private final BiConsumer<K,Exception> dropListener;
+    private final ConcurrentHashMap<K,Pending> pending = new ConcurrentHashMap<K,Pending>();
+    private final ConcurrentHashMap<K,Pending> inFlight = new ConcurrentHashMap<K,Pending>();
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private ScheduledFuture<?> scheduledDrain;
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private volatile int consecutiveFailures = 0;
+    private volatile long retryAt = 0;
+
+    /**
+     * Initializes the buffer
+     * @param delay Time in milliseconds a write may wait before it is flushed
+     * @param maxBatch number of buffered keys that triggers an immediate flush, also the max size of a batch
+     * @param maxAttempts max attempts to write a value before its future fails
+     * @param initialBackoff Time in milliseconds before the first retry, doubled on every consecutive failure
+     * @param maxBackoff max Time in milliseconds between retries
+     * @param writer function writing a batch of values, throwing on failure
+     * @param dropListener function called with the key and last failure of a write dropped after its last attempt
+     * @param name name used for the flush thread
+     */
+    public WriteBehindBuffer(long delay, int maxBatch, int maxAttempts, long initialBackoff, long maxBackoff, Consumer<List<V>> writer,
+            BiConsumer<K,Exception> dropListener, String name) {
+        this.delay = delay;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.writer = writer;
+        this.dropListener = dropListener;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name+"-%d").build());
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Buffer a write of a key. Replaces the value of a write to the key still waiting in the buffer
+     * @param key key of the value
+     * @param value value to write
+     * @return future completed once the value, or a later value of the key, is written
+     */
+    public CompletableFuture<Void> put(K key, V value) {
+        Pending entry = pending.compute(key, (k, existing) -> {
+            if(existing == null) {
+                return new Pending(value);
+            }
+            existing.value = value;
+            return existing;
+        });
+        if(pending.size() >= maxBatch && isReady()) {
+            if(flushQueued.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    flushQueued.set(false);
+                    drain();
+                });
+            }
+        }
+        else {
+            schedule(delay);
+        }
+        return entry.future;
+    }
+
+    /**
+     * Get the value of a write to a key not yet written, either waiting in the buffer or in a batch being written
+     * @param key key of the value
+     * @return buffered value or null if there is none
+     */
+    public V getPending(K key) {
+        Pending entry = pending.get(key);
+        if(entry == null) {
+            entry = inFlight.get(key);
+        }
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Get the number of keys waiting in the buffer
+     * @return number of keys
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Flush the buffer now, or once the backoff after a failed batch has passed
+     * @return future completed once every write buffered at the time of the call is written, or failed if any of them fail
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for(Pending entry : pending.values()) {
+            futures.add(entry.future);
+        }
+        for(Pending entry : inFlight.values()) {
+            futures.add(entry.future);
+        }
+        if(isReady()) {
+            executor.execute(this::drain);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Flush the buffer and wait for it to be written, then stop the flush thread. Writes still failing when the timeout passes are lost
+     * and their futures fail
+     * @param timeout Time in milliseconds to wait
+     * @return true if every buffered write was written
+     */
+    public boolean close(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        boolean written = false;
+        try {
+            while(!(pending.isEmpty() && inFlight.isEmpty()) && System.currentTimeMillis() < deadline) {
+                try {
+                    flush().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException e) {
+                    break;
+                }
+                catch (Exception e) {
+                    logger.debug("Write behind flush failed during close", e);
+                }
+            }
+            written = pending.isEmpty() && inFlight.isEmpty();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        if(!written) {
+            logger.warn("Closed write behind buffer with {} unwritten keys", pending.size() + inFlight.size());
+            IllegalStateException closed = new IllegalStateException("Write behind buffer closed before the write completed");
+            for(Pending entry : inFlight.values()) {
+                entry.future.completeExceptionally(closed);
+            }
+            for(Pending entry : pending.values()) {
+                entry.future.completeExceptionally(closed);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Private function to check if a drain may start now, which is not the case until the backoff after a failed batch has passed
+     * @return true if no batch has failed since the last success or the backoff has passed
+     */
+    private boolean isReady() {
+        return consecutiveFailures == 0 || System.currentTimeMillis() >= retryAt;
+    }
+
+    /**
+     * Private function to schedule a drain unless one is already scheduled
+     * @param after Time in milliseconds to wait
+     */
+    private void schedule(long after) {
+        if(!scheduled.get()) {
+            reschedule(after);
+        }
+    }
+
+    /**
+     * Private function to schedule a drain, moving an already scheduled drain earlier if it would run after the given time
+     * @param after Time in milliseconds to wait
+     */
+    private synchronized void reschedule(long after) {
+        if(scheduled.get() && scheduledDrain != null && scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= after) {
+            return;
+        }
+        if(scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        scheduled.set(true);
+        scheduledDrain = executor.schedule(() -> {
+            scheduled.set(false);
+            drain();
+        }, after, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Private function to write everything in the buffer in batches. Only runs on the flush thread
+     */
+    private void drain() {
+        boolean failed = false;
+        while(!pending.isEmpty()) {
+            List<Map.Entry<K,Pending>> batch = take();
+            if(batch.isEmpty()) {
+                break;
+            }
+            List<V> values = new ArrayList<V>(batch.size());
+            for(Map.Entry<K,Pending> entry : batch) {
+                values.add(entry.getValue().value);
+            }
+            try {
+                writer.accept(values);
+                for(Map.Entry<K,Pending> entry : batch) {
+                    inFlight.remove(entry.getKey(), entry.getValue());
+                    entry.getValue().future.complete(null);
+                }
+            }
+            catch (Exception e) {
+                logger.debug("Write behind batch of {} failed", batch.size(), e);
+                requeue(batch, e);
+                failed = true;
+                break;
+            }
+        }
+        if(failed) {
+            consecutiveFailures++;
+            long backoff = Math.min(maxBackoff, initialBackoff << Math.min(30, consecutiveFailures - 1));
+            retryAt = System.currentTimeMillis() + backoff;
+            reschedule(backoff);
+        }
+        else {
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * Private function to move up to a batch of keys from the buffer to the in flight writes. A key is added to the in flight writes
+     * before it leaves the buffer so getPending always sees it
+     * @return moved keys and their pending writes
+     */
+    private List<Map.Entry<K,Pending>> take() {
+        List<Map.Entry<K,Pending>> batch = new ArrayList<Map.Entry<K,Pending>>(Math.min(maxBatch, pending.size()));
+        for(K key : pending.keySet()) {
+            if(batch.size() == maxBatch) {
+                break;
+            }
+            pending.computeIfPresent(key, (k, entry) -> {
+                inFlight.put(k, entry);
+                batch.add(new AbstractMap.SimpleImmutableEntry<K,Pending>(k, entry));
+                return null;
+            });
+        }
+        return batch;
+    }
+
+    /**
+     * Private function to put a failed batch back in the buffer. A key written again since the batch was taken keeps the newer write
+     * and the failed future follows it. A key out of attempts is dropped, reported to the drop listener and fails its future
+     * @param batch failed batch
+     * @param cause failure
+     */
+    private void requeue(Collection<Map.Entry<K,Pending>> batch, Exception cause) {
+        for(Map.Entry<K,Pending> entry : batch) {
+            Pending failed = entry.getValue();
+            failed.attempts++;
+            AtomicBoolean dropped = new AtomicBoolean(false);
+            pending.compute(entry.getKey(), (k, newer) -> {
+                if(newer != null) {
+                    newer.future.whenComplete((result, e) -> {
+                        if(e != null) {
+                            failed.future.completeExceptionally(e);
+                        }
+                        else {
+                            failed.future.complete(null);
+                        }
+                    });
+                    return newer;
+                }
+                if(failed.attempts >= maxAttempts) {
+                    dropped.set(true);
+                    return null;
+                }
+                return failed;
+            });
+            inFlight.remove(entry.getKey(), failed);
+            if(dropped.get()) {
+                logger.warn("Dropped write behind save of {} after {} attempts", entry.getKey(), failed.attempts, cause);
+                try {
+                    dropListener.accept(entry.getKey(), cause);
+                }
+                catch (Exception e) {
+                    logger.warn("Drop listener failed for {}", entry.getKey(), e);
+                }
+                failed.future.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.events;
+
+/**
+ * Change to a row of a model class written through CassandraDriver. OVERFLOW events carry no object and tell listeners that events
+ * were dropped because the bus was full, so anything derived from the class may be stale.
+ *
+ * @version 1.3
+ */
+public class ChangeEvent<T> {
+
+    public enum Type {
+        SAVE,
+        DELETE,
+        OVERFLOW
+    }
+
+    private final Type type;
+    private final Class<T> tableClass;
+    private final T object;
+    private final long timestamp;
+
+    /**
+     * Initializes the event
+     * @param type type of change
+     * @param tableClass class of the changed object
+     * @param object saved object or object with the deleted keys populated, null for OVERFLOW
+     */
+    public ChangeEvent(Type type, Class<T> tableClass, T object) {
+        this.type = type;
+        this.tableClass = tableClass;
+        this.object = object;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Get the type of change
+     * @return type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the class of the changed object
+     * @return class
+     */
+    public Class<T> getTableClass() {
+        return tableClass;
+    }
+
+    /**
+     * Get the object as passed to the write. It is shared with the writer and other listeners and must not be modified
+     * @return object or null for OVERFLOW
+     */
+    public T getObject() {
+        return object;
+    }
+
+    /**
+     * Get the time the write completed
+     * @return time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type+" "+tableClass.getName()+(object != null ? " "+object : "");
+    }
+}
@@ -0,0 +1,255 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.events;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process bus of change events. Publishers claim a slot of a bounded ring buffer with a single compare and swap and never block:
+ * when the buffer is full the event is dropped and counted, and subscribers later receive an OVERFLOW event. A single daemon thread,
+ * started with the first subscription, drains the buffer in publish order and calls the listeners of each class.
+ *
+ * @version 1.3
+ */
+public class ChangeEventBus {
+
+    /**
+     * Handle to cancel a subscription
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final long IDLE_PARK_NANOS = 100*1000*1000;
+
+    private final static Logger logger = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    private final AtomicReferenceArray<ChangeEvent<?>> buffer;
+    private final int mask;
+    private final AtomicLong writes = new AtomicLong();
+    private volatile long reads;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private long droppedSeen;
+    private final ConcurrentHashMap<Class<?>, List<ChangeListener<?>>> listeners = new ConcurrentHashMap<>();
+    private volatile Thread dispatcher;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    /**
+     * Initializes the bus
+     * @param capacity number of events buffered before publishing drops, rounded up to a power of two
+     */
+    public ChangeEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Subscribe to the changes of a class
+     * @param <T> Domain Object for events
+     * @param c Class of object
+     * @param listener listener to call
+     * @return subscription to close when no longer interested
+     */
+    public <T> Subscription subscribe(Class<T> c, ChangeListener<? super T> listener) {
+        List<ChangeListener<?>> classListeners = listeners.computeIfAbsent(c, k -> new CopyOnWriteArrayList<ChangeListener<?>>());
+        classListeners.add(listener);
+        startDispatcher();
+        return () -> classListeners.remove(listener);
+    }
+
+    /**
+     * Check if anyone listens to a class, so publishers can skip building events
+     * @param c Class of object
+     * @return true if a listener is subscribed
+     */
+    public boolean hasSubscribers(Class<?> c) {
+        List<ChangeListener<?>> classListeners = listeners.get(c);
+        return classListeners != null && !classListeners.isEmpty();
+    }
+
+    /**
+     * Publish an event without blocking
+     * @param event event to publish
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean publish(ChangeEvent<?> event) {
+        if(closed || !hasSubscribers(event.getTableClass())) {
+            return true;
+        }
+        while(true) {
+            long claimed = writes.get();
+            if(claimed - reads > mask) {
+                dropped.incrementAndGet();
+                signal();
+                return false;
+            }
+            if(writes.compareAndSet(claimed, claimed + 1)) {
+                buffer.lazySet((int) (claimed & mask), event);
+                signal();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of events dropped because the buffer was full
+     * @return dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Get the number of events delivered to listeners
+     * @return delivered events
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Get the number of events waiting to be dispatched
+     * @return pending events
+     */
+    public long getPendingCount() {
+        return writes.get() - reads;
+    }
+
+    /**
+     * Stop dispatching. Events still buffered are discarded
+     */
+    public void close() {
+        closed = true;
+        Thread thread = dispatcher;
+        if(thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Private function to start the dispatch thread once
+     */
+    private synchronized void startDispatcher() {
+        if(dispatcher == null && !closed) {
+            Thread thread = new Thread(this::dispatch, "casquatch-change-events");
+            thread.setDaemon(true);
+            dispatcher = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Private function to wake the dispatch thread if it is parked
+     */
+    private void signal() {
+        if(waiting) {
+            Thread thread = dispatcher;
+            if(thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Private function run by the dispatch thread
+     */
+    private void dispatch() {
+        while(!closed) {
+            if(drain() == 0) {
+                waiting = true;
+                if(writes.get() == reads && dropped.get() == droppedSeen && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    /**
+     * Private function to deliver buffered events in order, then an OVERFLOW event to every class if any were dropped
+     * @return number of events handled
+     */
+    private int drain() {
+        int handled = 0;
+        //Drops counted before the claimed position is read follow every event published before them
+        long droppedNow = dropped.get();
+        long claimed = writes.get();
+        long read = reads;
+        for(; read < claimed; read++) {
+            int index = (int) (read & mask);
+            ChangeEvent<?> event = buffer.get(index);
+            if(event == null) {
+                //Slot claimed but not yet published
+                Thread.yield();
+                break;
+            }
+            buffer.lazySet(index, null);
+            reads = read + 1;
+            deliver(event);
+            handled++;
+        }
+        if(read == claimed && droppedNow != droppedSeen) {
+            logger.warn("Change event bus dropped {} events", droppedNow - droppedSeen);
+            droppedSeen = droppedNow;
+            for(Class<?> c : listeners.keySet()) {
+                deliver(overflow(c));
+            }
+            handled++;
+        }
+        return handled;
+    }
+
+    /**
+     * Private function to build an OVERFLOW event
+     * @param c Class of object
+     * @return event
+     */
+    private static <T> ChangeEvent<T> overflow(Class<T> c) {
+        return new ChangeEvent<T>(ChangeEvent.Type.OVERFLOW, c, null);
+    }
+
+    /**
+     * Private function to call the listeners of an event, isolating listener failures
+     * @param event event to deliver
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void deliver(ChangeEvent<?> event) {
+        List<ChangeListener<?>> classListeners = listeners.get(event.getTableClass());
+        if(classListeners == null) {
+            return;
+        }
+        for(ChangeListener listener : classListeners) {
+            try {
+                listener.onChange(event);
+            }
+            catch (Exception e) {
+                logger.warn("Change listener failed on "+event, e);
+            }
+        }
+        delivered.incrementAndGet();
+    }
+}
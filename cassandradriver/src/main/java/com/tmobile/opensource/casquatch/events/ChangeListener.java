@@ -0,0 +1,30 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.events;
+
+/**
+ * Listener of change events of a model class. Called on the dispatch thread of the bus, so listeners should return quickly.
+ *
+ * @version 1.3
+ */
+@FunctionalInterface
+public interface ChangeListener<T> {
+
+    /**
+     * Called for each change in publish order
+     * @param event change
+     */
+    void onChange(ChangeEvent<T> event);
+}
@@ -36,6 +36,7 @@ import com.tmobile.opensource.casquatch.CassandraDriver;
  *      <ul>
  *          <li>301 - DML Query Exception</li>
  *          <li>302 - DDL Query Exception</li>
+ *          <li>303 - Invalid Query Exception</li>
  *          <li>399 - Unknown Exception</li>
 *       </ul>
  *   </li>
@@ -74,7 +75,9 @@ public class DriverException extends RuntimeException {
      */
     public DriverException(Exception exception) {
         if (exception instanceof DriverException) {
-            this.setException(((DriverException) exception).getException());
+            this.setCode(((DriverException) exception).getCode());
+            this.setMessage(((DriverException) exception).getMessage());
+            this.exception = ((DriverException) exception).getException();
         }
         else {
             this.setException(exception);
@@ -14,6 +14,7 @@
  */
 package com.tmobile.opensource.casquatch.models;
 
+import com.datastax.driver.mapping.annotations.Transient;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
@@ -36,4 +37,24 @@ public abstract class AbstractCachable extends AbstractCassandraTable{
      */
     @JsonIgnore
     public abstract String getCacheKey();
+
+    /**
+     * Set the primary keys of the object from a typed key. Defaults to setCacheKey of the dot separated form
+     * @param key key to define object in cache
+     */
+    @JsonIgnore
+    @Transient
+    public void setKey(CacheKey key) {
+        setCacheKey(key.toString());
+    }
+
+    /**
+     * Get the typed key of the object. Defaults to a key of getID
+     * @return key of the object
+     */
+    @JsonIgnore
+    @Transient
+    public CacheKey getKey() {
+        return CacheKey.of(getID());
+    }
 }
@@ -0,0 +1,259 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.models;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import com.datastax.driver.core.LocalDate;
+import com.datastax.driver.core.utils.Bytes;
+import com.google.common.net.InetAddresses;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+
+/**
+ * Immutable key of a cached object made of its primary key values in order. The hash is computed once when the key is built.
+ * Keys with the same values are equal whatever their class, so a generated key and CacheKey.of with the same values find the same entry
+ *
+ * @version 1.3
+ */
+public abstract class CacheKey {
+
+    /**
+     * Initial value of the hash, extended with each value by hash(int, Object)
+     */
+    protected static final int HASH_SEED = 1;
+
+    private final int hash;
+
+    /**
+     * Initializes the key
+     * @param hash hash of the values computed with hash(int, Object) starting from HASH_SEED
+     */
+    protected CacheKey(int hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Build a key of the given values
+     * @param values primary key values in order
+     * @return key
+     */
+    public static CacheKey of(Object... values) {
+        return new CompositeCacheKey(values.clone());
+    }
+
+    /**
+     * Build a key of a single long value without boxing
+     * @param value primary key value
+     * @return key
+     */
+    public static LongCacheKey ofLong(long value) {
+        return new LongCacheKey(value);
+    }
+
+    /**
+     * Extend a hash with a value
+     * @param hash hash of the previous values
+     * @param value next value
+     * @return hash including the value
+     */
+    protected static int hash(int hash, Object value) {
+        return 31*hash + Objects.hashCode(value);
+    }
+
+    /**
+     * Extend a hash with a long value, equal to the hash of the boxed value
+     * @param hash hash of the previous values
+     * @param value next value
+     * @return hash including the value
+     */
+    protected static int hash(int hash, long value) {
+        return 31*hash + Long.hashCode(value);
+    }
+
+    /**
+     * Get the number of values
+     * @return number of values
+     */
+    public abstract int size();
+
+    /**
+     * Get a value
+     * @param index position of the value
+     * @return value
+     */
+    public abstract Object get(int index);
+
+    @Override
+    public final int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        if(hash != other.hash || size() != other.size()) {
+            return false;
+        }
+        for(int i=0;i<size();i++) {
+            if(!Objects.equals(get(i), other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the dot separated form of the key. Dots and backslashes within values are escaped with a backslash so the form can be split back
+     * @return dot separated key
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for(int i=0;i<size();i++) {
+            if(i > 0) {
+                builder.append('.');
+            }
+            String value = format(get(i));
+            for(int j=0;j<value.length();j++) {
+                char c = value.charAt(j);
+                if(c == '.' || c == '\\') {
+                    builder.append('\\');
+                }
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Split the dot separated form of a key into its values, honoring escapes
+     * @param key dot separated key
+     * @return values as strings
+     */
+    public static String[] split(String key) {
+        List<String> values = new ArrayList<String>();
+        StringBuilder value = new StringBuilder();
+        for(int i=0;i<key.length();i++) {
+            char c = key.charAt(i);
+            if(c == '\\' && i+1 < key.length()) {
+                value.append(key.charAt(++i));
+            }
+            else if(c == '.') {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values.toArray(new String[values.size()]);
+    }
+
+    /**
+     * Parse a value of the dot separated form of a key
+     * @param <V> type of the value
+     * @param value value as formatted by toString
+     * @param type type of the value
+     * @return parsed value
+     * @throws DriverException - Driver exception mapped to error code
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V parse(String value, Class<V> type) throws DriverException {
+        if(value == null || type == String.class) {
+            return (V) value;
+        }
+        try {
+            if(type == Long.class || type == long.class) {
+                return (V) Long.valueOf(value);
+            }
+            if(type == Integer.class || type == int.class) {
+                return (V) Integer.valueOf(value);
+            }
+            if(type == Short.class || type == short.class) {
+                return (V) Short.valueOf(value);
+            }
+            if(type == Byte.class || type == byte.class) {
+                return (V) Byte.valueOf(value);
+            }
+            if(type == Double.class || type == double.class) {
+                return (V) Double.valueOf(value);
+            }
+            if(type == Float.class || type == float.class) {
+                return (V) Float.valueOf(value);
+            }
+            if(type == Boolean.class || type == boolean.class) {
+                return (V) Boolean.valueOf(value);
+            }
+            if(type == UUID.class) {
+                return (V) UUID.fromString(value);
+            }
+            if(type == BigDecimal.class) {
+                return (V) new BigDecimal(value);
+            }
+            if(type == BigInteger.class) {
+                return (V) new BigInteger(value);
+            }
+            if(type == Date.class) {
+                return (V) new Date(Long.parseLong(value));
+            }
+            if(type == LocalDate.class) {
+                return (V) LocalDate.fromDaysSinceEpoch((int) java.time.LocalDate.parse(value).toEpochDay());
+            }
+            if(type == InetAddress.class) {
+                return (V) InetAddresses.forString(value);
+            }
+            if(type == ByteBuffer.class) {
+                return (V) Bytes.fromHexString(value);
+            }
+        }
+        catch (Exception e) {
+            throw new DriverException(303, "Invalid cache key value "+value+" for "+type.getSimpleName());
+        }
+        throw new DriverException(303, "Unsupported cache key type "+type.getSimpleName());
+    }
+
+    /**
+     * Private function to format a value so parse can read it back
+     * @param value value
+     * @return formatted value
+     */
+    private static String format(Object value) {
+        if(value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if(value instanceof InetAddress) {
+            return ((InetAddress) value).getHostAddress();
+        }
+        if(value instanceof ByteBuffer) {
+            return Bytes.toHexString((ByteBuffer) value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,57 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.models;
+
+/**
+ * Cache key of any number of values
+ *
+ * @version 1.3
+ */
+final class CompositeCacheKey extends CacheKey {
+
+    private final Object[] values;
+
+    /**
+     * Initializes the key
+     * @param values primary key values in order, not copied
+     */
+    CompositeCacheKey(Object[] values) {
+        super(hashValues(values));
+        this.values = values;
+    }
+
+    /**
+     * Private function to hash the values
+     * @param values primary key values
+     * @return hash
+     */
+    private static int hashValues(Object[] values) {
+        int hash = HASH_SEED;
+        for(Object value : values) {
+            hash = hash(hash, value);
+        }
+        return hash;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Object get(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,68 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.models;
+
+/**
+ * Cache key of a single long value kept unboxed
+ *
+ * @version 1.3
+ */
+public class LongCacheKey extends CacheKey {
+
+    private final long value;
+
+    /**
+     * Initializes the key
+     * @param value primary key value
+     */
+    public LongCacheKey(long value) {
+        super(hash(HASH_SEED, value));
+        this.value = value;
+    }
+
+    /**
+     * Get the value without boxing
+     * @return value
+     */
+    public long getLong() {
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return 1;
+    }
+
+    @Override
+    public Object get(int index) {
+        if(index != 0) {
+            throw new IndexOutOfBoundsException("Index: "+index);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o instanceof LongCacheKey) {
+            return value == ((LongCacheKey) o).value;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
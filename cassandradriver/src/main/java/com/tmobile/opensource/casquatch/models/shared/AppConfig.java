@@ -22,6 +22,7 @@ import com.datastax.driver.mapping.annotations.PartitionKey;
 import com.datastax.driver.mapping.annotations.Table;
 import com.datastax.driver.mapping.annotations.Transient;
 import com.tmobile.opensource.casquatch.models.AbstractCachable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
 
 /**
  * Generated: Generated class for acms_odp.app_config
@@ -31,6 +32,45 @@ import com.tmobile.opensource.casquatch.models.AbstractCachable;
 )
 public class AppConfig extends AbstractCachable {
 
+    /**
+     * Generated: Immutable cache key of the primary keys
+     */
+    public static final class Key extends CacheKey {
+        private final String name;
+
+        /**
+         * Generated: Initialize with the primary keys
+         * @param name Primary Key Named name
+         */
+        public Key(String name) {
+            super(hash(HASH_SEED, name));
+            this.name = name;
+        }
+
+        /**
+         * Generated: Get procedure for Name
+         * @return Value of Name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public Object get(int index) {
+            switch(index) {
+                case 0:
+                    return this.name;
+                default:
+                    throw new IndexOutOfBoundsException("Index: "+index);
+            }
+        }
+    }
+
     @PartitionKey(0)
     @Column(name="name")
     private String name;
@@ -61,13 +101,8 @@ public class AppConfig extends AbstractCachable {
      */
     @Transient
     public void setCacheKey(String key) {
-        String keyVals[];
-        if(key.contains(".")) {
-            keyVals = key.split(".");
-        } else {
-            keyVals = new String[] {key};
-        }
-        this.setName(keyVals[0]);
+        String keyVals[] = CacheKey.split(key);
+        this.setName(CacheKey.parse(keyVals[0], String.class));
     }
 
     /**
@@ -76,7 +111,29 @@ public class AppConfig extends AbstractCachable {
      */
     @Transient
     public String getCacheKey() {
-        return this.getName();
+        return getKey().toString();
+    }
+
+    /**
+     * Generated: Set the primary keys based on provided typed key
+     * @param key typed primary key
+     */
+    @Transient
+    public void setKey(CacheKey key) {
+        if(key instanceof Key) {
+            this.setName(((Key) key).getName());
+        } else {
+            this.setName((String) key.get(0));
+        }
+    }
+
+    /**
+     * Generated: Get the typed cache key of the primary keys
+     * @return key typed primary key
+     */
+    @Transient
+    public Key getKey() {
+        return new Key(this.getName());
     }
 
     /**
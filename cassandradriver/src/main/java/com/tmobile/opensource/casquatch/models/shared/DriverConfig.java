@@ -20,6 +20,7 @@ import com.datastax.driver.mapping.annotations.PartitionKey;
 import com.datastax.driver.mapping.annotations.Table;
 import com.datastax.driver.mapping.annotations.Transient;
 import com.tmobile.opensource.casquatch.models.AbstractCachable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
 
 /**
  * Generated: Generated class for acms_odp.driver_config
@@ -29,6 +30,45 @@ import com.tmobile.opensource.casquatch.models.AbstractCachable;
 )
 public class DriverConfig extends AbstractCachable {
 
+    /**
+     * Generated: Immutable cache key of the primary keys
+     */
+    public static final class Key extends CacheKey {
+        private final String tableName;
+
+        /**
+         * Generated: Initialize with the primary keys
+         * @param tableName Primary Key Named tableName
+         */
+        public Key(String tableName) {
+            super(hash(HASH_SEED, tableName));
+            this.tableName = tableName;
+        }
+
+        /**
+         * Generated: Get procedure for TableName
+         * @return Value of TableName
+         */
+        public String getTableName() {
+            return this.tableName;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public Object get(int index) {
+            switch(index) {
+                case 0:
+                    return this.tableName;
+                default:
+                    throw new IndexOutOfBoundsException("Index: "+index);
+            }
+        }
+    }
+
     @Column(name="data_center")
     private String dataCenter;
 
@@ -62,13 +102,8 @@ public class DriverConfig extends AbstractCachable {
      */
     @Transient
     public void setCacheKey(String key) {
-        String keyVals[];
-        if(key.contains(".")) {
-            keyVals = key.split(".");
-        } else {
-            keyVals = new String[] {key};
-        }
-        this.setTableName(keyVals[0]);
+        String keyVals[] = CacheKey.split(key);
+        this.setTableName(CacheKey.parse(keyVals[0], String.class));
     }
 
     /**
@@ -77,7 +112,29 @@ public class DriverConfig extends AbstractCachable {
      */
     @Transient
     public String getCacheKey() {
-        return this.getTableName();
+        return getKey().toString();
+    }
+
+    /**
+     * Generated: Set the primary keys based on provided typed key
+     * @param key typed primary key
+     */
+    @Transient
+    public void setKey(CacheKey key) {
+        if(key instanceof Key) {
+            this.setTableName(((Key) key).getTableName());
+        } else {
+            this.setTableName((String) key.get(0));
+        }
+    }
+
+    /**
+     * Generated: Get the typed cache key of the primary keys
+     * @return key typed primary key
+     */
+    @Transient
+    public Key getKey() {
+        return new Key(this.getTableName());
     }
 
     /**
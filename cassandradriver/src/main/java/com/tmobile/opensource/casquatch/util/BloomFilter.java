@@ -0,0 +1,197 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tmobile.opensource.casquatch.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Bloom filter over byte keys using a 128 bit murmur3 hash split into two 64 bit halves for double hashing. Bits are set with
+ * compare and swap so puts and lookups may run concurrently.
+ *
+ * @version 1.3
+ */
+public class BloomFilter {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong setBits;
+
+    /**
+     * Initializes the filter
+     * @param bits number of bits, rounded up to a multiple of 64
+     * @param hashes number of hash functions
+     */
+    public BloomFilter(long bits, int hashes) {
+        if(bits < 1 || hashes < 1) {
+            throw new IllegalArgumentException("Bits and hashes must be positive");
+        }
+        long wordCount = (bits + 63) / 64;
+        if(wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bits must be at most "+(64L*Integer.MAX_VALUE));
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount * 64;
+        this.hashes = hashes;
+        this.setBits = new AtomicLong();
+    }
+
+    /**
+     * Create a filter sized for an expected number of keys and false positive rate, capped at a number of bytes
+     * @param expectedKeys expected number of keys
+     * @param falsePositiveRate target false positive rate between 0 and 1
+     * @param maxBytes largest size in bytes, 0 for no cap
+     * @return sized filter
+     */
+    public static BloomFilter create(long expectedKeys, double falsePositiveRate, long maxBytes) {
+        long bits = optimalBits(expectedKeys, falsePositiveRate, maxBytes);
+        return new BloomFilter(bits, optimalHashes(expectedKeys, bits));
+    }
+
+    /**
+     * Get the number of bits for an expected number of keys and false positive rate, capped at a number of bytes
+     * @param expectedKeys expected number of keys
+     * @param falsePositiveRate target false positive rate between 0 and 1
+     * @param maxBytes largest size in bytes, 0 for no cap
+     * @return bits, a multiple of 64
+     */
+    public static long optimalBits(long expectedKeys, double falsePositiveRate, long maxBytes) {
+        if(expectedKeys < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || maxBytes < 0) {
+            throw new IllegalArgumentException("Expected keys must be positive and false positive rate between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        if(maxBytes > 0) {
+            bits = Math.min(bits, maxBytes * 8);
+        }
+        return Math.max(1, bits / 64) * 64;
+    }
+
+    /**
+     * Get the number of hash functions minimizing false positives for a number of keys and bits
+     * @param expectedKeys expected number of keys
+     * @param bits number of bits
+     * @return hashes
+     */
+    public static int optimalHashes(long expectedKeys, long bits) {
+        return (int) Math.max(1, Math.round((double) bits / expectedKeys * Math.log(2)));
+    }
+
+    /**
+     * Add a key
+     * @param key serialized key
+     */
+    public void put(ByteBuffer key) {
+        ByteBuffer hash = ByteBuffer.wrap(HASH.hashBytes(toArray(key)).asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        for(int i=0;i<hashes;i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if((current & mask) != 0) {
+                    break;
+                }
+            } while(!words.compareAndSet(word, current, current | mask));
+            if((current & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Check if a key may have been added
+     * @param key serialized key
+     * @return false if the key was definitely never added
+     */
+    public boolean mightContain(ByteBuffer key) {
+        ByteBuffer hash = ByteBuffer.wrap(HASH.hashBytes(toArray(key)).asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        for(int i=0;i<hashes;i++) {
+            long bit = index(h1 + i * h2);
+            if((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of bits
+     * @return bits
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * Get the number of hash functions
+     * @return hashes
+     */
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * Estimate the number of distinct keys added from the fraction of bits set
+     * @return approximate key count
+     */
+    public long approximateCount() {
+        double fraction = (double) setBits.get() / bits;
+        if(fraction >= 1) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-(double) bits / hashes * Math.log(1 - fraction));
+    }
+
+    /**
+     * Get the false positive rate implied by the bits currently set
+     * @return probability that an absent key is reported as possibly present
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bits, hashes);
+    }
+
+    /**
+     * Map a combined hash to a bit position
+     * @param combined combined hash
+     * @return bit position
+     */
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bits;
+    }
+
+    /**
+     * Copy the remaining bytes of a buffer without moving its position
+     * @param key buffer
+     * @return bytes
+     */
+    private static byte[] toArray(ByteBuffer key) {
+        byte[] bytes = new byte[key.remaining()];
+        key.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tmobile.opensource.casquatch;
+
+import com.tmobile.opensource.casquatch.models.junittest.JunitUdt;
+import com.tmobile.opensource.casquatch.models.junittest.JunitUdtTable;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public class ModelCopierTests {
+
+    private static class Nested {
+        private List<Set<String>> sets;
+        private Map<String,List<Integer>> lists;
+    }
+
+    @Test
+    public void testCopyUdt() {
+        JunitUdt udt = new JunitUdt();
+        udt.setVal1("original");
+        udt.setVal2(1);
+        JunitUdtTable obj = new JunitUdtTable(UUID.randomUUID());
+        obj.setUdt(udt);
+
+        JunitUdtTable copy = new ModelCopier<JunitUdtTable>(JunitUdtTable.class).copy(obj);
+        assertEquals(obj.getId(), copy.getId());
+        assertNotSame(udt, copy.getUdt());
+        copy.getUdt().setVal1("changed");
+        assertEquals("original", udt.getVal1());
+        assertEquals(Integer.valueOf(1), copy.getUdt().getVal2());
+    }
+
+    @Test
+    public void testCopyNestedCollections() {
+        Nested obj = new Nested();
+        obj.sets = new ArrayList<Set<String>>();
+        obj.sets.add(new HashSet<String>(Arrays.asList("a")));
+        obj.lists = new HashMap<String,List<Integer>>();
+        obj.lists.put("key", new ArrayList<Integer>(Arrays.asList(1)));
+
+        Nested copy = new ModelCopier<Nested>(Nested.class).copy(obj);
+        copy.sets.get(0).add("b");
+        copy.lists.get("key").add(2);
+        copy.lists.put("other", null);
+        assertEquals(new HashSet<String>(Arrays.asList("a")), obj.sets.get(0));
+        assertEquals(Arrays.asList(1), obj.lists.get("key"));
+        assertEquals(1, obj.lists.size());
+        assertNull(new ModelCopier<Nested>(Nested.class).copy(null));
+    }
+}
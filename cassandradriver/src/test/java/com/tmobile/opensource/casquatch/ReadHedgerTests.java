@@ -0,0 +1,140 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tmobile.opensource.casquatch;
+
+import com.tmobile.opensource.casquatch.annotations.HedgedReads;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReadHedgerTests {
+
+    @HedgedReads(percentile=0.5, budget=0.05, minDelay=0)
+    private static class Median {}
+
+    @HedgedReads(percentile=0.99, budget=0.5, minDelay=5)
+    private static class Tail {}
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(1));
+
+    private ReadHedger hedger(Class<?> c) {
+        return new ReadHedger(c.getAnnotation(HedgedReads.class), now::get);
+    }
+
+    private void record(ReadHedger hedger, int count, long micros) {
+        for(int i=0;i<count;i++) {
+            hedger.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void testDelayNeedsSamples() {
+        ReadHedger hedger = hedger(Median.class);
+        assertEquals(-1, hedger.getDelayNanos());
+        record(hedger, 99, 1000);
+        advance(100);
+        assertEquals(-1, hedger.getDelayNanos());
+        record(hedger, 1, 1000);
+        advance(100);
+        //upper bound of the bucket holding 1000us
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1024), hedger.getDelayNanos());
+    }
+
+    @Test
+    public void testDelayPercentile() {
+        ReadHedger median = hedger(Median.class);
+        ReadHedger tail = hedger(Tail.class);
+        for(ReadHedger hedger : new ReadHedger[] {median, tail}) {
+            record(hedger, 50, 1000);
+            record(hedger, 50, 8000);
+        }
+        advance(100);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1024), median.getDelayNanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(8192), tail.getDelayNanos());
+
+        //Recomputed at most every 100ms
+        record(median, 200, 8000);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1024), median.getDelayNanos());
+        advance(100);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(8192), median.getDelayNanos());
+    }
+
+    @Test
+    public void testDelayMinimum() {
+        ReadHedger tail = hedger(Tail.class);
+        record(tail, 100, 100);
+        advance(100);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), tail.getDelayNanos());
+    }
+
+    @Test
+    public void testDelayWindowsExpire() {
+        ReadHedger hedger = hedger(Median.class);
+        record(hedger, 100, 1000);
+        advance(10000);
+        record(hedger, 1, 1000);
+        advance(100);
+        //The previous window still counts
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1024), hedger.getDelayNanos());
+        advance(10000);
+        record(hedger, 1, 1000);
+        advance(100);
+        assertEquals(-1, hedger.getDelayNanos());
+    }
+
+    @Test
+    public void testBudget() {
+        ReadHedger hedger = hedger(Median.class);
+        assertFalse(hedger.tryAcquire());
+        //5% of 100 reads earns 5 hedges
+        for(int i=0;i<100;i++) {
+            hedger.onRead();
+        }
+        for(int i=0;i<5;i++) {
+            assertTrue(hedger.tryAcquire());
+        }
+        assertFalse(hedger.tryAcquire());
+        hedger.onHedgeWin();
+
+        HedgeStats stats = hedger.getStats();
+        assertEquals(100, stats.getReadCount());
+        assertEquals(5, stats.getHedgeCount());
+        assertEquals(1, stats.getHedgeWinCount());
+        assertEquals(0.05, stats.getHedgeRate(), 0.0001);
+    }
+
+    @Test
+    public void testBudgetCapped() {
+        ReadHedger hedger = hedger(Tail.class);
+        //Unused budget stops accumulating at 10 hedges
+        for(int i=0;i<1000;i++) {
+            hedger.onRead();
+        }
+        int hedges = 0;
+        while(hedger.tryAcquire()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+}
@@ -15,8 +15,24 @@
 
 package com.tmobile.opensource.casquatch.junit;
 
+import com.datastax.driver.mapping.annotations.Column;
+import com.datastax.driver.mapping.annotations.Table;
+import com.tmobile.opensource.casquatch.Aggregations;
 import com.tmobile.opensource.casquatch.CassandraDriver;
+import com.tmobile.opensource.casquatch.CountEstimate;
+import com.tmobile.opensource.casquatch.HedgeStats;
+import com.tmobile.opensource.casquatch.KeyFilterStats;
+import com.tmobile.opensource.casquatch.QueryCache;
+import com.tmobile.opensource.casquatch.ReferenceTable;
+import com.tmobile.opensource.casquatch.Slice;
+import com.tmobile.opensource.casquatch.SlicePage;
+import com.tmobile.opensource.casquatch.TimedRow;
+import com.tmobile.opensource.casquatch.annotations.CoalesceReads;
+import com.tmobile.opensource.casquatch.annotations.HedgedReads;
+import com.tmobile.opensource.casquatch.annotations.KeyFilter;
+import com.tmobile.opensource.casquatch.annotations.NearCache;
 import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.junittest.AbstractTableName;
 import com.tmobile.opensource.casquatch.models.junittest.TableName;
 import org.apache.thrift.transport.TTransportException;
 import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
@@ -27,11 +43,25 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertTrue;
 
@@ -62,6 +92,9 @@ public class CassandraDriverTests {
 
         db.execute("CREATE KEYSPACE junitTest WITH replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1}  AND durable_writes = true");
         db.execute("CREATE TABLE junitTest.table_name (key_one int,key_two int,col_one text,col_two text,PRIMARY KEY ((key_one), key_two))");
+        db.execute("CREATE TABLE junitTest.cached_table (key_one int,key_two int,col_one text,PRIMARY KEY ((key_one), key_two))");
+        db.execute("CREATE TABLE junitTest.filtered_table (key_one int,key_two int,col_one text,PRIMARY KEY ((key_one), key_two))");
+        db.execute("CREATE TABLE junitTest.tagged_table (key_one int,key_two int,col_one text,tags list<text>,PRIMARY KEY ((key_one), key_two))");
         db.execute("CREATE TABLE junitTest.driver_config (\n" +
                 "    table_name text PRIMARY KEY,\n" +
                 "    data_center text,\n" +
@@ -289,6 +322,515 @@ public class CassandraDriverTests {
         assertTrue(db.existsById(TableName.class,new TableName(15, 17)));
     }
     
+    @Before
+    public void beforeExistsByIds() {
+        db.save(TableName.class, new TableName(20, 21));
+        db.save(TableName.class, new TableName(20, 22));
+        db.save(TableName.class, new TableName(23, 24));
+    }
+
+    @Test
+    public void testExistsByIds() {
+        BitSet exists = db.existsByIds(TableName.class, Arrays.asList(new TableName(20,21), new TableName(20,99), new TableName(23,24), new TableName(20,22), new TableName(25,26)));
+
+        //validate
+        assertTrue(exists.get(0));
+        assertFalse(exists.get(1));
+        assertTrue(exists.get(2));
+        assertTrue(exists.get(3));
+        assertFalse(exists.get(4));
+    }
+
+    @Test
+    public void testGetByIds() {
+        List<TableName> objects = db.getByIds(TableName.class, Arrays.asList(new TableName(20,21), new TableName(20,99), new TableName(23,24), new TableName(20,22)));
+
+        //validate
+        assertEquals(4, objects.size());
+        assertEquals(Integer.valueOf(21), objects.get(0).getKeyTwo());
+        assertNull(objects.get(1));
+        assertEquals(Integer.valueOf(23), objects.get(2).getKeyOne());
+        assertEquals(Integer.valueOf(22), objects.get(3).getKeyTwo());
+    }
+
+    @Test
+    public void testGetTimedById() {
+        db.execute("insert into junitTest.table_name (key_one,key_two,col_one,col_two) values (60,61,'Timed','Untimed') using ttl 600");
+        db.execute("update junitTest.table_name using ttl 0 set col_two='Untimed' where key_one=60 and key_two=61");
+
+        TimedRow<TableName> timed = db.getTimedById(TableName.class, new TableName(60, 61), "colOne");
+        TimedRow<TableName> untimed = db.getTimedById(TableName.class, new TableName(60, 61), "col_two");
+
+        //validate
+        assertEquals("Timed", timed.getRow().getColOne());
+        assertTrue(timed.getTtl() > 500 && timed.getTtl() <= 600);
+        assertNotNull(timed.getWriteTime());
+        assertNull(untimed.getTtl());
+        assertEquals(Long.MAX_VALUE, untimed.getExpiresAt());
+        assertNull(db.getTimedById(TableName.class, new TableName(60, 99), "colOne"));
+        db.delete(TableName.class, new TableName(60, 61));
+    }
+
+    @Test
+    public void testSaveAll() {
+        List<TableName> objects = new ArrayList<TableName>();
+        for(int i=0;i<5;i++) {
+            TableName obj = new TableName(50+(i%2), i);
+            obj.setColOne("SaveAll"+i);
+            objects.add(obj);
+        }
+        db.saveAll(TableName.class, objects);
+
+        //validate
+        List<TableName> found = db.getByIds(TableName.class, objects);
+        for(int i=0;i<5;i++) {
+            assertEquals("SaveAll"+i, found.get(i).getColOne());
+            db.delete(TableName.class, objects.get(i));
+        }
+    }
+
+    @Test
+    public void testQueryCache() {
+        for(int i=0;i<3;i++) {
+            TableName obj = new TableName(70, i);
+            obj.setColOne("Query"+i);
+            db.save(TableName.class, obj);
+        }
+        db.save(TableName.class, new TableName(71, 0));
+        QueryCache<TableName> cache = QueryCache.builder(TableName.class, db)
+                .withMaximumRows(100)
+                .withMaximumBytes(64*1024)
+                .build();
+
+        //validate
+        assertEquals(3, cache.getAllById(new TableName(70)).size());
+        assertEquals(2, db.executeAll(TableName.class, "select * from table_name where key_one=? and key_two>=?", 70, 1).size());
+        assertEquals(2, cache.executeAll("select * from table_name where key_one=? and key_two>=?", 70, 1).size());
+        assertEquals(1, cache.executeAll("select * from table_name where key_one=?", 71).size());
+
+        TableName added = new TableName(70, 3);
+        added.setColOne("Query3");
+        db.save(TableName.class, added);
+        assertEquals(3, cache.getAllById(new TableName(70)).size());
+        assertEquals(2, cache.executeAll("select * from table_name where key_one=? and key_two>=?", 70, 1).size());
+        assertEquals(2, cache.getStats().getHitCount());
+
+        cache.invalidate(new TableName(70));
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.getAllById(new TableName(70)).size());
+        assertEquals(3, cache.executeAll("select * from table_name where key_one=? and key_two>=?", 70, 1).size());
+        assertTrue(cache.getStats().getEstimatedBytes() > 0);
+
+        for(int i=0;i<4;i++) {
+            db.delete(TableName.class, new TableName(70, i));
+        }
+        db.delete(TableName.class, new TableName(71, 0));
+    }
+
+    @Test
+    public void testReferenceTable() {
+        for(int i=0;i<3;i++) {
+            TableName obj = new TableName(80, i);
+            obj.setColOne("Reference");
+            obj.setColTwo("Reference"+i);
+            db.save(TableName.class, obj);
+        }
+        ReferenceTable<TableName> table = ReferenceTable.builder(TableName.class, db)
+                .withIndex("colOne")
+                .withSortedIndex("col_two")
+                .withRefreshInterval(0)
+                .build();
+
+        //validate
+        assertEquals(db.getAll(TableName.class).size(), table.size());
+        assertEquals("Reference1", table.getById(new TableName(80, 1)).getColTwo());
+        assertFalse(table.existsById(new TableName(80, 5)));
+        assertEquals(3, table.getAllById(new TableName(80)).size());
+        assertEquals(1, table.getAllById(new TableName(80, 2)).size());
+        assertEquals(3, table.getAllByIndex("colOne", "Reference").size());
+        assertEquals(2, table.getRangeByIndex("colTwo", "Reference0", "Reference2").size());
+
+        table.refresh();
+        assertEquals(1, table.getSwapCount());
+        TableName added = new TableName(80, 3);
+        added.setColOne("Reference");
+        db.save(TableName.class, added);
+        assertEquals(3, table.getAllById(new TableName(80)).size());
+        table.refresh();
+        assertEquals(2, table.getSwapCount());
+        assertEquals(4, table.getAllByIndex("colOne", "Reference").size());
+        assertEquals(3, table.getRefreshCount());
+        table.close();
+
+        for(int i=0;i<4;i++) {
+            db.delete(TableName.class, new TableName(80, i));
+        }
+    }
+
+    @Test
+    public void testNearCache() {
+        CachedTableName obj = new CachedTableName(1, 1);
+        obj.setColOne("Near");
+        db.save(CachedTableName.class, obj);
+        CachedTableName found = db.getById(CachedTableName.class, new CachedTableName(1, 1));
+        assertEquals("Near", found.getColOne());
+
+        //validate reads are served from the near cache and callers get their own copy
+        db.execute("update junitTest.cached_table set col_one='Far' where key_one=1 and key_two=1");
+        found.setColOne("Changed");
+        assertEquals("Near", db.getById(CachedTableName.class, new CachedTableName(1, 1)).getColOne());
+
+        assertFalse(db.existsById(CachedTableName.class, new CachedTableName(1, 2)));
+        db.execute("insert into junitTest.cached_table (key_one,key_two,col_one) values (1,2,'Hidden')");
+        assertFalse(db.existsById(CachedTableName.class, new CachedTableName(1, 2)));
+
+        //validate writes through the driver invalidate
+        db.save(CachedTableName.class, new CachedTableName(1, 2));
+        assertTrue(db.existsById(CachedTableName.class, new CachedTableName(1, 2)));
+        List<CachedTableName> objects = db.getByIds(CachedTableName.class, Arrays.asList(new CachedTableName(1, 1), new CachedTableName(1, 2), new CachedTableName(1, 3)));
+        assertEquals("Near", objects.get(0).getColOne());
+        assertEquals("Hidden", objects.get(1).getColOne());
+        assertNull(objects.get(2));
+
+        obj.setColOne("Saved");
+        db.save(CachedTableName.class, obj);
+        assertEquals("Saved", db.getById(CachedTableName.class, new CachedTableName(1, 1)).getColOne());
+        db.delete(CachedTableName.class, obj);
+        assertNull(db.getById(CachedTableName.class, new CachedTableName(1, 1)));
+        db.delete(CachedTableName.class, new CachedTableName(1, 2));
+        assertFalse(db.existsById(CachedTableName.class, new CachedTableName(1, 2)));
+    }
+
+    @Test
+    public void testKeyFilter() {
+        db.execute("insert into junitTest.filtered_table (key_one,key_two,col_one) values (1,1,'Existing')");
+        db.rebuildKeyFilter(FilteredTableName.class);
+        assertTrue(db.getKeyFilterStats(FilteredTableName.class).isBuilt());
+
+        //validate absent partitions are answered without a query
+        assertEquals("Existing", db.getById(FilteredTableName.class, new FilteredTableName(1, 1)).getColOne());
+        assertNull(db.getById(FilteredTableName.class, new FilteredTableName(2, 1)));
+        assertFalse(db.existsById(FilteredTableName.class, new FilteredTableName(2, 1)));
+        db.execute("insert into junitTest.filtered_table (key_one,key_two,col_one) values (3,1,'Outside')");
+        assertNull(db.getById(FilteredTableName.class, new FilteredTableName(3, 1)));
+
+        //validate saves through the driver and rebuilds add keys
+        db.save(FilteredTableName.class, new FilteredTableName(4, 1));
+        assertTrue(db.existsById(FilteredTableName.class, new FilteredTableName(4, 1)));
+        db.rebuildKeyFilter(FilteredTableName.class);
+        assertEquals("Outside", db.getById(FilteredTableName.class, new FilteredTableName(3, 1)).getColOne());
+        List<FilteredTableName> objects = db.getByIds(FilteredTableName.class, Arrays.asList(new FilteredTableName(1, 1), new FilteredTableName(2, 1), new FilteredTableName(4, 1)));
+        assertNotNull(objects.get(0));
+        assertNull(objects.get(1));
+        assertNotNull(objects.get(2));
+
+        KeyFilterStats stats = db.getKeyFilterStats(FilteredTableName.class);
+        assertEquals(0.001, stats.getTargetFalsePositiveRate(), 0);
+        assertTrue(stats.getByteSize() >= 1000);
+        assertTrue(stats.getExpectedFalsePositiveRate() < 0.001);
+        assertTrue(stats.getAbsentCount() >= 4);
+        assertNull(db.getKeyFilterStats(TableName.class));
+    }
+
+    @Test
+    public void testKeyFilterFailedSave() {
+        db.rebuildKeyFilter(FilteredTableName.class);
+        assertTrue(db.getKeyFilterStats(FilteredTableName.class).isBuilt());
+
+        //validate a failed save still adds its key in case the write was applied
+        try {
+            db.save(FilteredTableName.class, new FilteredTableName(60, null));
+            fail("Save without a clustering key should fail");
+        }
+        catch (DriverException e) {
+        }
+        db.execute("insert into junitTest.filtered_table (key_one,key_two,col_one) values (60,1,'Applied')");
+        assertEquals("Applied", db.getById(FilteredTableName.class, new FilteredTableName(60, 1)).getColOne());
+
+        //validate a partially failed saveAll adds the keys of every batch
+        try {
+            db.saveAll(FilteredTableName.class, Arrays.asList(new FilteredTableName(61, 1), new FilteredTableName(62, null)));
+            fail("Save without a clustering key should fail");
+        }
+        catch (DriverException e) {
+        }
+        db.execute("insert into junitTest.filtered_table (key_one,key_two,col_one) values (61,1,'Applied')");
+        assertEquals("Applied", db.getById(FilteredTableName.class, new FilteredTableName(61, 1)).getColOne());
+        assertTrue(db.existsById(FilteredTableName.class, new FilteredTableName(61, 1)));
+    }
+
+    @Test
+    public void testCopiedCollections() {
+        TaggedTableName obj = new TaggedTableName(1, 1);
+        obj.setTags(new ArrayList<String>(Arrays.asList("saved")));
+        db.save(TaggedTableName.class, obj);
+
+        //validate changing a collection of a returned object does not change the near cache or other callers
+        TaggedTableName found = db.getById(TaggedTableName.class, new TaggedTableName(1, 1));
+        found.getTags().add("changed");
+        TaggedTableName cached = db.getById(TaggedTableName.class, new TaggedTableName(1, 1));
+        assertEquals(Arrays.asList("saved"), cached.getTags());
+        cached.getTags().clear();
+        assertEquals(Arrays.asList("saved"), db.getById(TaggedTableName.class, new TaggedTableName(1, 1)).getTags());
+        obj.getTags().add("caller");
+        assertEquals(Arrays.asList("saved"), db.getById(TaggedTableName.class, new TaggedTableName(1, 1)).getTags());
+    }
+
+    @Test
+    public void testCoalesceReads() throws Exception {
+        CoalescedTableName obj = new CoalescedTableName(90, 1);
+        obj.setColOne("Shared");
+        db.save(CoalescedTableName.class, obj);
+
+        //validate concurrent identical reads all get the row
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CoalescedTableName>> futures = new ArrayList<Future<CoalescedTableName>>();
+        for(int i=0;i<500;i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return db.getById(CoalescedTableName.class, new CoalescedTableName(90, 1));
+            }));
+        }
+        start.countDown();
+        Set<CoalescedTableName> results = Collections.newSetFromMap(new IdentityHashMap<CoalescedTableName, Boolean>());
+        for(Future<CoalescedTableName> future : futures) {
+            assertEquals("Shared", future.get().getColOne());
+            results.add(future.get());
+        }
+        //every caller gets its own object
+        assertEquals(futures.size(), results.size());
+        executor.shutdown();
+        assertTrue(db.getCoalescedReadCount(CoalescedTableName.class) > 0);
+        assertEquals(0, db.getCoalescedReadCount(TableName.class));
+
+        //validate reads after a write see it
+        obj.setColOne("Written");
+        db.save(CoalescedTableName.class, obj);
+        assertEquals("Written", db.getById(CoalescedTableName.class, new CoalescedTableName(90, 1)).getColOne());
+        assertEquals(1, db.getAllById(CoalescedTableName.class, new CoalescedTableName(90, null)).size());
+        assertTrue(db.existsById(CoalescedTableName.class, new CoalescedTableName(90, 1)));
+        db.delete(CoalescedTableName.class, obj);
+        assertFalse(db.existsById(CoalescedTableName.class, new CoalescedTableName(90, 1)));
+    }
+
+    @Test
+    public void testHedgedReads() {
+        HedgedTableName obj = new HedgedTableName(95, 1);
+        obj.setColOne("Hedged");
+        db.save(HedgedTableName.class, obj);
+
+        //validate reads of a hedged model stay correct and within the hedge budget, the delay and budget logic is covered by ReadHedgerTests
+        int reads = 300;
+        for(int i=0;i<reads;i++) {
+            assertEquals("Hedged", db.getById(HedgedTableName.class, new HedgedTableName(95, 1)).getColOne());
+        }
+        assertTrue(db.existsById(HedgedTableName.class, new HedgedTableName(95, 1)));
+        assertEquals(1, db.getAllById(HedgedTableName.class, new HedgedTableName(95, null)).size());
+
+        HedgeStats stats = db.getHedgeStats(HedgedTableName.class);
+        assertEquals(reads + 2, stats.getReadCount());
+        assertTrue(stats.getHedgeCount() <= (reads + 2) / 2 + 10);
+        assertTrue(stats.getHedgeWinCount() <= stats.getHedgeCount());
+        assertNull(db.getHedgeStats(TableName.class));
+
+        db.delete(HedgedTableName.class, obj);
+        assertFalse(db.existsById(HedgedTableName.class, new HedgedTableName(95, 1)));
+    }
+
+    @After
+    public void afterExistsByIds() {
+        db.delete(TableName.class, new TableName(20, 21));
+        db.delete(TableName.class, new TableName(20, 22));
+        db.delete(TableName.class, new TableName(23, 24));
+    }
+    
+    @Before
+    public void beforeProjection() {
+        TableName obj = new TableName(30, 31);
+        obj.setColOne("ColumnOne");
+        obj.setColTwo("ColumnTwo");
+        db.save(TableName.class, obj);
+    }
+
+    @Test
+    public void testGetByIdProjection() {
+        TableName obj = db.getById(TableName.class, new TableName(30, 31), Collections.singleton("colOne"));
+
+        //Validate
+        assertEquals(obj.getKeyOne(),Integer.valueOf(30));
+        assertEquals(obj.getKeyTwo(),Integer.valueOf(31));
+        assertEquals(obj.getColOne(),"ColumnOne");
+        assertNull(obj.getColTwo());
+    }
+
+    @Test
+    public void testGetAllByIdProjection() {
+        List<TableName> objects = db.getAllById(TableName.class, new TableName(30), Collections.singleton("col_two"));
+
+        //Validate
+        assertEquals(objects.size(),1);
+        assertNull(objects.get(0).getColOne());
+        assertEquals(objects.get(0).getColTwo(),"ColumnTwo");
+    }
+
+    @Test(expected = DriverException.class)
+    public void testGetByIdProjectionUnknownColumn() {
+        db.getById(TableName.class, new TableName(30, 31), Collections.singleton("colThree"));
+    }
+
+    @After
+    public void afterProjection() {
+        db.delete(TableName.class, new TableName(30, 31));
+    }
+
+    @Before
+    public void beforeSlice() {
+        for(int i=0;i<10;i++) {
+            db.save(TableName.class, new TableName(40, i));
+        }
+    }
+
+    @Test
+    public void testSliceBuilderReuse() {
+        Slice.Builder builder = Slice.builder().withFrom(2, true).withLimit(3);
+        Slice first = builder.build();
+        Slice second = builder.withFrom(5, false).withDescending().withLimit(1).build();
+
+        //Validate changing the builder does not change slices already built
+        assertEquals(2, first.getFrom());
+        assertTrue(first.isFromInclusive());
+        assertNull(first.getOrder());
+        assertEquals(Integer.valueOf(3), first.getLimit());
+        assertEquals(5, second.getFrom());
+        assertEquals(Slice.Order.DESC, second.getOrder());
+        assertEquals(Integer.valueOf(2), db.getSliceById(TableName.class, new TableName(40), first).get(0).getKeyTwo());
+    }
+
+    @Test
+    public void testGetSliceById() {
+        List<TableName> objects = db.getSliceById(TableName.class, new TableName(40), Slice.builder().withFrom(2, true).withTo(6, false).withDescending().build());
+
+        //Validate
+        assertEquals(objects.size(),4);
+        assertEquals(objects.get(0).getKeyTwo(),Integer.valueOf(5));
+        assertEquals(objects.get(3).getKeyTwo(),Integer.valueOf(2));
+    }
+
+    @Test
+    public void testGetSliceByIdLimit() {
+        List<TableName> objects = db.getSliceById(TableName.class, new TableName(40), Slice.builder().withColumn("keyTwo").withFrom(3, false).withLimit(2).build());
+
+        //Validate
+        assertEquals(objects.size(),2);
+        assertEquals(objects.get(0).getKeyTwo(),Integer.valueOf(4));
+        assertEquals(objects.get(1).getKeyTwo(),Integer.valueOf(5));
+    }
+
+    @Test
+    public void testStreamSliceById() {
+        long count = db.streamSliceById(TableName.class, new TableName(40), Slice.builder().withTo(7, true).withFetchSize(3).build()).count();
+
+        //Validate
+        assertEquals(count,8);
+    }
+
+    @Test
+    public void testGetSlicePageById() {
+        Slice slice = Slice.builder().withFetchSize(4).build();
+        SlicePage<TableName> page = db.getSlicePageById(TableName.class, new TableName(40), slice, null);
+        int total = page.getRows().size();
+        while(page.hasNext()) {
+            page = db.getSlicePageById(TableName.class, new TableName(40), slice, page.getPagingState());
+            total += page.getRows().size();
+        }
+
+        //Validate
+        assertEquals(total,10);
+    }
+
+    @Test
+    public void testAggregate() {
+        //Validate
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.count()),Long.valueOf(10));
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.sum("keyTwo")).intValue(),45);
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.max("key_two", Integer.class)),Integer.valueOf(9));
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.count("colOne")),Long.valueOf(0));
+    }
+
+    @Test
+    public void testAggregateSlice() {
+        Slice slice = Slice.builder().withFrom(2, true).withTo(6, true).build();
+
+        //Validate
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.avg("keyTwo"), slice).intValue(),4);
+        assertEquals(db.aggregate(TableName.class, new TableName(40), Aggregations.min("keyTwo"), slice),2);
+    }
+
+    @Test(expected = DriverException.class)
+    public void testAggregateMissingPartitionKey() {
+        db.aggregate(TableName.class, new TableName(), Aggregations.count());
+    }
+
+    @Test
+    public void testCountAll() {
+        List<TableName> objects = db.executeAll(TableName.class, "select * from table_name");
+
+        //Validate
+        assertEquals(db.countAll(TableName.class),objects.size());
+    }
+
+    @Test
+    public void testThrottledScan() {
+        for(int i=0;i<5;i++) {
+            db.save(TableName.class, new TableName(85, i));
+        }
+        CassandraDriver throttled = new CassandraDriver.Builder()
+                .withContactPoints(EmbeddedCassandraServerHelper.getHost())
+                .withPort(EmbeddedCassandraServerHelper.getNativeTransportPort())
+                .withLocalDC("cassandraunit")
+                .withKeyspace("junittest")
+                .withoutDriverConfig()
+                .withScanThrottle(1000)
+                .withScanFetchSize(2)
+                .build();
+        try {
+            List<TableName> objects = db.executeAll(TableName.class, "select * from table_name");
+            Set<Integer> partitions = new HashSet<Integer>();
+            for(TableName obj : objects) {
+                partitions.add(obj.getKeyOne());
+            }
+
+            //Validate every page is read when pages are throttled
+            assertEquals(objects.size(), throttled.getAll(TableName.class).size());
+            CountEstimate estimate = throttled.estimateCount(TableName.class, 1.0);
+            assertTrue(Math.abs(estimate.getEstimate()-partitions.size()) <= Math.max(1,estimate.getErrorBound()));
+        }
+        finally {
+            throttled.close();
+        }
+    }
+
+    @Test
+    public void testEstimateCount() {
+        Set<Integer> partitions = new HashSet<Integer>();
+        for(TableName obj : db.executeAll(TableName.class, "select * from table_name")) {
+            partitions.add(obj.getKeyOne());
+        }
+        CountEstimate estimate = db.estimateCount(TableName.class, 1.0);
+
+        //Validate
+        assertEquals(estimate.getSampledFraction(),1.0,0.0001);
+        assertTrue(Math.abs(estimate.getEstimate()-partitions.size()) <= Math.max(1,estimate.getErrorBound()));
+    }
+
+    @After
+    public void afterSlice() {
+        for(int i=0;i<10;i++) {
+            db.delete(TableName.class, new TableName(40, i));
+        }
+    }
+
     @Before
     public void beforeGetOneByID() {
         TableName obj = new TableName(18,19);
@@ -320,4 +862,80 @@ public class CassandraDriverTests {
         db.close();
         EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
     }
+
+    /**
+     * junittest.cached_table read with a near cache
+     */
+    @Table(keyspace="junittest", name="cached_table")
+    @NearCache(ttl=60000, maxSize=100)
+    public static class CachedTableName extends AbstractTableName {
+        public CachedTableName() {}
+
+        public CachedTableName(Integer keyOne, Integer keyTwo) {
+            super(keyOne, keyTwo);
+        }
+    }
+
+    /**
+     * junittest.filtered_table read with a key filter
+     */
+    @Table(keyspace="junittest", name="filtered_table")
+    @KeyFilter(expectedKeys=1000, falsePositiveRate=0.001)
+    public static class FilteredTableName extends AbstractTableName {
+        public FilteredTableName() {}
+
+        public FilteredTableName(Integer keyOne, Integer keyTwo) {
+            super(keyOne, keyTwo);
+        }
+    }
+
+    /**
+     * junittest.table_name read with coalesced reads
+     */
+    @Table(keyspace="junittest", name="table_name")
+    @CoalesceReads
+    public static class CoalescedTableName extends AbstractTableName {
+        public CoalescedTableName() {}
+
+        public CoalescedTableName(Integer keyOne, Integer keyTwo) {
+            super(keyOne, keyTwo);
+        }
+    }
+
+    /**
+     * junittest.table_name read with hedged reads
+     */
+    @Table(keyspace="junittest", name="table_name")
+    @HedgedReads(percentile=0.5, budget=0.5, minDelay=0)
+    public static class HedgedTableName extends AbstractTableName {
+        public HedgedTableName() {}
+
+        public HedgedTableName(Integer keyOne, Integer keyTwo) {
+            super(keyOne, keyTwo);
+        }
+    }
+
+    /**
+     * junittest.tagged_table with a collection column read with a near cache
+     */
+    @Table(keyspace="junittest", name="tagged_table")
+    @NearCache(ttl=60000, maxSize=100)
+    public static class TaggedTableName extends AbstractTableName {
+        @Column(name="tags")
+        private List<String> tags;
+
+        public TaggedTableName() {}
+
+        public TaggedTableName(Integer keyOne, Integer keyTwo) {
+            super(keyOne, keyTwo);
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+    }
 }
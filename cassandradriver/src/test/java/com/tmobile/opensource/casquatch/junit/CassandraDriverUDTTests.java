@@ -26,10 +26,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Random;
 import java.util.UUID;
 
@@ -107,6 +110,18 @@ public class CassandraDriverUDTTests {
         assertFalse(db.existsById(JunitUdtTable.class, new JunitUdtTable(testObj.getId())));
     }
 
+    @Test
+    public void testExistsByIds() {
+    	//Create and save
+    	JunitUdtTable testObj = generate();
+        db.save(JunitUdtTable.class, testObj);
+
+        //Validate
+        BitSet exists = db.existsByIds(JunitUdtTable.class, Arrays.asList(new JunitUdtTable(UUID.randomUUID()), new JunitUdtTable(testObj.getId())));
+        assertFalse(exists.get(0));
+        assertTrue(exists.get(1));
+    }
+
     @AfterClass
     public static void shutdown() {
         db.close();
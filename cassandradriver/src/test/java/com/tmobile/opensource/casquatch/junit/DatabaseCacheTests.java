@@ -0,0 +1,726 @@
+/* Copyright 2018 T-Mobile US, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tmobile.opensource.casquatch.junit;
+
+import com.tmobile.opensource.casquatch.CassandraDriver;
+import com.tmobile.opensource.casquatch.DatabaseCache;
+import com.tmobile.opensource.casquatch.InvalidationLog;
+import com.tmobile.opensource.casquatch.cache.BoundedCache;
+import com.tmobile.opensource.casquatch.cache.CacheStats;
+import com.tmobile.opensource.casquatch.cache.RemovalListener;
+import com.tmobile.opensource.casquatch.cache.SlabAllocator;
+import com.tmobile.opensource.casquatch.events.ChangeEvent;
+import com.tmobile.opensource.casquatch.events.ChangeEventBus;
+import com.tmobile.opensource.casquatch.exceptions.DriverException;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+import com.tmobile.opensource.casquatch.models.shared.DriverConfig;
+import org.apache.thrift.transport.TTransportException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class DatabaseCacheTests {
+
+    private static CassandraDriver db;
+
+    @BeforeClass
+    public static void setUp() throws IOException, TTransportException {
+
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra(EmbeddedCassandraServerHelper.CASSANDRA_RNDPORT_YML_FILE, EmbeddedCassandraServerHelper.DEFAULT_STARTUP_TIMEOUT);
+
+        db = new CassandraDriver.Builder()
+        		.withContactPoints(EmbeddedCassandraServerHelper.getHost())
+        		.withPort(EmbeddedCassandraServerHelper.getNativeTransportPort())
+        		.withLocalDC("cassandraunit")
+        		.withKeyspace("system")
+        		.withoutDriverConfig()
+        		.build();
+
+        try {
+            db.execute("drop keyspace junitCache");
+        } catch (DriverException e) {
+
+        }
+
+        db.execute("CREATE KEYSPACE junitCache WITH replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1}  AND durable_writes = true");
+        db.execute("CREATE TABLE junitCache.driver_config (table_name text PRIMARY KEY, data_center text, read_consistency text, write_consistency text)");
+        db.execute("CREATE TABLE junitCache.invalidation_log (bucket bigint, event_time timeuuid, table_name text, cache_key text, source text, PRIMARY KEY ((bucket), event_time))");
+
+        db.close();
+        db = new CassandraDriver.Builder()
+        		.withContactPoints(EmbeddedCassandraServerHelper.getHost())
+        		.withPort(EmbeddedCassandraServerHelper.getNativeTransportPort())
+        		.withLocalDC("cassandraunit")
+        		.withKeyspace("junitcache")
+        		.withoutDriverConfig()
+        		.build();
+    }
+
+    @Test
+    public void testGetAfterSet() {
+        DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, db);
+        DriverConfig obj = new DriverConfig("set_table");
+        obj.setDataCenter("dc1");
+        cache.set("set_table", obj);
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='set_table'");
+        assertEquals("dc1", cache.get("set_table").getDataCenter());
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withExpiration(50)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('expire_table','dc1')");
+        assertEquals("dc1", cache.get("expire_table").getDataCenter());
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='expire_table'");
+        Thread.sleep(100);
+        assertEquals("dc2", cache.get("expire_table").getDataCenter());
+    }
+
+    @Test
+    public void testTtlColumn() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withTtlColumn("dataCenter")
+                .withNegativeExpiration(0)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('ttl_table','dc1') using ttl 2");
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('no_ttl_table','dc1')");
+        assertEquals("dc1", cache.get("ttl_table").getDataCenter());
+        assertEquals("dc1", cache.getAll(Arrays.asList("no_ttl_table")).get("no_ttl_table").getDataCenter());
+
+        //The entry leaves the cache when the row expires on the server
+        Thread.sleep(2500);
+        assertNull(cache.get("ttl_table"));
+        assertEquals("dc1", cache.get("no_ttl_table").getDataCenter());
+    }
+
+    @Test
+    public void testExpirationFunction() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withExpirationFunction((key, obj) -> "dc_short".equals(obj.getDataCenter()) ? 50 : 60000)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('short_table','dc_short')");
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('long_table','dc_long')");
+        cache.get("short_table");
+        cache.get("long_table");
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name in ('short_table','long_table')");
+        Thread.sleep(100);
+        assertEquals("dc2", cache.get("short_table").getDataCenter());
+        assertEquals("dc_long", cache.get("long_table").getDataCenter());
+    }
+
+    @Test
+    public void testRefreshAhead() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withExpiration(2000)
+                .withRefreshAhead(0.25)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('refresh_table','dc1')");
+        assertEquals("dc1", cache.get("refresh_table").getDataCenter());
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='refresh_table'");
+        Thread.sleep(600);
+        assertEquals("dc1", cache.get("refresh_table").getDataCenter());
+        Thread.sleep(300);
+        assertEquals("dc2", cache.get("refresh_table").getDataCenter());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withExpiration(50)
+                .withMaxStaleness(60000)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('stale_table','dc1')");
+        assertEquals("dc1", cache.get("stale_table").getDataCenter());
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='stale_table'");
+        Thread.sleep(100);
+        assertEquals("dc1", cache.get("stale_table").getDataCenter());
+        Thread.sleep(300);
+        assertEquals("dc2", cache.get("stale_table").getDataCenter());
+    }
+
+    @Test
+    public void testMissingKey() {
+        DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, db);
+        assertNull(cache.get("missing_table"));
+    }
+
+    @Test
+    public void testCacheKey() {
+        //Keys with the same values are equal whatever their class
+        assertEquals(CacheKey.of("key_table"), new DriverConfig.Key("key_table"));
+        assertEquals(new DriverConfig.Key("key_table").hashCode(), CacheKey.of("key_table").hashCode());
+        assertEquals(CacheKey.of(5L), CacheKey.ofLong(5));
+        assertEquals(CacheKey.ofLong(5), CacheKey.of(5L));
+        assertEquals(CacheKey.of(5L).hashCode(), CacheKey.ofLong(5).hashCode());
+        assertFalse(CacheKey.of(5).equals(CacheKey.ofLong(5)));
+
+        //Values containing dots survive the dot separated form
+        CacheKey key = CacheKey.of("a.b", "c\\d", 7);
+        assertEquals("a\\.b.c\\\\d.7", key.toString());
+        assertArrayEquals(new String[] {"a.b", "c\\d", "7"}, CacheKey.split(key.toString()));
+        assertEquals(Integer.valueOf(7), CacheKey.parse("7", Integer.class));
+
+        DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, db);
+        DriverConfig obj = new DriverConfig("key.table");
+        obj.setDataCenter("dc1");
+        cache.set(obj.getCacheKey(), obj);
+        assertEquals("dc1", cache.get(new DriverConfig.Key("key.table")).getDataCenter());
+        assertEquals("dc1", cache.get(CacheKey.of("key.table")).getDataCenter());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withMaximumSize(10)
+                .withJmx()
+                .build();
+        try {
+            db.execute("insert into junitCache.driver_config (table_name,data_center) values('stats_table','dc1')");
+            cache.get("stats_table");
+            cache.get("stats_table");
+            cache.get("stats_missing_table");
+            cache.get("stats_missing_table");
+            for(int i=0;i<50;i++) {
+                DriverConfig obj = new DriverConfig("stats_table_"+i);
+                cache.set(obj.getCacheKey(), obj);
+            }
+
+            CacheStats stats = cache.getStats();
+            assertEquals(DriverConfig.class.getName(), stats.getName());
+            assertEquals(1, stats.getHitCount());
+            assertEquals(2, stats.getMissCount());
+            assertEquals(1, stats.getNegativeHitCount());
+            assertEquals(2, stats.getLoadCount());
+            assertEquals(0, stats.getLoadFailureCount());
+            assertTrue(stats.getEvictionCount() >= 40);
+            assertTrue(stats.getEstimatedBytes() > 0);
+            assertEquals(2, Arrays.stream(stats.getLoadTimeHistogram()).sum());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> names = server.queryNames(new ObjectName("com.tmobile.opensource.casquatch:type=DatabaseCache,*"), null);
+            assertEquals(1, names.size());
+            assertEquals(1L, server.getAttribute(names.iterator().next(), "HitCount"));
+        }
+        finally {
+            cache.close();
+        }
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("com.tmobile.opensource.casquatch:type=DatabaseCache,*"), null).isEmpty());
+    }
+
+    @Test
+    public void testNegativeCache() {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger(1);
+        CassandraDriver countingDb = new CassandraDriver("cassandra", "cassandra", EmbeddedCassandraServerHelper.getHost(), EmbeddedCassandraServerHelper.getNativeTransportPort(), "cassandraunit", "junitcache") {
+            @Override
+            public <T extends AbstractCassandraTable> T getById(Class<T> c, T o) {
+                loads.incrementAndGet();
+                if(failures.getAndDecrement() > 0) {
+                    throw new DriverException(399, "Simulated failure");
+                }
+                return super.getById(c, o);
+            }
+        };
+        try {
+            DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, countingDb);
+
+            //Failures are not cached as absent
+            assertNull(cache.get("negative_table"));
+            assertNull(cache.get("negative_table"));
+            assertEquals(2, loads.get());
+
+            //Absence is cached
+            assertNull(cache.get("negative_table"));
+            assertEquals(2, loads.get());
+
+            //A set replaces the negative entry
+            DriverConfig obj = new DriverConfig("negative_table");
+            obj.setDataCenter("dc1");
+            cache.set("negative_table", obj);
+            assertEquals("dc1", cache.get("negative_table").getDataCenter());
+            assertEquals(2, loads.get());
+        }
+        finally {
+            countingDb.close();
+        }
+    }
+
+    @Test
+    public void testGetAll() {
+        AtomicInteger loads = new AtomicInteger();
+        CassandraDriver countingDb = new CassandraDriver("cassandra", "cassandra", EmbeddedCassandraServerHelper.getHost(), EmbeddedCassandraServerHelper.getNativeTransportPort(), "cassandraunit", "junitcache") {
+            @Override
+            public <T extends AbstractCassandraTable> List<T> getByIds(Class<T> c, List<T> os) {
+                loads.incrementAndGet();
+                return super.getByIds(c, os);
+            }
+        };
+        try {
+            db.execute("insert into junitCache.driver_config (table_name,data_center) values('bulk_table_1','dc1')");
+            db.execute("insert into junitCache.driver_config (table_name,data_center) values('bulk_table_2','dc2')");
+            DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, countingDb);
+
+            Map<String,DriverConfig> found = cache.getAll(Arrays.asList("bulk_table_1", "bulk_table_2", "bulk_table_3"));
+            assertEquals(2, found.size());
+            assertEquals("dc1", found.get("bulk_table_1").getDataCenter());
+            assertEquals("dc2", found.get("bulk_table_2").getDataCenter());
+            assertEquals(1, loads.get());
+
+            //All keys are now cached, including the missing one
+            assertEquals(2, cache.getAll(Arrays.asList("bulk_table_1", "bulk_table_2", "bulk_table_3")).size());
+            assertEquals(1, loads.get());
+        }
+        finally {
+            countingDb.close();
+        }
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger(1);
+        CassandraDriver countingDb = new CassandraDriver("cassandra", "cassandra", EmbeddedCassandraServerHelper.getHost(), EmbeddedCassandraServerHelper.getNativeTransportPort(), "cassandraunit", "junitcache") {
+            @Override
+            public <T extends AbstractCassandraTable> void saveAll(Class<T> c, List<T> os) {
+                writes.incrementAndGet();
+                if(failures.getAndDecrement() > 0) {
+                    throw new DriverException(399, "Simulated failure");
+                }
+                super.saveAll(c, os);
+            }
+        };
+        try {
+            DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, countingDb)
+                    .withWriteBehind(60000, 100)
+                    .withWriteRetries(3, 100)
+                    .build();
+            for(int i=0;i<5;i++) {
+                DriverConfig obj = new DriverConfig("behind_table");
+                obj.setDataCenter("dc"+i);
+                cache.set("behind_table", obj);
+            }
+            DriverConfig other = new DriverConfig("behind_table_2");
+            other.setDataCenter("dc1");
+            CompletableFuture<Void> written = cache.setAsync("behind_table_2", other);
+
+            //Served from memory before it is written
+            assertEquals("dc4", cache.get("behind_table").getDataCenter());
+            assertNull(db.getById(DriverConfig.class, new DriverConfig("behind_table")));
+
+            //The first batch fails and is retried with both keys coalesced into one batch
+            cache.flush().get(10, TimeUnit.SECONDS);
+            assertTrue(written.isDone());
+            assertEquals(2, writes.get());
+            assertEquals("dc4", db.getById(DriverConfig.class, new DriverConfig("behind_table")).getDataCenter());
+            assertEquals("dc1", db.getById(DriverConfig.class, new DriverConfig("behind_table_2")).getDataCenter());
+
+            //Buffered writes are flushed on close
+            DriverConfig last = new DriverConfig("behind_table");
+            last.setDataCenter("dc5");
+            cache.set("behind_table", last);
+            cache.close();
+            assertEquals("dc5", db.getById(DriverConfig.class, new DriverConfig("behind_table")).getDataCenter());
+        }
+        finally {
+            countingDb.close();
+        }
+    }
+
+    @Test
+    public void testWriteBehindDropped() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        CassandraDriver failingDb = new CassandraDriver("cassandra", "cassandra", EmbeddedCassandraServerHelper.getHost(), EmbeddedCassandraServerHelper.getNativeTransportPort(), "cassandraunit", "junitcache") {
+            @Override
+            public <T extends AbstractCassandraTable> void saveAll(Class<T> c, List<T> os) {
+                writes.incrementAndGet();
+                throw new DriverException(399, "Simulated failure");
+            }
+        };
+        try {
+            DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, failingDb)
+                    .withWriteBehind(60000, 1)
+                    .withWriteRetries(3, 10000)
+                    .build();
+            DriverConfig obj = new DriverConfig("dropped_table");
+            obj.setDataCenter("dc1");
+            CompletableFuture<Void> written = cache.setAsync("dropped_table", obj);
+
+            //Flushes during the backoff wait for it instead of spending attempts
+            Thread.sleep(20);
+            for(int i=0;i<20;i++) {
+                cache.flush();
+            }
+            Thread.sleep(20);
+            assertEquals(1, writes.get());
+
+            //Once out of attempts the unsaved value is evicted
+            try {
+                written.get(10, TimeUnit.SECONDS);
+                fail("expected the write to be dropped");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DriverException);
+            }
+            assertEquals(3, writes.get());
+            assertNull(cache.get("dropped_table"));
+            cache.close();
+        }
+        finally {
+            failingDb.close();
+        }
+    }
+
+    @Test
+    public void testMaximumSize() {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withMaximumSize(10)
+                .build();
+        for(int i=0;i<50;i++) {
+            DriverConfig obj = new DriverConfig("cache_table_"+i);
+            cache.set(obj.getCacheKey(), obj);
+        }
+        assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    public void testSerializedStorage() {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withSerializedStorage(1024*1024)
+                .withDecodedHotSetSize(10)
+                .build();
+        DriverConfig obj = new DriverConfig("serialized_table");
+        obj.setDataCenter("dc1");
+        obj.setReadConsistency("ONE");
+        cache.set("serialized_table", obj);
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='serialized_table'");
+        DriverConfig cached = cache.get("serialized_table");
+        assertEquals("dc1", cached.getDataCenter());
+        assertEquals("ONE", cached.getReadConsistency());
+        assertEquals("serialized_table", cached.getTableName());
+    }
+
+    @Test
+    public void testOffHeapStorage() {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withOffHeapStorage(8192)
+                .build();
+        for(int i=0;i<200;i++) {
+            DriverConfig obj = new DriverConfig("offheap_table_"+i);
+            obj.setDataCenter("dc"+i);
+            cache.set(obj.getCacheKey(), obj);
+        }
+        assertTrue(cache.size() < 200);
+        assertEquals("dc199", cache.get("offheap_table_199").getDataCenter());
+    }
+
+    @Test
+    public void testDiskTier() throws IOException {
+        File file = File.createTempFile("casquatch-disk", ".cache");
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withMaximumSize(10)
+                .withDiskTier(file, 1024*1024)
+                .build();
+        try {
+            for(int i=0;i<50;i++) {
+                DriverConfig obj = new DriverConfig("disk_table_"+i);
+                obj.setDataCenter("dc"+i);
+                cache.set(obj.getCacheKey(), obj);
+            }
+            assertTrue(cache.size() <= 10);
+
+            //Evicted entries are served from disk rather than the database
+            db.execute("update junitCache.driver_config set data_center='changed' where table_name in ('disk_table_0','disk_table_1')");
+            assertEquals("dc0", cache.get("disk_table_0").getDataCenter());
+            assertEquals("dc1", cache.get("disk_table_1").getDataCenter());
+        }
+        finally {
+            cache.close();
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File file = File.createTempFile("casquatch-snapshot", ".cache");
+        file.delete();
+        file.deleteOnExit();
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withSnapshot(file)
+                .build();
+        DriverConfig obj = new DriverConfig("snapshot_table");
+        obj.setDataCenter("dc1");
+        cache.set("snapshot_table", obj);
+        cache.close();
+        assertTrue(file.exists());
+
+        db.execute("update junitCache.driver_config set data_center='dc2' where table_name='snapshot_table'");
+        DatabaseCache<DriverConfig> warmCache = DatabaseCache.builder(DriverConfig.class, db)
+                .withSnapshot(file)
+                .build();
+        assertEquals(1, warmCache.size());
+        assertEquals("dc1", warmCache.get("snapshot_table").getDataCenter());
+
+        //Expired entries are skipped
+        DatabaseCache<DriverConfig> expiredCache = DatabaseCache.builder(DriverConfig.class, db)
+                .withExpiration(-1)
+                .withSnapshot(file)
+                .build();
+        expiredCache.set("snapshot_table", obj);
+        expiredCache.close();
+        assertEquals(0, DatabaseCache.builder(DriverConfig.class, db).withSnapshot(file).build().size());
+    }
+
+    @Test
+    public void testSlabAllocatorReuse() {
+        SlabAllocator allocator = new SlabAllocator(4096);
+        List<Long> handles = new ArrayList<>();
+        for(long handle = allocator.allocate(100); handle >= 0; handle = allocator.allocate(100)) {
+            handles.add(handle);
+        }
+        assertTrue(handles.size() > 0);
+        assertEquals(-1, allocator.allocate(100));
+
+        allocator.free(handles.get(0));
+        long handle = allocator.allocate(100);
+        assertEquals(handles.get(0).longValue(), handle);
+        allocator.write(handle, "value".getBytes());
+        byte[] bytes = new byte[5];
+        allocator.read(handle, bytes);
+        assertEquals("value", new String(bytes));
+    }
+
+    @Test
+    public void testFrequentKeySurvivesScan() {
+        BoundedCache<Integer,String> cache = new BoundedCache<>(100);
+        cache.put(-1, "hot", Long.MAX_VALUE);
+        for(int i=0;i<1000;i++) {
+            for(int j=0;j<5;j++) {
+                assertNotNull(cache.getEntry(-1));
+            }
+            cache.put(i, "cold", Long.MAX_VALUE);
+        }
+        assertTrue(cache.size() <= 100);
+        assertNotNull(cache.getEntry(-1));
+    }
+
+    @Test
+    public void testExpiredEntriesSwept() throws InterruptedException {
+        BoundedCache<Integer,String> cache = new BoundedCache<>(1000);
+        AtomicInteger expired = new AtomicInteger();
+        cache.setRemovalListener((entry, cause) -> {
+            if(cause == RemovalListener.Cause.EXPIRED) {
+                expired.incrementAndGet();
+            }
+        });
+        long now = System.currentTimeMillis();
+        for(int i=0;i<100;i++) {
+            cache.put(i, "short", now + 50);
+        }
+        cache.put(-1, "long", now + 60000);
+        cache.put(-2, "forever", Long.MAX_VALUE);
+        for(int i=0;i<50 && cache.size() > 2;i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.weightedSize());
+        assertEquals(100, expired.get());
+        assertNotNull(cache.getEntry(-1));
+        assertNotNull(cache.getEntry(-2));
+    }
+
+    @Test
+    public void testChangeEvents() throws InterruptedException {
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withChangeEvents()
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('event_table','dc1')");
+        assertEquals("dc1", cache.get("event_table").getDataCenter());
+
+        DriverConfig obj = new DriverConfig("event_table");
+        obj.setDataCenter("dc2");
+        db.save(DriverConfig.class, obj);
+        for(int i=0;i<50 && !"dc2".equals(cache.get("event_table").getDataCenter());i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("dc2", cache.get("event_table").getDataCenter());
+
+        //validate a partial save reloads the row rather than caching the unsaved columns as null
+        DriverConfig partial = new DriverConfig("event_table");
+        partial.setReadConsistency("ONE");
+        db.save(DriverConfig.class, partial);
+        for(int i=0;i<50 && !"ONE".equals(cache.get("event_table").getReadConsistency());i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("ONE", cache.get("event_table").getReadConsistency());
+        assertEquals("dc2", cache.get("event_table").getDataCenter());
+        partial.setDataCenter("changed");
+        assertEquals("dc2", cache.get("event_table").getDataCenter());
+
+        db.delete(DriverConfig.class, obj);
+        for(int i=0;i<50 && cache.get("event_table") != null;i++) {
+            Thread.sleep(20);
+        }
+        assertNull(cache.get("event_table"));
+        cache.close();
+    }
+
+    @Test
+    public void testInvalidationLog() throws InterruptedException {
+        InvalidationLog writerLog = InvalidationLog.builder(db).withPollInterval(50).build();
+        InvalidationLog readerLog = InvalidationLog.builder(db).withPollInterval(50).build();
+        writerLog.track(DriverConfig.class);
+        List<String> ownKeys = new CopyOnWriteArrayList<String>();
+        writerLog.subscribe(DriverConfig.class, ownKeys::add);
+        DatabaseCache<DriverConfig> cache = DatabaseCache.builder(DriverConfig.class, db)
+                .withInvalidationLog(readerLog)
+                .build();
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('log_table','dc1')");
+        assertEquals("dc1", cache.get("log_table").getDataCenter());
+
+        DriverConfig obj = new DriverConfig("log_table");
+        obj.setDataCenter("dc2");
+        db.save(DriverConfig.class, obj);
+        for(int i=0;i<100 && !"dc2".equals(cache.get("log_table").getDataCenter());i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("dc2", cache.get("log_table").getDataCenter());
+        assertEquals(1, writerLog.getAppendedCount());
+        assertTrue(readerLog.getDeliveredCount() >= 1);
+        assertTrue(readerLog.getMaxLagMillis() >= readerLog.getLastLagMillis());
+        assertTrue(readerLog.getLagBoundMillis() < 5000);
+        assertEquals(0, readerLog.getPollFailureCount());
+
+        //The writer skips its own records
+        Thread.sleep(200);
+        assertTrue(ownKeys.isEmpty());
+        assertEquals(0, writerLog.getDeliveredCount());
+
+        cache.close();
+        writerLog.close();
+        readerLog.close();
+    }
+
+    @Test
+    public void testChangeEventOverflow() throws InterruptedException {
+        ChangeEventBus bus = new ChangeEventBus(4);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ChangeEvent.Type> received = new CopyOnWriteArrayList<ChangeEvent.Type>();
+        bus.subscribe(DriverConfig.class, event -> {
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event.getType());
+        });
+        int published = 0;
+        for(int i=0;i<20;i++) {
+            if(bus.publish(new ChangeEvent<DriverConfig>(ChangeEvent.Type.SAVE, DriverConfig.class, new DriverConfig("overflow_"+i)))) {
+                published++;
+            }
+        }
+        assertTrue(bus.getDroppedCount() > 0);
+        assertEquals(20, published + bus.getDroppedCount());
+        release.countDown();
+        for(int i=0;i<100 && !received.contains(ChangeEvent.Type.OVERFLOW);i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(published, received.stream().filter(type -> type == ChangeEvent.Type.SAVE).count());
+        assertEquals(ChangeEvent.Type.OVERFLOW, received.get(received.size()-1));
+        bus.close();
+    }
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CassandraDriver countingDb = new CassandraDriver("cassandra", "cassandra", EmbeddedCassandraServerHelper.getHost(), EmbeddedCassandraServerHelper.getNativeTransportPort(), "cassandraunit", "junitcache") {
+            @Override
+            public <T extends AbstractCassandraTable> T getById(Class<T> c, T o) {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getById(c, o);
+            }
+        };
+        db.execute("insert into junitCache.driver_config (table_name,data_center) values('flight_table','dc1')");
+        DatabaseCache<DriverConfig> cache = new DatabaseCache<>(DriverConfig.class, countingDb);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<DriverConfig>> callers = new ArrayList<>();
+            for(int i=0;i<8;i++) {
+                callers.add(() -> cache.get("flight_table"));
+            }
+            for(Future<DriverConfig> result : executor.invokeAll(callers)) {
+                assertEquals("dc1", result.get().getDataCenter());
+            }
+        }
+        finally {
+            executor.shutdown();
+            countingDb.close();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @After
+    public void afterTest() {
+        db.execute("delete from junitCache.driver_config where table_name in ('set_table','expire_table','flight_table','refresh_table','stale_table','negative_table','bulk_table_1','bulk_table_2','serialized_table','snapshot_table','behind_table','behind_table_2','key.table','ttl_table','no_ttl_table','short_table','long_table','event_table','log_table','dropped_table')");
+    }
+}
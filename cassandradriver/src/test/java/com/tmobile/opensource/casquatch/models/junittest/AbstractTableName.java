@@ -0,0 +1,96 @@
+package com.tmobile.opensource.casquatch.models.junittest;
+
+import com.datastax.driver.mapping.annotations.Column;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.ClusteringColumn;
+import com.datastax.driver.mapping.annotations.Transient;
+import com.tmobile.opensource.casquatch.models.AbstractCassandraTable;
+
+/**
+ * Keys and col_one shared by test tables that only differ in their table name and driver annotations. Subclasses add the Table
+ * annotation and constructors
+ */
+public abstract class AbstractTableName extends AbstractCassandraTable {
+
+    @Column(name="col_one")
+    private String colOne;
+    @PartitionKey(0)
+    @Column(name="key_one")
+    private Integer keyOne;
+    @ClusteringColumn(0)
+    @Column(name="key_two")
+    private Integer keyTwo;
+
+    /**
+     * Empty Initializer
+     */
+    protected AbstractTableName() {}
+
+    /**
+     * Initialize with Partition and Clustering Keys
+     * @param keyOne Partition Key Named keyOne
+     * @param keyTwo Clustering Key Named keyTwo
+     */
+    protected AbstractTableName(Integer keyOne,Integer keyTwo) {
+        this.keyOne = keyOne;
+        this.keyTwo = keyTwo;
+    }
+
+    /**
+     * Implement getID function from AbstractCassandraTable
+     * @return Array of keys
+     */
+    @Transient
+    public Object[] getID() {
+        return new Object[]{this.getKeyOne(),this.getKeyTwo()};
+    }
+
+    /**
+     * Get procedure for ColOne
+     * @return Value of ColOne
+     */
+    public String getColOne() {
+        return this.colOne;
+    }
+
+    /**
+     * Set procedure for ColOne
+     * @param colOne value to set
+     */
+    public void setColOne(String colOne) {
+        this.colOne = colOne;
+    }
+
+    /**
+     * Get procedure for KeyOne
+     * @return Value of KeyOne
+     */
+    public Integer getKeyOne() {
+        return this.keyOne;
+    }
+
+    /**
+     * Set procedure for KeyOne
+     * @param keyOne value to set
+     */
+    public void setKeyOne(Integer keyOne) {
+        this.keyOne = keyOne;
+    }
+
+    /**
+     * Get procedure for KeyTwo
+     * @return Value of KeyTwo
+     */
+    public Integer getKeyTwo() {
+        return this.keyTwo;
+    }
+
+    /**
+     * Set procedure for KeyTwo
+     * @param keyTwo value to set
+     */
+    public void setKeyTwo(Integer keyTwo) {
+        this.keyTwo = keyTwo;
+    }
+
+}
@@ -129,6 +129,10 @@ public class GeneratorController {
         model.addAttribute("partitionKeys", partitionKeys);
         model.addAttribute("clusteringKeys", clusteringKeys);
         model.addAttribute("columns", columns);
+
+        List<ColumnsExtended> keyColumns = new ArrayList<>(partitionKeys);
+        keyColumns.addAll(clusteringKeys);
+        model.addAttribute("keyColumns", keyColumns);
         return "models/dse_table_cachable";
     }
 
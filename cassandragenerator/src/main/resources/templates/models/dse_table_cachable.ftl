@@ -6,6 +6,8 @@ import com.datastax.driver.mapping.annotations.ClusteringColumn;
 import com.datastax.driver.mapping.annotations.Table;
 import com.datastax.driver.mapping.annotations.Transient;
 import com.tmobile.opensource.casquatch.models.AbstractCachable;
+import com.tmobile.opensource.casquatch.models.CacheKey;
+import com.tmobile.opensource.casquatch.models.LongCacheKey;
 
 //Data Types
 import java.lang.String;
@@ -29,6 +31,75 @@ import java.math.BigInteger;
 )
 public class ${className} extends AbstractCachable {
 
+    <#assign longKey = keyColumns?size == 1 && keyColumns[0].javaType == "Long">
+    /**
+     * Generated: Immutable cache key of the primary keys
+     */
+    public static final class Key extends <#if longKey>LongCacheKey<#else>CacheKey</#if> {
+    <#if longKey>
+
+        /**
+         * Generated: Initialize with the primary key
+         * @param ${keyColumns[0].varName} Primary Key Named ${keyColumns[0].varName}
+         */
+        public Key(long ${keyColumns[0].varName}) {
+            super(${keyColumns[0].varName});
+        }
+
+        /**
+         * Generated: Get procedure for ${keyColumns[0].procName}
+         * @return Value of ${keyColumns[0].procName}
+         */
+        public Long get${keyColumns[0].procName}() {
+            return getLong();
+        }
+    <#else>
+        <#list keyColumns as col>
+        private final ${col.javaType} ${col.varName};
+        </#list>
+
+        /**
+         * Generated: Initialize with the primary keys
+<#list keyColumns as col>
+         * @param ${col.varName} Primary Key Named ${col.varName}
+</#list>
+         */
+        public Key(<#list keyColumns as col>${col.javaType} ${col.varName}<#sep>, </#sep></#list>) {
+            super(<#list keyColumns as col>hash(</#list>HASH_SEED<#list keyColumns as col>, ${col.varName})</#list>);
+            <#list keyColumns as col>
+            this.${col.varName} = ${col.varName};
+            </#list>
+        }
+        <#list keyColumns as col>
+
+        /**
+         * Generated: Get procedure for ${col.procName}
+         * @return Value of ${col.procName}
+         */
+        public ${col.javaType} get${col.procName}() {
+            return this.${col.varName};
+        }
+        </#list>
+
+        @Override
+        public int size() {
+            return ${keyColumns?size};
+        }
+
+        @Override
+        public Object get(int index) {
+            switch(index) {
+            <#list keyColumns as col>
+                case ${col?index}:
+                    return this.${col.varName};
+            </#list>
+                default:
+                    throw new IndexOutOfBoundsException("Index: "+index);
+            }
+        }
+    </#if>
+    }
+
     <#list columns as col>
     <#switch col.kind>
         <#case "partition_key">
@@ -73,7 +144,7 @@ public class ${className} extends AbstractCachable {
 </#list>
      */ 
     public ${className}(<#list partitionKeys as col>${col.javaType} ${col.varName}<#sep>,</#sep></#list>,<#list clusteringKeys as col>${col.javaType} ${col.varName}<#sep>,</#sep></#list>) {
-        <#list partitionKeys as col>
+        <#list keyColumns as col>
         this.${col.varName} = ${col.varName};
         </#list>
     } 
@@ -85,20 +156,9 @@ public class ${className} extends AbstractCachable {
      */  
     @Transient
     public void setCacheKey(String key) {
-        String keyVals[];
-        if(key.contains(".")) {
-            keyVals = key.split(".");
-        } else {
-            keyVals = new String[] {key};
-        }
-        <#assign ordinal=0>
-        <#list partitionKeys as col>
-        this.set${col.procName}(keyVals[${ordinal}]);
-        <#assign ordinal=ordinal+1>
-        </#list>
-        <#list clusteringKeys as col>
-        this.set${col.procName}(keyVals[${ordinal}]);
-        <#assign ordinal=ordinal+1>
+        String keyVals[] = CacheKey.split(key);
+        <#list keyColumns as col>
+        this.set${col.procName}(CacheKey.parse(keyVals[${col?index}], ${col.javaType}.class));
         </#list>
     }
     
@@ -108,9 +168,39 @@ public class ${className} extends AbstractCachable {
      */
     @Transient
     public String getCacheKey() {
-        return <#list partitionKeys as col>this.get${col.procName}()<#sep>+"."+</#sep></#list><#if clusteringKeys?has_content>+"."+<#list clusteringKeys as col>this.get${col.procName}()<#sep>,</#sep></#list></#if>;
+        return getKey().toString();
     }  
 
+    /**
+     * Generated: Set the primary keys based on provided typed key
+     * @param key typed primary key
+     */
+    @Transient
+    public void setKey(CacheKey key) {
+    <#if longKey>
+        this.set${keyColumns[0].procName}(key instanceof LongCacheKey ? ((LongCacheKey) key).getLong() : (Long) key.get(0));
+    <#else>
+        if(key instanceof Key) {
+            <#list keyColumns as col>
+            this.set${col.procName}(((Key) key).get${col.procName}());
+            </#list>
+        } else {
+            <#list keyColumns as col>
+            this.set${col.procName}((${col.javaType}) key.get(${col?index}));
+            </#list>
+        }
+    </#if>
+    }
+
+    /**
+     * Generated: Get the typed cache key of the primary keys
+     * @return key typed primary key
+     */
+    @Transient
+    public Key getKey() {
+        return new Key(<#list keyColumns as col>this.get${col.procName}()<#sep>, </#sep></#list>);
+    }
+
     /**
      * Generated: Implement getID function from AbstractCassandraTable
      * @return Array of keys